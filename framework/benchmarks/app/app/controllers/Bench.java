@@ -0,0 +1,48 @@
+package controllers;
+
+import models.Order;
+import play.mvc.Context;
+import play.mvc.Controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Bench extends Controller {
+
+    public Bench(Context context) {
+        super(context);
+    }
+
+    public void index() {
+        List<Order.Line> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Order.Line line = new Order.Line();
+            line.product = "Product " + i;
+            line.quantity = i + 1;
+            line.price = 9.99 * (i + 1);
+            lines.add(line);
+        }
+        context.getRenderArgs().put("lines", lines);
+        render(context);
+    }
+
+    public void hello(String name) {
+        renderText("Hello " + name);
+    }
+
+    public void order(Order order) {
+        renderText(order.reference);
+    }
+
+    public void userOrder(Long id, Long orderId) {
+        renderText(id + "/" + orderId);
+    }
+
+    public void article(int year, int month, String slug) {
+        renderText(slug);
+    }
+
+    public void search(String q, int page) {
+        renderText(q);
+    }
+}
@@ -0,0 +1,31 @@
+package models;
+
+import java.util.Date;
+import java.util.List;
+
+public class Order {
+
+    public Long id;
+    public String reference;
+    public Date created;
+    public Customer customer;
+    public List<Line> lines;
+
+    public static class Customer {
+        public String name;
+        public String email;
+        public Address address;
+    }
+
+    public static class Address {
+        public String street;
+        public String city;
+        public String zip;
+    }
+
+    public static class Line {
+        public String product;
+        public int quantity;
+        public double price;
+    }
+}
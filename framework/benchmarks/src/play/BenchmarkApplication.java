@@ -0,0 +1,57 @@
+package play;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import play.mvc.Context;
+import play.mvc.Http;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * The application of <code>benchmarks/app</code>, started in PROD mode once per benchmark fork. Benchmarks run from
+ * the framework directory, see the <code>jmh</code> task of the build.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkApplication {
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        synchronized (BenchmarkApplication.class) {
+            if (!Play.started) {
+                Play.frameworkPath = new File("..").getCanonicalFile();
+                Play.init(new File("benchmarks/app").getCanonicalFile(), System.getProperty("play.id", ""));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        synchronized (BenchmarkApplication.class) {
+            if (Play.started) {
+                Play.stop(new Context(null, null));
+            }
+            if (Invoker.executor != null) {
+                Invoker.executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @return a request context for a GET of a path, as the server would build it before invoking the action
+     */
+    public static Context newContext(String path, String querystring) {
+        String url = querystring.isEmpty() ? path : path + "?" + querystring;
+        Http.Request request = Http.Request.createRequest("127.0.0.1", "GET", path, querystring, null,
+                new ByteArrayInputStream(new byte[0]), url, "localhost:9000", true, 9000, "localhost", false,
+                new HashMap<>(), new HashMap<>());
+        Context context = new Context(request, new Http.Response());
+        context.clear();
+        return context;
+    }
+}
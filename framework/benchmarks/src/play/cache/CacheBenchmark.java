@@ -0,0 +1,59 @@
+package play.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import play.BenchmarkApplication;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads and writes of the local caches, over a working set of keys.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({"ehcache", "caffeine"})
+    public String implementation;
+
+    private CacheImpl cache;
+    private String[] keys;
+
+    @Setup
+    public void setUp(BenchmarkApplication application) {
+        cache = "caffeine".equals(implementation) ? CaffeineImpl.newInstance() : EhCacheImpl.newInstance();
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "bench.key." + i;
+            cache.set(keys[i], "value of " + keys[i], 3600);
+        }
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object get() {
+        return cache.get(randomKey());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void set() {
+        String key = randomKey();
+        cache.set(key, key, 3600);
+    }
+}
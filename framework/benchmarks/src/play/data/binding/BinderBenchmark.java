@@ -0,0 +1,64 @@
+package play.data.binding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import play.BenchmarkApplication;
+import play.Play;
+import play.mvc.Context;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converting request parameters to their tree, and binding a nested bean with a list from it.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class BinderBenchmark {
+
+    @Param({"1", "20", "200"})
+    public int lines;
+
+    private Map<String, String[]> params;
+    private Class<?> orderClass;
+    private Context context;
+
+    @Setup
+    public void setUp(BenchmarkApplication application) throws ClassNotFoundException {
+        orderClass = Play.classloader.loadClass("models.Order");
+        context = BenchmarkApplication.newContext("/orders", "");
+        params = new HashMap<>();
+        params.put("order.id", new String[] {"42"});
+        params.put("order.reference", new String[] {"ORD-2024-0042"});
+        params.put("order.created", new String[] {"2024-05-17"});
+        params.put("order.customer.name", new String[] {"Bob"});
+        params.put("order.customer.email", new String[] {"bob@example.com"});
+        params.put("order.customer.address.street", new String[] {"1 rue de la Paix"});
+        params.put("order.customer.address.city", new String[] {"Paris"});
+        params.put("order.customer.address.zip", new String[] {"75002"});
+        for (int i = 0; i < lines; i++) {
+            params.put("order.lines[" + i + "].product", new String[] {"Product " + i});
+            params.put("order.lines[" + i + "].quantity", new String[] {String.valueOf(i + 1)});
+            params.put("order.lines[" + i + "].price", new String[] {"9.99"});
+        }
+    }
+
+    @Benchmark
+    public RootParamNode convert() {
+        return ParamNode.convert(params);
+    }
+
+    @Benchmark
+    public Object bind() {
+        return Binder.bind(context, ParamNode.convert(params), "order", orderClass, orderClass, new Annotation[0]);
+    }
+}
@@ -0,0 +1,39 @@
+package play.i18n;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import play.BenchmarkApplication;
+import play.mvc.Context;
+
+/**
+ * Looking up and formatting messages in the language of the request.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class MessagesBenchmark {
+
+    private Context context;
+
+    @Setup
+    public void setUp(BenchmarkApplication application) {
+        context = BenchmarkApplication.newContext("/", "");
+        Lang.change(context, "fr");
+    }
+
+    @Benchmark
+    public String get() {
+        return Messages.get(context, "bench.title");
+    }
+
+    @Benchmark
+    public String getWithArguments() {
+        return Messages.get(context, "bench.greeting", "Bob", 3);
+    }
+}
@@ -0,0 +1,173 @@
+package play.mvc;
+
+import play.Play;
+import play.exceptions.NoRouteFoundException;
+import play.utils.Utils;
+
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+/**
+ * Reverse routing as {@link Router#reverse(Context, String, Map)} did it before routes were compiled into
+ * {@link RouteTemplate}s: a regex replacement per argument over the route path and host, and URLEncoder followed by
+ * String.replace for every value. Kept as the baseline of {@link RouterBenchmark}.
+ */
+final class ReverseBaseline {
+
+    private static final Map<String, List<Object[]>> actionRoutesCache = new ConcurrentHashMap<>();
+
+    private ReverseBaseline() {
+    }
+
+    static void clear() {
+        actionRoutesCache.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Router.ActionDefinition reverse(Context context, String action, Map<String, Object> args) {
+        Charset encoding = context == null || context.getResponse() == null ? Play.defaultWebEncoding : context.getResponse().encoding;
+
+        if (action.startsWith("controllers.")) {
+            action = action.substring(12);
+        }
+        Map<String, Object> argsbackup = new HashMap<>(args);
+        // Add routeArgs
+        if (context.getRouteArgs() != null) {
+            for (String key : context.getRouteArgs().data.keySet()) {
+                if (!args.containsKey(key)) {
+                    args.put(key, context.getRouteArgs().data.get(key));
+                }
+            }
+        }
+
+        Http.Request request = context.getRequest();
+        String requestFormat = request == null || request.format == null ? "" : request.format;
+
+        for (Object[] actionRoute : actionRoutesCache.computeIfAbsent(action, ReverseBaseline::findActionRoutes)) {
+            Router.Route route = (Router.Route) actionRoute[0];
+            args.putAll((Map<String, String>) actionRoute[1]);
+
+            List<String> inPathArgs = new ArrayList<>(16);
+            boolean allRequiredArgsAreHere = true;
+            for (Router.Route.Arg arg : route.args) {
+                inPathArgs.add(arg.name);
+                Object value = args.get(arg.name);
+                if (value == null) {
+                    String host = route.host.replaceAll("\\{", "").replaceAll("\\}", "");
+                    if (host.equals(arg.name) || host.matches(arg.name)) {
+                        args.remove(arg.name);
+                        route.host = request == null ? "" : request.domain;
+                        break;
+                    } else {
+                        allRequiredArgsAreHere = false;
+                        break;
+                    }
+                } else {
+                    if (value instanceof List<?>) {
+                        value = ((List<Object>) value).get(0);
+                    }
+                    if (!value.toString().startsWith(":") && !arg.constraint.matcher(Utils.urlEncodePath(value.toString())).matches()) {
+                        allRequiredArgsAreHere = false;
+                        break;
+                    }
+                }
+            }
+            for (String staticKey : route.staticArgs.keySet()) {
+                if (staticKey.equals("format")) {
+                    if (!requestFormat.equals(route.staticArgs.get("format"))) {
+                        allRequiredArgsAreHere = false;
+                        break;
+                    }
+                    continue;
+                }
+                if (!args.containsKey(staticKey) || (args.get(staticKey) == null)
+                        || !args.get(staticKey).toString().equals(route.staticArgs.get(staticKey))) {
+                    allRequiredArgsAreHere = false;
+                    break;
+                }
+            }
+            if (allRequiredArgsAreHere) {
+                StringBuilder queryString = new StringBuilder();
+                String path = route.path;
+                String host = route.host;
+                if (path.endsWith("/?")) {
+                    path = path.substring(0, path.length() - 2);
+                }
+                for (Map.Entry<String, Object> entry : args.entrySet()) {
+                    String key = entry.getKey();
+                    Object value = entry.getValue();
+                    if (inPathArgs.contains(key) && value != null) {
+                        if (List.class.isAssignableFrom(value.getClass())) {
+                            List<Object> vals = (List<Object>) value;
+                            path = path.replaceAll("\\(\\?<" + key + ">([^)]+)\\)", vals.getFirst().toString()).replace("$", "\\$");
+                        } else {
+                            path = path.replaceAll("\\(\\?<" + key + ">([^)]+)\\)", URLEncoder.encode(value.toString(), encoding)
+                                    .replace("$", "\\$").replace("%3A", ":").replace("%40", "@").replace("+", "%20"));
+                            host = host.replaceAll("\\(\\?<" + key + ">([^)]+)\\)", URLEncoder.encode(value.toString(), encoding)
+                                    .replace("$", "\\$").replace("%3A", ":").replace("%40", "@").replace("+", "%20"));
+                        }
+                    } else if (route.staticArgs.containsKey(key)) {
+                        // Do nothing -> The key is static
+                    } else if (!argsbackup.containsKey(key)) {
+                        // Do nothing -> The key is provided in RouteArgs and not used
+                    } else if (value != null) {
+                        List<Object> vals = List.class.isAssignableFrom(value.getClass()) ? (List<Object>) value : List.of(value);
+                        for (Object object : vals) {
+                            queryString.append(URLEncoder.encode(key, encoding));
+                            queryString.append("=");
+                            String objStr = object.toString();
+                            if (objStr.startsWith(":") && objStr.length() > 1) {
+                                queryString.append(':');
+                                objStr = objStr.substring(1);
+                            }
+                            queryString.append(URLEncoder.encode(objStr + "", encoding));
+                            queryString.append("&");
+                        }
+                    }
+                }
+                String qs = queryString.toString();
+                if (qs.endsWith("&")) {
+                    qs = qs.substring(0, qs.length() - 1);
+                }
+                Router.ActionDefinition actionDefinition = new Router.ActionDefinition();
+                actionDefinition.url = qs.isEmpty() ? path : path + "?" + qs;
+                actionDefinition.method = route.method == null || route.method.equals("*") ? "GET" : route.method.toUpperCase();
+                actionDefinition.star = "*".equals(route.method);
+                actionDefinition.action = action;
+                actionDefinition.args = argsbackup;
+                actionDefinition.host = host;
+                return actionDefinition;
+            }
+        }
+        throw new NoRouteFoundException(action, args);
+    }
+
+    /**
+     * @return the routes of an action with the arguments their action pattern captures, scanning all routes
+     */
+    private static List<Object[]> findActionRoutes(String action) {
+        List<Object[]> matchingRoutes = new ArrayList<>(2);
+        for (Router.Route route : Router.routes) {
+            if (route.actionPattern != null) {
+                Matcher matcher = route.actionPattern.matcher(action);
+                if (matcher.matches()) {
+                    Map<String, String> args = new HashMap<>(2);
+                    for (String group : route.actionArgs) {
+                        String v = matcher.group(group);
+                        if (v != null) {
+                            args.put(group, v.toLowerCase());
+                        }
+                    }
+                    matchingRoutes.add(new Object[] { route, args });
+                }
+            }
+        }
+        return matchingRoutes;
+    }
+}
@@ -0,0 +1,79 @@
+package play.mvc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import play.BenchmarkApplication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finding the route of a request, and the URL of an action. The <code>Baseline</code> benchmarks reverse the way the
+ * router did before routes were compiled into templates, see {@link ReverseBaseline}. <code>extraRoutes</code> routes
+ * of other actions are declared before the application's own, as in an application of a realistic size.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    @Param({"/", "/hello/bob", "/users/42/orders/1337", "/articles/2024/05/netty-4-2", "/search"})
+    public String path;
+
+    @Param({"0", "300"})
+    public int extraRoutes;
+
+    private Context context;
+    private Map<String, Object> args;
+
+    @Setup
+    public void setUp(BenchmarkApplication application) {
+        // Each set of parameters runs in its own fork, so the routes are never added twice
+        for (int i = extraRoutes - 1; i >= 0; i--) {
+            String section = "/section" + i;
+            switch (i % 3) {
+                case 0 -> Router.prependRoute("GET", section, "Section" + i + ".index");
+                case 1 -> Router.prependRoute("GET", section + "/(?<id>[0-9]+)", "Section" + i + ".show");
+                default -> Router.prependRoute("POST", section + "/(?<id>[0-9]+)/items/(?<item>[^/]+)", "Section" + i + ".save");
+            }
+        }
+        ReverseBaseline.clear();
+        context = BenchmarkApplication.newContext("/", "");
+        args = new HashMap<>();
+        args.put("id", 42L);
+        args.put("orderId", 1337L);
+        args.put("page", 2);
+    }
+
+    @Benchmark
+    public Map<String, String> route() {
+        return Router.route("GET", path);
+    }
+
+    @Benchmark
+    public Router.ActionDefinition reverse() {
+        return Router.reverse(context, "Bench.userOrder", args);
+    }
+
+    @Benchmark
+    public Router.ActionDefinition reverseWithQueryString() {
+        return Router.reverse(context, "Bench.search", args);
+    }
+
+    @Benchmark
+    public Router.ActionDefinition reverseBaseline() {
+        return ReverseBaseline.reverse(context, "Bench.userOrder", args);
+    }
+
+    @Benchmark
+    public Router.ActionDefinition reverseWithQueryStringBaseline() {
+        return ReverseBaseline.reverse(context, "Bench.search", args);
+    }
+}
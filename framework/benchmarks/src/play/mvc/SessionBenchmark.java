@@ -0,0 +1,49 @@
+package play.mvc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import play.BenchmarkApplication;
+
+/**
+ * Signing and encoding the session cookie of a response, then checking and decoding it from the next request.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+public class SessionBenchmark {
+
+    private Context context;
+    private Http.Cookie cookie;
+
+    @Setup
+    public void setUp(BenchmarkApplication application) {
+        context = BenchmarkApplication.newContext("/", "");
+        Scope.Session session = context.getSession();
+        session.put("user", "bob@example.com");
+        session.put("role", "admin");
+        session.put("cart", "42,1337,7");
+        session.getAuthenticityToken();
+        session.save(context);
+        cookie = context.getResponse().cookies.get(Scope.COOKIE_PREFIX + "_SESSION");
+    }
+
+    @Benchmark
+    public Http.Cookie encode() {
+        context.getResponse().cookies.clear();
+        context.getSession().change();
+        context.getSession().save(context);
+        return context.getResponse().cookies.get(Scope.COOKIE_PREFIX + "_SESSION");
+    }
+
+    @Benchmark
+    public Scope.Session decode() {
+        Context next = BenchmarkApplication.newContext("/", "");
+        next.getRequest().cookies.put(cookie.name, cookie);
+        return Scope.Session.restore(next);
+    }
+}
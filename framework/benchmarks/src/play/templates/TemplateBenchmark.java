@@ -0,0 +1,50 @@
+package play.templates;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import play.BenchmarkApplication;
+import play.Play;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rendering a page with a layout, a list, messages and escaped expressions.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+    private Template template;
+    private Map<String, Object> args;
+
+    @Setup
+    public void setUp(BenchmarkApplication application) throws ReflectiveOperationException {
+        template = TemplateLoader.load("Bench/index.html");
+        Class<?> lineClass = Play.classloader.loadClass("models.Order$Line");
+        List<Object> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Object line = lineClass.getDeclaredConstructor().newInstance();
+            lineClass.getField("product").set(line, "Product <" + i + ">");
+            lineClass.getField("quantity").set(line, i + 1);
+            lineClass.getField("price").set(line, 9.99 * (i + 1));
+            lines.add(line);
+        }
+        args = new HashMap<>();
+        args.put("lines", lines);
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(BenchmarkApplication.newContext("/", ""), new HashMap<>(args));
+    }
+}
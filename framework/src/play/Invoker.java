@@ -1,16 +1,26 @@
 package play;
 
-import com.jamonapi.Monitor;
-import com.jamonapi.MonitorFactory;
 import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.consumer.RecordingStream;
 import play.Play.Mode;
 import play.classloading.ApplicationClassloader;
 import play.exceptions.PlayException;
@@ -18,6 +28,8 @@ import play.exceptions.UnexpectedException;
 import play.i18n.Lang;
 import play.libs.F;
 import play.libs.F.Promise;
+import play.metrics.Metrics;
+import play.metrics.Timer;
 import play.mvc.Context;
 import play.mvc.Http;
 import play.utils.PThreadFactory;
@@ -32,18 +44,91 @@ public class Invoker {
      */
     public static ScheduledThreadPoolExecutor executor = null;
 
+    /**
+     * Executor starting one virtual thread per invocation. Only set when <code>play.pool.virtual=true</code>, in
+     * which case {@link #executor} is only used to schedule delayed invocations.
+     */
+    public static ExecutorService virtualExecutor = null;
+
+    /**
+     * Maximum number of invocations waiting for a thread (or, with virtual threads, running at the same time) before
+     * new ones are rejected. 0 means unbounded.
+     */
+    static int maxQueue = Integer.parseInt(Play.configuration.getProperty("play.pool.maxQueue", "0"));
+
+    /**
+     * Maximum time, in milliseconds, an invocation may wait in the queue. Older ones are shed when they are finally
+     * dequeued. 0 means no limit.
+     */
+    static long maxQueueWait = Long.parseLong(Play.configuration.getProperty("play.pool.maxQueueWait", "0"));
+
+    /**
+     * Critical invocations that may run beside the queue at the same time, see <code>play.pool.reserve</code>.
+     */
+    static final Semaphore reserve = new Semaphore(Integer.parseInt(Play.configuration.getProperty("play.pool.reserve", "2")));
+
+    /**
+     * Runs the critical invocations that bypass the queue, when {@link #executor} runs the others.
+     */
+    static ThreadPoolExecutor reserveExecutor = null;
+
+    static final AtomicInteger queued = new AtomicInteger();
+    static final LongAdder rejected = new LongAdder();
+    static final LongAdder shed = new LongAdder();
+
+    /**
+     * Admission class of an invocation, used when the queue is bounded.
+     */
+    public enum Priority {
+        /**
+         * Never rejected, and run beside the queue when others are already waiting, as long as the reserve
+         * (<code>play.pool.reserve</code>) is not busy (health checks...)
+         */
+        CRITICAL,
+        /**
+         * Rejected when the queue is full
+         */
+        NORMAL,
+        /**
+         * Rejected as soon as the queue is half full
+         */
+        LOW
+    }
+
     /**
      * Run the code in a new thread took from a thread pool.
      * 
      * @param invocation
      *            The code to run
      * @return The future object, to know when the task is completed
+     * @throws RejectedExecutionException
+     *             if the queue is bounded (<code>play.pool.maxQueue</code>) and full for this invocation's priority
      */
     public static Future<?> invoke(Invocation invocation) {
-        Monitor monitor = MonitorFactory.getMonitor("Invoker queue size", "elmts.");
-        monitor.add(executor.getQueue().size());
-        invocation.waitInQueue = MonitorFactory.start("Waiting for execution");
-        return executor.submit(invocation);
+        if (admit(invocation)) {
+            return bypass(invocation);
+        }
+        Runnable runnable = invocation;
+        if (virtualExecutor != null) {
+            runnable = VirtualThreads.track(invocation);
+        } else {
+            Metrics.histogram("Invoker queue size", "elmts.").record(executor.getQueue().size());
+        }
+        invocation.waitInQueue = Metrics.timer("Waiting for execution").start();
+        FutureTask<?> task = new FutureTask<>(runnable, null) {
+            @Override
+            protected void done() {
+                // Cancelled before it ran
+                invocation.leaveQueue();
+            }
+        };
+        try {
+            (virtualExecutor != null ? virtualExecutor : executor).execute(task);
+        } catch (RuntimeException | Error e) {
+            invocation.leaveQueue();
+            throw e;
+        }
+        return task;
     }
 
     /**
@@ -56,11 +141,98 @@ public class Invoker {
      * @return The future object, to know when the task is completed
      */
     public static Future<?> invoke(Invocation invocation, long millis) {
-        Monitor monitor = MonitorFactory.getMonitor("Invocation queue", "elmts.");
-        monitor.add(executor.getQueue().size());
+        Metrics.histogram("Invocation queue", "elmts.").record(executor.getQueue().size());
+        if (virtualExecutor != null) {
+            // The scheduler thread only hands the invocation over, it never runs it
+            FutureTask<?> task = new FutureTask<>(VirtualThreads.track(invocation), null);
+            executor.schedule(() -> virtualExecutor.execute(task), millis, TimeUnit.MILLISECONDS);
+            return task;
+        }
         return executor.schedule(invocation, millis, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Admission control in front of the executor. The slot in the queue is reserved with the same compare-and-set that
+     * checks there is room, so that concurrent invocations cannot overfill it.
+     *
+     * @return true if the invocation must bypass the queue, holding a permit of the {@link #reserve}
+     */
+    static boolean admit(Invocation invocation) {
+        Priority priority = null;
+        while (true) {
+            int count = queued.get();
+            int waiting = virtualExecutor != null ? count + VirtualThreads.getActiveCount() : count;
+            if (waiting > 0 && maxQueue > 0) {
+                if (priority == null) {
+                    priority = invocation.getPriority();
+                }
+                if (priority == Priority.CRITICAL) {
+                    if (reserve.tryAcquire()) {
+                        return true;
+                    }
+                    // The reserve is busy: wait with the others, but never rejected
+                } else if (waiting >= (priority == Priority.LOW ? maxQueue / 2 : maxQueue)) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Invoker queue is full (" + waiting + " waiting)");
+                }
+            }
+            if (queued.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        invocation.queuedAt = System.nanoTime();
+        invocation.inQueue.set(true);
+        return false;
+    }
+
+    /**
+     * Runs a critical invocation beside the queue, tracked like the others, and gives its permit back once done.
+     */
+    private static Future<?> bypass(Invocation invocation) {
+        invocation.waitInQueue = Metrics.timer("Waiting for execution").start();
+        FutureTask<?> task = new FutureTask<>(virtualExecutor != null ? VirtualThreads.track(invocation) : invocation, null) {
+            @Override
+            protected void done() {
+                reserve.release();
+            }
+        };
+        try {
+            (virtualExecutor != null ? virtualExecutor : reserveExecutor).execute(task);
+        } catch (RuntimeException | Error e) {
+            reserve.release();
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * @return number of invocations currently running, on pool threads or on virtual threads
+     */
+    public static int getActiveCount() {
+        return virtualExecutor != null ? VirtualThreads.getActiveCount() : executor.getActiveCount() + reserveExecutor.getActiveCount();
+    }
+
+    /**
+     * @return number of invocations waiting for a thread
+     */
+    public static int getQueueSize() {
+        return queued.get();
+    }
+
+    /**
+     * @return number of invocations rejected because the queue was full
+     */
+    public static long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of invocations dropped because they waited longer than <code>play.pool.maxQueueWait</code>
+     */
+    public static long getShedCount() {
+        return shed.sum();
+    }
+
     /**
      * Run the code in the same thread as the caller.
      * 
@@ -169,7 +341,33 @@ public class Invoker {
         /**
          * If set, monitor the time the invocation waited in the queue
          */
-        Monitor waitInQueue;
+        Timer.Stopwatch waitInQueue;
+
+        /**
+         * When the invocation was admitted in the queue (System.nanoTime()), 0 if it did not go through it
+         */
+        long queuedAt;
+
+        /**
+         * Whether the invocation is counted in the queue, until it runs, is cancelled or cannot be submitted
+         */
+        final AtomicBoolean inQueue = new AtomicBoolean();
+
+        /**
+         * @return the admission class of this invocation, only asked for when the queue is not empty
+         */
+        public Priority getPriority() {
+            return Priority.NORMAL;
+        }
+
+        /**
+         * Called instead of running the invocation when it waited longer than <code>play.pool.maxQueueWait</code>.
+         *
+         * @return true if the invocation has been dropped, false to run it anyway (the default)
+         */
+        protected boolean onQueueTimeout() {
+            return false;
+        }
 
         /**
          * Override this method
@@ -261,6 +459,17 @@ public class Invoker {
             }
         }
 
+        /**
+         * @return true if the invocation was counted in the queue, and no longer is
+         */
+        boolean leaveQueue() {
+            if (inQueue.compareAndSet(true, false)) {
+                queued.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
         /**
          * It's time to execute.
          */
@@ -269,6 +478,14 @@ public class Invoker {
             if (waitInQueue != null) {
                 waitInQueue.stop();
             }
+            if (leaveQueue()) {
+                boolean expired = maxQueueWait > 0 && System.nanoTime() - queuedAt > TimeUnit.MILLISECONDS.toNanos(maxQueueWait);
+                queuedAt = 0;
+                if (expired && onQueueTimeout()) {
+                    shed.increment();
+                    return;
+                }
+            }
 
             try {
                 preInit(context);
@@ -353,9 +570,153 @@ public class Invoker {
      * Init executor at load time.
      */
     static {
-        int core = Integer.parseInt(Play.configuration.getProperty("play.pool",
-                Play.mode == Mode.DEV ? "1" : ((Runtime.getRuntime().availableProcessors() + 1) + "")));
-        executor = new ScheduledThreadPoolExecutor(core, new PThreadFactory("play"), new ThreadPoolExecutor.AbortPolicy());
+        if (Boolean.parseBoolean(Play.configuration.getProperty("play.pool.virtual", "false"))) {
+            // Every invocation gets a fresh virtual thread, so thread locals (JPA, DB, TempFilePlugin...) always
+            // start empty and die with the invocation
+            virtualExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("play-virtual-", 1).factory());
+            executor = new ScheduledThreadPoolExecutor(1, new PThreadFactory("play-scheduler"), new ThreadPoolExecutor.AbortPolicy());
+            VirtualThreads.startPinnedMonitor();
+        } else {
+            int core = Integer.parseInt(Play.configuration.getProperty("play.pool",
+                    Play.mode == Mode.DEV ? "1" : ((Runtime.getRuntime().availableProcessors() + 1) + "")));
+            executor = new ScheduledThreadPoolExecutor(core, new PThreadFactory("play"), new ThreadPoolExecutor.AbortPolicy());
+            // Never more tasks than permits in the reserve
+            int reserved = Math.max(1, reserve.availablePermits());
+            reserveExecutor = new ThreadPoolExecutor(reserved, reserved, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new PThreadFactory("play-priority"));
+            reserveExecutor.allowCoreThreadTimeOut(true);
+        }
+        Metrics.gauge("Invoker active threads", Invoker::getActiveCount);
+        Metrics.gauge("Invoker waiting invocations", Invoker::getQueueSize);
+        Metrics.gauge("Invoker rejected invocations", Invoker::getRejectedCount);
+        Metrics.gauge("Invoker shed invocations", Invoker::getShedCount);
+    }
+
+    /**
+     * Statistics about invocations running on virtual threads: how many are running, how often they pinned their
+     * carrier thread, and how busy the carrier threads are.
+     */
+    public static class VirtualThreads {
+
+        private static final AtomicInteger active = new AtomicInteger();
+        private static final LongAdder pinnedCount = new LongAdder();
+        private static final LongAdder pinnedNanos = new LongAdder();
+
+        static Runnable track(Invocation invocation) {
+            return () -> {
+                active.incrementAndGet();
+                try {
+                    invocation.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            };
+        }
+
+        /**
+         * Blocking while holding a monitor (synchronized JDBC drivers, ...) pins the virtual thread to its carrier.
+         * Listen to the JFR events emitted by the JVM to count these.
+         */
+        static void startPinnedMonitor() {
+            long thresholdMillis = Long.parseLong(Play.configuration.getProperty("play.pool.virtual.pinnedThreshold", "20"));
+            try {
+                RecordingStream rs = new RecordingStream();
+                rs.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(thresholdMillis));
+                rs.onEvent("jdk.VirtualThreadPinned", event -> {
+                    pinnedCount.increment();
+                    pinnedNanos.add(event.getDuration().toNanos());
+                    if (Logger.isDebugEnabled()) {
+                        Logger.debug("Virtual thread pinned for %s ms", event.getDuration().toMillis());
+                    }
+                });
+                rs.startAsync();
+            } catch (Exception e) {
+                Logger.warn(e, "Cannot monitor virtual thread pinning");
+            }
+        }
+
+        public static boolean isEnabled() {
+            return virtualExecutor != null;
+        }
+
+        /**
+         * @return number of invocations currently running (mounted or parked)
+         */
+        public static int getActiveCount() {
+            return active.get();
+        }
+
+        public static long getPinnedCount() {
+            return pinnedCount.sum();
+        }
+
+        public static long getPinnedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(pinnedNanos.sum());
+        }
+
+        /**
+         * @return number of platform threads the virtual threads are scheduled on
+         */
+        public static int getCarrierCount() {
+            return Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * @return CPU time consumed by the carrier threads so far, in nanoseconds, or -1 if thread CPU time is not
+         *         measurable on this JVM
+         */
+        static long getCarrierCpuNanos() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (!threads.isThreadCpuTimeSupported() || !threads.isThreadCpuTimeEnabled()) {
+                return -1;
+            }
+            // Listed from the root thread group: unlike Thread.getAllStackTraces(), no stack is captured
+            ThreadGroup root = Thread.currentThread().getThreadGroup();
+            while (root.getParent() != null) {
+                root = root.getParent();
+            }
+            Thread[] all = new Thread[root.activeCount() + 16];
+            int count = root.enumerate(all, true);
+            long cpu = 0;
+            for (int i = 0; i < count; i++) {
+                if (all[i].getClass().getName().equals("jdk.internal.misc.CarrierThread")) {
+                    long time = threads.getThreadCpuTime(all[i].threadId());
+                    if (time > 0) {
+                        cpu += time;
+                    }
+                }
+            }
+            return cpu;
+        }
+    }
+
+    /**
+     * Carrier utilisation over a sampling window: CPU time consumed by the carrier threads divided by the wall-clock
+     * time available to them. Each reader keeps its own sampler, so that reading it does not shorten the window of
+     * the others.
+     */
+    public static class CarrierSampler {
+
+        private long lastSampleAt = System.nanoTime();
+        private long lastCarrierCpu = Math.max(0, VirtualThreads.getCarrierCpuNanos());
+
+        /**
+         * @return the utilisation since the previous call (or the creation of the sampler), a ratio between 0 and 1,
+         *         or -1 if thread CPU time is not measurable on this JVM
+         */
+        public synchronized double sample() {
+            long cpu = VirtualThreads.getCarrierCpuNanos();
+            if (cpu < 0) {
+                return -1;
+            }
+            long now = System.nanoTime();
+            long elapsed = (now - lastSampleAt) * VirtualThreads.getCarrierCount();
+            // The time of the carriers that exited since leaves the sum, which can so go down
+            double utilisation = elapsed <= 0 ? 0 : Math.min(1.0, Math.max(0, cpu - lastCarrierCpu) / (double) elapsed);
+            lastSampleAt = now;
+            lastCarrierCpu = cpu;
+            return utilisation;
+        }
     }
 
     public static class AsyncRequest extends PlayException {
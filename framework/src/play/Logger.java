@@ -9,12 +9,16 @@ import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
 import org.apache.logging.log4j.core.appender.FileAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.apache.logging.log4j.core.config.LoggerConfig;
@@ -53,6 +57,9 @@ public class Logger {
      */
     public static boolean configuredManually = false;
 
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+    private static final String ASYNC_APPENDER_PREFIX = "async-";
+
     public static boolean usesJuli() { return forceJuli || log4j == null; }
 
     /**
@@ -93,9 +100,59 @@ public class Logger {
                     e.printStackTrace();
                 }
             }
+            if (Boolean.parseBoolean(Play.configuration.getProperty("application.log.async", "false"))) {
+                addAsyncAppenders(Integer.parseInt(Play.configuration.getProperty("application.log.async.bufferSize", "1024")),
+                        "drop".equals(Play.configuration.getProperty("application.log.async.whenFull", "block")));
+            }
         }
     }
 
+    /**
+     * Put each appender behind an AsyncAppender, so that logging threads only add the event to a bounded queue and
+     * one thread per appender does the I/O.
+     * @param bufferSize The number of events the queue holds
+     * @param drop When the queue is full, whether to drop the events of level INFO and below instead of waiting
+     */
+    static void addAsyncAppenders(int bufferSize, boolean drop) {
+        if (drop) {
+            // Read by AsyncAppender.start()
+            System.setProperty("log4j2.AsyncQueueFullPolicy", "Discard");
+        }
+        final LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        final Configuration configuration = context.getConfiguration();
+        List<LoggerConfig> loggerConfigs = new ArrayList<>(configuration.getLoggers().values());
+        if (!loggerConfigs.contains(configuration.getRootLogger())) {
+            loggerConfigs.add(configuration.getRootLogger());
+        }
+        for (final LoggerConfig loggerConfig : loggerConfigs) {
+            for (String name : List.copyOf(loggerConfig.getAppenders().keySet())) {
+                if (name.startsWith(ASYNC_APPENDER_PREFIX)) {
+                    continue;
+                }
+                AppenderRef ref = loggerConfig.getAppenderRefs().stream()
+                        .filter(appenderRef -> appenderRef.getRef().equals(name))
+                        .findFirst()
+                        .orElseGet(() -> AppenderRef.createAppenderRef(name, null, null));
+                Appender async = configuration.getAppender(ASYNC_APPENDER_PREFIX + name);
+                if (async == null) {
+                    async = AsyncAppender.newBuilder()
+                                         .setName(ASYNC_APPENDER_PREFIX + name)
+                                         .setAppenderRefs(new AppenderRef[] {AppenderRef.createAppenderRef(name, null, null)})
+                                         .setBufferSize(bufferSize)
+                                         .setBlocking(true)
+                                         .setIncludeLocation(false)
+                                         .setConfiguration(configuration)
+                                         .build();
+                    async.start();
+                    configuration.addAppender(async);
+                }
+                loggerConfig.removeAppender(name);
+                loggerConfig.addAppender(async, ref.getLevel(), ref.getFilter());
+            }
+        }
+        context.updateLoggers();
+    }
+
     private static void addAppenderTest() {
         final LoggerContext context = (LoggerContext) LogManager.getContext(false);
         final Configuration configuration = context.getConfiguration();
@@ -240,6 +297,17 @@ public class Logger {
         }
     }
 
+    /**
+     * Log with TRACE level, getting the pattern arguments only if the level is enabled
+     * @param message The message pattern
+     * @param args Suppliers of the pattern arguments
+     */
+    public static void trace(String message, Supplier<?>... args) {
+        if (isEnabledFor(org.apache.logging.log4j.Level.TRACE)) {
+            trace(message, get(args));
+        }
+    }
+
     /**
      * Log with DEBUG level
      * @param message The message pattern
@@ -267,6 +335,17 @@ public class Logger {
         }
     }
 
+    /**
+     * Log with DEBUG level, getting the pattern arguments only if the level is enabled
+     * @param message The message pattern
+     * @param args Suppliers of the pattern arguments
+     */
+    public static void debug(String message, Supplier<?>... args) {
+        if (isDebugEnabled()) {
+            debug(message, get(args));
+        }
+    }
+
     /**
      * Log with DEBUG level
      * @param e the exception to log
@@ -315,9 +394,6 @@ public class Logger {
             } else {
                 try {
                     if (recordCaller) {
-                        // TODO: It is expensive to extract caller-info
-                        // we should only do it if we know the message is being
-                        // logged (level)
                         LogManager.getLogger(getCallerClassName()).info(format(message, args));
                     } else {
                         log4j.info(format(message, args));
@@ -329,6 +405,17 @@ public class Logger {
         }
     }
 
+    /**
+     * Log with INFO level, getting the pattern arguments only if the level is enabled
+     * @param message The message pattern
+     * @param args Suppliers of the pattern arguments
+     */
+    public static void info(String message, Supplier<?>... args) {
+        if (isEnabledFor(org.apache.logging.log4j.Level.INFO)) {
+            info(message, get(args));
+        }
+    }
+
     /**
      * Log with INFO level
      * @param e the exception to log
@@ -388,6 +475,17 @@ public class Logger {
         }
     }
 
+    /**
+     * Log with WARN level, getting the pattern arguments only if the level is enabled
+     * @param message The message pattern
+     * @param args Suppliers of the pattern arguments
+     */
+    public static void warn(String message, Supplier<?>... args) {
+        if (isEnabledFor(org.apache.logging.log4j.Level.WARN)) {
+            warn(message, get(args));
+        }
+    }
+
     /**
      * Log with WARN level
      * @param e the exception to log
@@ -447,6 +545,17 @@ public class Logger {
         }
     }
 
+    /**
+     * Log with ERROR level, getting the pattern arguments only if the level is enabled
+     * @param message The message pattern
+     * @param args Suppliers of the pattern arguments
+     */
+    public static void error(String message, Supplier<?>... args) {
+        if (isEnabledFor(org.apache.logging.log4j.Level.ERROR)) {
+            error(message, get(args));
+        }
+    }
+
     /**
      * Log with ERROR level
      * @param e the exception to log
@@ -506,6 +615,17 @@ public class Logger {
         }
     }
 
+    /**
+     * Log with FATAL level, getting the pattern arguments only if the level is enabled
+     * @param message The message pattern
+     * @param args Suppliers of the pattern arguments
+     */
+    public static void fatal(String message, Supplier<?>... args) {
+        if (isEnabledFor(org.apache.logging.log4j.Level.FATAL)) {
+            fatal(message, get(args));
+        }
+    }
+
     /**
      * Log with FATAL level
      * @param e the exception to log
@@ -614,7 +734,7 @@ public class Logger {
                 if (forceJuli || log4j == null) {
                     juli.log(toJuliLevel(level.toString()), sw.toString(), e);
                 } else if (recordCaller) {
-                    LogManager.getLogger(getCallerClassName(5)).log(level, sw.toString(), e);
+                    LogManager.getLogger(getCallerClassName()).log(level, sw.toString(), e);
                 } else {
                     log4j.log(level, sw.toString(), e);
                 }
@@ -626,6 +746,20 @@ public class Logger {
         return false;
     }
 
+    /**
+     * @return the values of the suppliers
+     */
+    private static Object[] get(Supplier<?>... args) {
+        if (args == null) {
+            return null;
+        }
+        Object[] values = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = args[i] == null ? null : args[i].get();
+        }
+        return values;
+    }
+
     /**
      * Try to format messages using java Formatter. 
      * Fall back to the plain message if error.
@@ -662,27 +796,19 @@ public class Logger {
      * @return the className of the class actually logging the message
      */
     static String getCallerClassName() {
-        int level = 5;
-        return getCallerClassName(level);
-    }
-
-    /**
-     * @return the className of the class actually logging the message
-     */
-    static String getCallerClassName(int level) {
-        CallInfo ci = getCallerInformation(level);
-        return ci.className;
+        return getCallerInformation().className;
     }
 
     /**
-     * Examine stack trace to get caller
-     * @param level method stack depth
+     * Walk the stack up to the first frame outside of the logger, without capturing the others
      * @return who called the logger
      */
-    static CallInfo getCallerInformation(int level) {
-        StackTraceElement[] callStack = Thread.currentThread().getStackTrace();
-        StackTraceElement caller = callStack[level];
-        return new CallInfo(caller.getClassName(), caller.getMethodName());
+    static CallInfo getCallerInformation() {
+        return stackWalker.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().equals(Logger.class.getName()))
+                .findFirst()
+                .map(frame -> new CallInfo(frame.getClassName(), frame.getMethodName()))
+                .orElseGet(() -> new CallInfo(Logger.class.getName(), "")));
     }
 
     /**
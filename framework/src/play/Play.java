@@ -39,6 +39,7 @@ import play.exceptions.PlayException;
 import play.exceptions.RestartNeededException;
 import play.exceptions.UnexpectedException;
 import play.libs.IO;
+import play.metrics.Metrics;
 import play.mvc.Context;
 import play.mvc.Http;
 import play.mvc.Router;
@@ -238,6 +239,8 @@ public class Play {
         }
         Logger.recordCaller = Boolean.parseBoolean(configuration.getProperty("application.log.recordCaller", "false"));
 
+        Metrics.init();
+
         Logger.info("Starting %s", root.getAbsolutePath());
 
         if (configuration.getProperty("play.tmp", "tmp").equals("none")) {
@@ -0,0 +1,640 @@
+package play.cache;
+
+import play.Play;
+import play.classloading.ApplicationClassloaderState;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compact binary format for cache values, that only ever creates the classes it knows.
+ *
+ * <p>It writes strings, numbers, booleans, characters, byte arrays, dates, lists, sets and maps itself; they come back
+ * as {@link ArrayList}, {@link HashSet}, {@link LinkedHashSet}, {@link TreeSet}, {@link HashMap}, {@link LinkedHashMap}
+ * or {@link TreeMap}. Other classes have to be registered, in <code>cache.serializer.classes</code> or with
+ * {@link #register(Class)}, in the same order on every node: their instances are written field by field, but for
+ * transient and static ones, and need a constructor taking no argument unless they are records. Registered enums are
+ * written by name.</p>
+ *
+ * <p>Values of other classes are refused, unless <code>cache.serializer.java=true</code> lets them fall back to Java
+ * serialization, which also reads the values written before this format. Values larger than
+ * <code>cache.serializer.compressThreshold</code> are deflated.</p>
+ */
+public class BinaryCacheSerializer implements CacheSerializer {
+
+    private static final byte PLAIN = 1;
+    private static final byte DEFLATED = 2;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int DOUBLE = 4;
+    private static final int FLOAT = 5;
+    private static final int TRUE = 6;
+    private static final int FALSE = 7;
+    private static final int BYTE = 8;
+    private static final int SHORT = 9;
+    private static final int CHAR = 10;
+    private static final int BYTES = 11;
+    private static final int BIG_DECIMAL = 12;
+    private static final int BIG_INTEGER = 13;
+    private static final int DATE = 14;
+    private static final int LIST = 15;
+    private static final int SET = 16;
+    private static final int LINKED_SET = 17;
+    private static final int SORTED_SET = 18;
+    private static final int MAP = 19;
+    private static final int LINKED_MAP = 20;
+    private static final int SORTED_MAP = 21;
+    private static final int OBJECT = 22;
+    private static final int ENUM = 23;
+    private static final int JAVA = 24;
+    private static final int REFERENCE = 25;
+
+    private final List<String> classes = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final boolean javaFallback;
+    private final int compressThreshold;
+    private final JavaCacheSerializer java = new JavaCacheSerializer();
+
+    private final Map<Class<?>, ClassCodec> codecs = new ConcurrentHashMap<>();
+    private volatile ApplicationClassloaderState codecsState;
+
+    public BinaryCacheSerializer(Properties configuration) {
+        register(CacheLoader.Loaded.class.getName());
+        register(CachedResponse.class.getName());
+        for (String name : configuration.getProperty("cache.serializer.classes", "").split(",")) {
+            if (!name.isBlank()) {
+                register(name.trim());
+            }
+        }
+        this.javaFallback = "true".equals(configuration.getProperty("cache.serializer.java"));
+        String threshold = configuration.getProperty("cache.serializer.compressThreshold");
+        this.compressThreshold = threshold == null ? Integer.MAX_VALUE : (int) CaffeineImpl.parseSize(threshold);
+    }
+
+    /**
+     * Lets the instances of a class be cached. Each node has to register the same classes, in the same order.
+     */
+    public void register(Class<?> type) {
+        register(type.getName());
+    }
+
+    private synchronized void register(String name) {
+        if (!ids.containsKey(name)) {
+            classes.add(name);
+            ids.put(name, classes.size() - 1);
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        Output out = new Output();
+        out.write(PLAIN);
+        out.writeValue(value);
+        if (out.size > compressThreshold) {
+            return deflate(out);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException {
+        if (data.length >= 2 && data[0] == (byte) 0xAC && data[1] == (byte) 0xED) {
+            if (!javaFallback) {
+                throw new NotSerializableException("Value written with Java serialization, see cache.serializer.java");
+            }
+            return java.deserialize(data);
+        }
+        if (data.length == 0) {
+            throw new StreamCorruptedException("Empty value");
+        }
+        Input in = switch (data[0]) {
+            case PLAIN -> new Input(data, 1);
+            case DEFLATED -> new Input(inflate(data), 0);
+            default -> throw new StreamCorruptedException("Unknown format " + data[0]);
+        };
+        return in.readValue();
+    }
+
+    private byte[] deflate(Output out) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(out.buffer, 1, out.size - 1);
+            deflater.finish();
+            Output compressed = new Output();
+            compressed.write(DEFLATED);
+            compressed.writeVarLong(out.size - 1);
+            while (!deflater.finished()) {
+                compressed.ensure(Math.max(256, out.size / 4));
+                compressed.size += deflater.deflate(compressed.buffer, compressed.size, compressed.buffer.length - compressed.size);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] data) throws IOException {
+        Input header = new Input(data, 1);
+        long length = header.readVarLong();
+        // Deflate does not shrink data more than about 1000 times: anything claiming more is corrupted
+        if (length < 0 || length > Math.min(Integer.MAX_VALUE - 8, 1032L * data.length)) {
+            throw new StreamCorruptedException("Bad length " + length);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, header.position, data.length - header.position);
+            byte[] result = new byte[(int) length];
+            int read = 0;
+            while (read < result.length && !inflater.finished()) {
+                int n = inflater.inflate(result, read, result.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            // The checksum ending the stream is only checked by one more call, once all the data is out
+            if (read == result.length && !inflater.finished() && inflater.inflate(new byte[1]) != 0) {
+                throw new StreamCorruptedException("Bad length " + length);
+            }
+            if (read != result.length || !inflater.finished()) {
+                throw new StreamCorruptedException("Truncated value");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * The codecs follow the classes: they are dropped when the application classes are reloaded.
+     */
+    private ClassCodec codec(Class<?> type) throws IOException {
+        ApplicationClassloaderState state = Play.classloader == null ? null : Play.classloader.currentState;
+        if (state != null && !state.equals(codecsState)) {
+            synchronized (codecs) {
+                if (!state.equals(codecsState)) {
+                    codecs.clear();
+                    codecsState = state;
+                }
+            }
+        }
+        ClassCodec codec = codecs.get(type);
+        if (codec == null) {
+            codec = new ClassCodec(type);
+            codecs.put(type, codec);
+        }
+        return codec;
+    }
+
+    private Class<?> registeredClass(int id) throws IOException {
+        if (id < 0 || id >= classes.size()) {
+            throw new NotSerializableException("Unknown class #" + id + ", see cache.serializer.classes");
+        }
+        String name = classes.get(id);
+        try {
+            ClassLoader loader = Play.classloader != null ? Play.classloader : BinaryCacheSerializer.class.getClassLoader();
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new NotSerializableException(name);
+        }
+    }
+
+    /**
+     * How the instances of a registered class are written: the values of its fields, after a hash of their names that
+     * tells when the class was changed since the value was written.
+     */
+    private static final class ClassCodec {
+
+        final Field[] fields;
+        final Constructor<?> constructor;
+        final boolean record;
+        final int hash;
+
+        ClassCodec(Class<?> type) throws IOException {
+            try {
+                if (type.isRecord()) {
+                    RecordComponent[] components = type.getRecordComponents();
+                    fields = new Field[components.length];
+                    Class<?>[] parameters = new Class<?>[components.length];
+                    for (int i = 0; i < components.length; i++) {
+                        fields[i] = type.getDeclaredField(components[i].getName());
+                        parameters[i] = components[i].getType();
+                    }
+                    constructor = type.getDeclaredConstructor(parameters);
+                    record = true;
+                } else {
+                    List<Field> all = new ArrayList<>();
+                    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                        Field[] declared = c.getDeclaredFields();
+                        Arrays.sort(declared, Comparator.comparing(Field::getName));
+                        List<Field> own = new ArrayList<>();
+                        for (Field field : declared) {
+                            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                                own.add(field);
+                            }
+                        }
+                        all.addAll(0, own);
+                    }
+                    fields = all.toArray(new Field[0]);
+                    constructor = type.getDeclaredConstructor();
+                    record = false;
+                }
+                constructor.setAccessible(true);
+                int h = type.getName().hashCode();
+                for (Field field : fields) {
+                    field.setAccessible(true);
+                    h = 31 * h + field.getName().hashCode();
+                }
+                hash = h;
+            } catch (NoSuchMethodException e) {
+                throw new NotSerializableException(type.getName() + " needs a constructor without arguments");
+            } catch (NoSuchFieldException | RuntimeException e) {
+                throw new NotSerializableException(type.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private final class Output {
+
+        byte[] buffer = new byte[256];
+        int size;
+        private IdentityHashMap<Object, Integer> references;
+
+        void ensure(int more) {
+            if (size + more > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + more));
+            }
+        }
+
+        void write(int b) {
+            ensure(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buffer[size++] = (byte) v;
+        }
+
+        void writeZigZag(long v) {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        void writeFixed(long v, int bytes) {
+            ensure(bytes);
+            for (int i = bytes - 1; i >= 0; i--) {
+                buffer[size++] = (byte) (v >>> (8 * i));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        /**
+         * Containers are written once: a second occurrence refers to the first, so that shared and cyclic graphs
+         * survive.
+         */
+        private boolean writeReference(Object value) {
+            if (references == null) {
+                references = new IdentityHashMap<>();
+            }
+            Integer index = references.get(value);
+            if (index != null) {
+                write(REFERENCE);
+                writeVarLong(index);
+                return true;
+            }
+            references.put(value, references.size());
+            return false;
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                write(NULL);
+            } else if (value instanceof String s) {
+                write(STRING);
+                write(s.getBytes(StandardCharsets.UTF_8));
+            } else if (value instanceof Integer i) {
+                write(INT);
+                writeZigZag(i);
+            } else if (value instanceof Long l) {
+                write(LONG);
+                writeZigZag(l);
+            } else if (value instanceof Boolean b) {
+                write(b ? TRUE : FALSE);
+            } else if (value instanceof Double d) {
+                write(DOUBLE);
+                writeFixed(Double.doubleToRawLongBits(d), 8);
+            } else if (value instanceof Float f) {
+                write(FLOAT);
+                writeFixed(Float.floatToRawIntBits(f), 4);
+            } else if (value instanceof Byte b) {
+                write(BYTE);
+                write(b);
+            } else if (value instanceof Short s) {
+                write(SHORT);
+                writeZigZag(s);
+            } else if (value instanceof Character c) {
+                write(CHAR);
+                writeVarLong(c);
+            } else if (value instanceof byte[] bytes) {
+                write(BYTES);
+                write(bytes);
+            } else if (value instanceof BigDecimal d) {
+                write(BIG_DECIMAL);
+                writeZigZag(d.scale());
+                write(d.unscaledValue().toByteArray());
+            } else if (value instanceof BigInteger i) {
+                write(BIG_INTEGER);
+                write(i.toByteArray());
+            } else if (value.getClass() == Date.class) {
+                write(DATE);
+                writeZigZag(((Date) value).getTime());
+            } else if (value instanceof Enum<?> e && ids.containsKey(e.getDeclaringClass().getName())) {
+                write(ENUM);
+                writeVarLong(ids.get(e.getDeclaringClass().getName()));
+                write(e.name().getBytes(StandardCharsets.UTF_8));
+            } else if (writeReference(value)) {
+                // Already written
+            } else if (ids.containsKey(value.getClass().getName())) {
+                writeObject(value);
+            } else if (value instanceof List<?> list) {
+                write(LIST);
+                writeElements(list);
+            } else if (value instanceof SortedSet<?> set && set.comparator() == null) {
+                write(SORTED_SET);
+                writeElements(set);
+            } else if (value instanceof Set<?> set) {
+                write(set instanceof LinkedHashSet ? LINKED_SET : SET);
+                writeElements(set);
+            } else if (value instanceof SortedMap<?, ?> map && map.comparator() == null) {
+                write(SORTED_MAP);
+                writeEntries(map);
+            } else if (value instanceof Map<?, ?> map) {
+                write(map instanceof LinkedHashMap ? LINKED_MAP : MAP);
+                writeEntries(map);
+            } else if (javaFallback && value instanceof Serializable) {
+                write(JAVA);
+                write(java.serialize(value));
+            } else {
+                throw new NotSerializableException(value.getClass().getName() + " is not registered, see cache.serializer.classes");
+            }
+        }
+
+        private void writeObject(Object value) throws IOException {
+            ClassCodec codec = codec(value.getClass());
+            write(OBJECT);
+            writeVarLong(ids.get(value.getClass().getName()));
+            writeFixed(codec.hash, 4);
+            try {
+                for (Field field : codec.fields) {
+                    writeValue(field.get(value));
+                }
+            } catch (IllegalAccessException e) {
+                throw new NotSerializableException(value.getClass().getName() + ": " + e.getMessage());
+            }
+        }
+
+        private void writeElements(Collection<?> elements) throws IOException {
+            writeVarLong(elements.size());
+            for (Object element : elements) {
+                writeValue(element);
+            }
+        }
+
+        private void writeEntries(Map<?, ?> map) throws IOException {
+            writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+    }
+
+    private final class Input {
+
+        final byte[] data;
+        int position;
+        private final List<Object> references = new ArrayList<>();
+
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int read() throws IOException {
+            if (position >= data.length) {
+                throw new StreamCorruptedException("Truncated value");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new StreamCorruptedException("Bad number");
+        }
+
+        long readZigZag() throws IOException {
+            long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        long readFixed(int bytes) throws IOException {
+            long result = 0;
+            for (int i = 0; i < bytes; i++) {
+                result = (result << 8) | read();
+            }
+            return result;
+        }
+
+        int readSize() throws IOException {
+            long size = readVarLong();
+            if (size < 0 || size > data.length - position) {
+                throw new StreamCorruptedException("Bad size " + size);
+            }
+            return (int) size;
+        }
+
+        byte[] readBytes() throws IOException {
+            int length = readSize();
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() throws IOException {
+            int length = readSize();
+            String s = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return s;
+        }
+
+        Object readValue() throws IOException {
+            int tag = read();
+            return switch (tag) {
+                case NULL -> null;
+                case STRING -> readString();
+                case INT -> (int) readZigZag();
+                case LONG -> readZigZag();
+                case TRUE -> Boolean.TRUE;
+                case FALSE -> Boolean.FALSE;
+                case DOUBLE -> Double.longBitsToDouble(readFixed(8));
+                case FLOAT -> Float.intBitsToFloat((int) readFixed(4));
+                case BYTE -> (byte) read();
+                case SHORT -> (short) readZigZag();
+                case CHAR -> (char) readVarLong();
+                case BYTES -> readBytes();
+                case BIG_DECIMAL -> {
+                    int scale = (int) readZigZag();
+                    yield new BigDecimal(new BigInteger(readBytes()), scale);
+                }
+                case BIG_INTEGER -> new BigInteger(readBytes());
+                case DATE -> new Date(readZigZag());
+                case LIST -> readElements(new ArrayList<>());
+                case SET -> readElements(new HashSet<>());
+                case LINKED_SET -> readElements(new LinkedHashSet<>());
+                case SORTED_SET -> readElements(new TreeSet<>());
+                case MAP -> readEntries(new HashMap<>());
+                case LINKED_MAP -> readEntries(new LinkedHashMap<>());
+                case SORTED_MAP -> readEntries(new TreeMap<>());
+                case ENUM -> readEnum();
+                case OBJECT -> readObject();
+                case JAVA -> {
+                    if (!javaFallback) {
+                        throw new NotSerializableException("Value written with Java serialization, see cache.serializer.java");
+                    }
+                    int length = readSize();
+                    Object value = java.deserialize(new ByteArrayInputStream(data, position, length));
+                    position += length;
+                    references.add(value);
+                    yield value;
+                }
+                case REFERENCE -> {
+                    long index = readVarLong();
+                    if (index < 0 || index >= references.size()) {
+                        throw new StreamCorruptedException("Bad reference " + index);
+                    }
+                    yield references.get((int) index);
+                }
+                default -> throw new StreamCorruptedException("Unknown tag " + tag);
+            };
+        }
+
+        private <T extends Collection<Object>> T readElements(T elements) throws IOException {
+            references.add(elements);
+            int size = readSize();
+            for (int i = 0; i < size; i++) {
+                elements.add(readValue());
+            }
+            return elements;
+        }
+
+        private <T extends Map<Object, Object>> T readEntries(T map) throws IOException {
+            references.add(map);
+            int size = readSize();
+            for (int i = 0; i < size; i++) {
+                map.put(readValue(), readValue());
+            }
+            return map;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object readEnum() throws IOException {
+            Class<?> type = registeredClass((int) readVarLong());
+            if (!type.isEnum()) {
+                throw new StreamCorruptedException(type.getName() + " is not an enum");
+            }
+            try {
+                return Enum.valueOf((Class) type, readString());
+            } catch (IllegalArgumentException e) {
+                throw new StreamCorruptedException(e.getMessage());
+            }
+        }
+
+        private Object readObject() throws IOException {
+            Class<?> type = registeredClass((int) readVarLong());
+            ClassCodec codec = codec(type);
+            if ((int) readFixed(4) != codec.hash) {
+                throw new StreamCorruptedException(type.getName() + " changed since the value was written");
+            }
+            int index = references.size();
+            references.add(null);
+            try {
+                if (codec.record) {
+                    Object[] components = new Object[codec.fields.length];
+                    for (int i = 0; i < components.length; i++) {
+                        components[i] = readValue();
+                    }
+                    Object value = codec.constructor.newInstance(components);
+                    references.set(index, value);
+                    return value;
+                }
+                Object value = codec.constructor.newInstance();
+                references.set(index, value);
+                for (Field field : codec.fields) {
+                    field.set(value, readValue());
+                }
+                return value;
+            } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                throw new StreamCorruptedException(type.getName() + ": " + e);
+            }
+        }
+    }
+}
@@ -2,7 +2,11 @@ package play.cache;
 
 import java.io.NotSerializableException;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 
 import play.Logger;
 import play.Play;
@@ -26,6 +30,11 @@ public abstract class Cache {
      */
     public static CacheImpl forcedCacheImpl;
 
+    /**
+     * How values are turned into bytes for the remote caches, see <code>cache.serializer</code>
+     */
+    public static CacheSerializer serializer;
+
     /**
      * Add an element only if it doesn't exist.
      * @param key Element key
@@ -183,6 +192,33 @@ public abstract class Cache {
         return cacheImpl.get(key);
     }
 
+    /**
+     * Retrieve an object, or load it if it is missing. Concurrent requests for a missing key wait for a single
+     * load on each node.
+     * @param key The element key
+     * @param expiration Ex: 10s, 3mn, 8h
+     * @param loader Computes the element value
+     * @return The element value, or null if the loader found none
+     */
+    public static <T> T getOrLoad(String key, String expiration, Callable<T> loader) {
+        return getOrLoad(key, expiration, null, 0, loader);
+    }
+
+    /**
+     * Retrieve an object, or load it if it is missing or expired. Concurrent requests for a missing key wait for a
+     * single load on each node.
+     * @param key The element key
+     * @param expiration Ex: 10s, 3mn, 8h
+     * @param stale How long an expired value is still served while one request reloads it, ex: 30s (null for none)
+     * @param earlyExpiration How eagerly a value is reloaded before it expires: 0 never, 1 usually, more sooner
+     * @param loader Computes the element value
+     * @return The element value, or null if the loader found none
+     */
+    public static <T> T getOrLoad(String key, String expiration, String stale, double earlyExpiration, Callable<T> loader) {
+        int staleSeconds = stale == null || stale.isEmpty() ? 0 : Time.parseDuration(stale);
+        return CacheLoader.getOrLoad(cacheImpl, key, Time.parseDuration(expiration), staleSeconds, earlyExpiration, loader);
+    }
+
     /**
      * Delete an element from the cache.
      * @param key The element key
@@ -201,6 +237,73 @@ public abstract class Cache {
         return cacheImpl.safeDelete(key);
     }
 
+    /**
+     * Set several elements at once, and return only when they are effectively cached.
+     * @param values Element values, by key
+     * @param expiration Ex: 10s, 3mn, 8h
+     * @return Whether each element has been cached
+     */
+    public static Map<String, Boolean> setAll(Map<String, ?> values, String expiration) {
+        values.values().forEach(Cache::checkSerializable);
+        return cacheImpl.setAll(values, Time.parseDuration(expiration));
+    }
+
+    /**
+     * Set several elements at once and store them indefinitely.
+     * @param values Element values, by key
+     * @return Whether each element has been cached
+     */
+    public static Map<String, Boolean> setAll(Map<String, ?> values) {
+        return setAll(values, null);
+    }
+
+    /**
+     * Set several elements at once, without waiting.
+     * @param values Element values, by key
+     * @param expiration Ex: 10s, 3mn, 8h
+     * @return Whether each element has been cached, once known
+     */
+    public static CompletionStage<Map<String, Boolean>> setAllAsync(Map<String, ?> values, String expiration) {
+        values.values().forEach(Cache::checkSerializable);
+        return cacheImpl.setAllAsync(values, Time.parseDuration(expiration));
+    }
+
+    /**
+     * Delete several elements at once, and return only when they are effectively removed.
+     * @param keys The element keys
+     * @return Whether each element has been deleted
+     */
+    public static Map<String, Boolean> deleteAll(Collection<String> keys) {
+        return cacheImpl.deleteAll(keys);
+    }
+
+    /**
+     * Delete several elements at once, without waiting.
+     * @param keys The element keys
+     * @return Whether each element has been deleted, once known
+     */
+    public static CompletionStage<Map<String, Boolean>> deleteAllAsync(Collection<String> keys) {
+        return cacheImpl.deleteAllAsync(keys);
+    }
+
+    /**
+     * Retrieve several elements at once.
+     * @param keys The element keys
+     * @return The elements found, by key
+     */
+    public static Map<String, Object> getAll(Collection<String> keys) {
+        return cacheImpl.getAll(keys);
+    }
+
+    /**
+     * Retrieve several elements at once, without waiting.
+     * @param keys The element keys
+     * @return The elements found, by key, once known
+     */
+    public static CompletionStage<Map<String, Object>> getAllAsync(Collection<String> keys) {
+        return cacheImpl.getAllAsync(keys);
+    }
+
     /**
      * Clear all data from cache.
      */
@@ -226,6 +329,7 @@ public abstract class Cache {
      * Initialize the cache system.
      */
     public static void init() {
+        serializer = CacheSerializer.of(Play.configuration);
         if(forcedCacheImpl != null) {
             cacheImpl = forcedCacheImpl;
             return;
@@ -234,14 +338,37 @@ public abstract class Cache {
             try {
                 cacheImpl = MemcachedImpl.getInstance(true);
                 Logger.info("Connected to memcached");
+                if (Play.configuration.getProperty("cache.near", "disabled").equals("enabled")) {
+                    cacheImpl = NearCacheImpl.newInstance(cacheImpl);
+                }
             } catch (Exception e) {
                 Logger.error(e, "Error while connecting to memcached");
                 Logger.warn("Fallback to local cache");
-                cacheImpl = EhCacheImpl.newInstance();
+                cacheImpl = localCache();
             }
         } else {
-            cacheImpl = EhCacheImpl.newInstance();
+            cacheImpl = localCache();
+        }
+    }
+
+    private static CacheImpl localCache() {
+        if (Play.configuration.getProperty("cache.local", "ehcache").equals("caffeine")) {
+            return CaffeineImpl.newInstance();
+        }
+        return EhCacheImpl.newInstance();
+    }
+
+    /**
+     * @return the statistics of the in-process cache, by region, or none if it is not kept by Caffeine
+     */
+    public static List<CaffeineImpl.RegionStats> getStats() {
+        if (cacheImpl instanceof CaffeineImpl caffeine) {
+            return caffeine.getStats();
+        }
+        if (cacheImpl instanceof NearCacheImpl near) {
+            return List.of(near.getStats());
         }
+        return List.of();
     }
 
     /**
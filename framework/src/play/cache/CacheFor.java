@@ -6,11 +6,15 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
- * Cache an action's result.
+ * Cache an action's response.
  *
- * <p>If a time is not specified, the results will be cached for 1 hour by default.
+ * <p>The response is rendered once, with a strong entity tag: a request whose <code>If-None-Match</code> holds it is
+ * answered with 304 Not Modified without invoking the action.
  *
- * <p>Example: <code>@CacheFor("1h")</code>
+ * <p>If a time is not specified, the results will be cached for 1 hour by default. Concurrent requests for a result
+ * that is not cached wait for the first one to compute it, see {@link Cache#getOrLoad}.
+ *
+ * <p>Example: <code>@CacheFor("1h")</code>, <code>@CacheFor(value = "10mn", stale = "1mn", earlyExpiration = 1)</code>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
@@ -18,4 +22,21 @@ public @interface CacheFor {
     String value() default "1h";
     String id() default "";
     Class<? extends CacheKeyGenerator> generator() default DefaultCacheKeyGenerator.class;
+
+    /**
+     * How long an expired result is still served while one request computes the new one. None by default.
+     */
+    String stale() default "";
+
+    /**
+     * How eagerly a result is computed again before it expires: 0 (the default) never, 1 usually, more sooner.
+     */
+    double earlyExpiration() default 0;
+
+    /**
+     * What the cached response depends on besides its key: request header names such as <code>Accept-Encoding</code>,
+     * <code>lang</code> for the language of the request, or <code>session.</code> followed by a session key. Defaults
+     * to <code>http.cacheFor.vary</code>.
+     */
+    String[] vary() default {};
 }
@@ -1,10 +1,17 @@
 package play.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * A cache implementation.
  * expiration is specified in seconds
+ *
+ * The bulk operations have default implementations that go key by key; remote caches should send them in one go.
  * @see play.cache.Cache
  */
 public interface CacheImpl {
@@ -36,4 +43,51 @@ public interface CacheImpl {
     boolean safeDelete(String key);
 
     void stop();
+
+    /**
+     * Sets several elements, and returns once they are effectively cached.
+     *
+     * @return whether each key could be set
+     */
+    default Map<String, Boolean> setAll(Map<String, ?> values, int expiration) {
+        Map<String, Boolean> results = new HashMap<>(values.size());
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            results.put(value.getKey(), safeSet(value.getKey(), value.getValue(), expiration));
+        }
+        return results;
+    }
+
+    /**
+     * Deletes several elements, and returns once they are effectively removed.
+     *
+     * @return whether each key could be deleted
+     */
+    default Map<String, Boolean> deleteAll(Collection<String> keys) {
+        Map<String, Boolean> results = new HashMap<>(keys.size());
+        for (String key : keys) {
+            results.put(key, safeDelete(key));
+        }
+        return results;
+    }
+
+    /**
+     * @return the elements found, by key
+     */
+    default Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> results = new HashMap<>(get(keys.toArray(new String[0])));
+        results.values().removeIf(Objects::isNull);
+        return results;
+    }
+
+    default CompletionStage<Map<String, Boolean>> setAllAsync(Map<String, ?> values, int expiration) {
+        return CompletableFuture.completedFuture(setAll(values, expiration));
+    }
+
+    default CompletionStage<Map<String, Boolean>> deleteAllAsync(Collection<String> keys) {
+        return CompletableFuture.completedFuture(deleteAll(keys));
+    }
+
+    default CompletionStage<Map<String, Object>> getAllAsync(Collection<String> keys) {
+        return CompletableFuture.completedFuture(getAll(keys));
+    }
 }
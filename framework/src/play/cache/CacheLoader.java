@@ -0,0 +1,134 @@
+package play.cache;
+
+import play.exceptions.CacheException;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Loads the values of {@link Cache#getOrLoad}: when a key is missing, the requests that want it on this node wait for
+ * the first one to load it instead of all loading it.
+ *
+ * <p>Values are stored with the time they expire at and how long they took to load. The cache keeps them for the
+ * stale window on top of their expiration: a request that finds an expired value in that window reloads it while the
+ * others keep serving the old one. With early expiration, a request may also reload a value shortly before it expires,
+ * the more likely the closer it gets and the longer the value takes to load, so that it seldom expires at all.</p>
+ *
+ * @see <a href="https://www.vldb.org/pvldb/vol8/p886-vattani.pdf">Optimal Probabilistic Cache Stampede Prevention</a>
+ */
+final class CacheLoader {
+
+    private static final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * A value as {@link Cache#getOrLoad} stores it.
+     *
+     * @param expiresAt
+     *            When the value expires, in milliseconds since the epoch
+     * @param loadMillis
+     *            How long the value took to load
+     */
+    record Loaded(Object value, long expiresAt, long loadMillis) implements Serializable {
+    }
+
+    private record Flight(Thread loader, CompletableFuture<Object> result) {
+    }
+
+    private CacheLoader() {
+    }
+
+    /**
+     * @param ttl
+     *            Seconds the value is fresh for
+     * @param stale
+     *            Seconds an expired value is still served while it is reloaded
+     * @param beta
+     *            How early values are reloaded before they expire: 0 never, 1 usually
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T getOrLoad(CacheImpl cache, String key, int ttl, int stale, double beta, Callable<T> loader) {
+        Object cached = cache.get(key);
+        if (cached != null && !(cached instanceof Loaded)) {
+            // Stored by Cache.set
+            return (T) cached;
+        }
+        Loaded loaded = (Loaded) cached;
+        if (loaded != null) {
+            long now = System.currentTimeMillis();
+            boolean fresh = now < loaded.expiresAt;
+            if (fresh && beta > 0) {
+                // XFetch: -ln(u) is exponentially distributed, so the reload starts at a random time before expiry
+                fresh = now - loaded.loadMillis * beta * Math.log(ThreadLocalRandom.current().nextDouble()) < loaded.expiresAt;
+            }
+            if (fresh) {
+                return (T) loaded.value;
+            }
+            if (now >= loaded.expiresAt + 1000L * stale) {
+                loaded = null;
+            }
+        }
+        Flight flight = new Flight(Thread.currentThread(), new CompletableFuture<>());
+        Flight current = flights.putIfAbsent(key, flight);
+        if (current != null) {
+            if (loaded != null) {
+                // Another request is reloading it
+                return (T) loaded.value;
+            }
+            if (current.loader == Thread.currentThread()) {
+                // The loader wants its own key
+                return load(cache, key, ttl, stale, loader);
+            }
+            return (T) await(current.result);
+        }
+        try {
+            T value = load(cache, key, ttl, stale, loader);
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private static <T> T load(CacheImpl cache, String key, int ttl, int stale, Callable<T> loader) {
+        long start = System.currentTimeMillis();
+        T value;
+        try {
+            value = loader.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheException("Cannot load " + key, e);
+        }
+        if (value != null) {
+            Cache.checkSerializable(value);
+            long now = System.currentTimeMillis();
+            cache.set(key, new Loaded(value, now + 1000L * ttl, now - start), ttl + stale);
+        }
+        return value;
+    }
+
+    private static Object await(CompletableFuture<Object> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new CacheException("Cannot load", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while loading", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package play.cache;
+
+import play.Play;
+import play.exceptions.ConfigurationException;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Turns the values stored in a remote cache into bytes, and back.
+ *
+ * <p>The one in use is chosen by <code>cache.serializer</code>: <code>binary</code> (the default) for
+ * {@link BinaryCacheSerializer}, <code>java</code> for {@link JavaCacheSerializer}, or the name of a class implementing
+ * this interface, with a public constructor taking no argument.</p>
+ */
+public interface CacheSerializer {
+
+    byte[] serialize(Object value) throws IOException;
+
+    Object deserialize(byte[] data) throws IOException;
+
+    /**
+     * @return the serializer chosen by the configuration
+     */
+    static CacheSerializer of(Properties configuration) {
+        String name = configuration.getProperty("cache.serializer", "binary");
+        switch (name) {
+            case "binary":
+                return new BinaryCacheSerializer(configuration);
+            case "java":
+                return new JavaCacheSerializer();
+            default:
+                try {
+                    ClassLoader loader = Play.classloader != null ? Play.classloader : CacheSerializer.class.getClassLoader();
+                    return (CacheSerializer) Class.forName(name, true, loader).getDeclaredConstructor().newInstance();
+                } catch (Exception e) {
+                    throw new ConfigurationException("Cannot create the cache serializer " + name + ": " + e);
+                }
+        }
+    }
+}
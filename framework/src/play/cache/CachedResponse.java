@@ -0,0 +1,73 @@
+package play.cache;
+
+import play.mvc.Http;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response as {@link CacheFor} caches it: rendered once, with a strong entity tag computed from its body.
+ *
+ * @param headers
+ *            The headers the result set, by name
+ */
+public record CachedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body, String etag)
+        implements Serializable {
+
+    /**
+     * @param vary
+     *            The Vary header of the response, or null
+     * @return the response, once the result applied to it
+     */
+    public static CachedResponse of(Http.Response response, String vary) {
+        Map<String, List<String>> headers = new HashMap<>();
+        for (Map.Entry<String, Http.Header> header : response.headers.entrySet()) {
+            // Kept on its own
+            if (!header.getKey().equalsIgnoreCase("ETag")) {
+                headers.put(header.getKey(), new ArrayList<>(header.getValue().values));
+            }
+        }
+        if (vary != null) {
+            headers.put("Vary", List.of(vary));
+        }
+        byte[] body = response.out.toByteArray();
+        String etag = response.getHeader("ETag");
+        return new CachedResponse(response.status, response.contentType, headers, body, etag != null ? etag : etag(body));
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param ifNoneMatch
+     *            The If-None-Match header of a request, or null
+     * @return whether the client already has this response
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,412 @@
+package play.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import play.Logger;
+import play.Play;
+import play.libs.Time;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache on Caffeine, whose W-TinyLFU policy only admits a new entry when it is more frequently used than
+ * the one it would evict.
+ *
+ * <p>Entries are weighed by their approximate size in bytes. The cache can be split in named regions, each with its
+ * own size and TTL limit: a key belongs to the region its prefix names (<code>urlcache:/home</code> is in the
+ * <code>urlcache</code> region), other keys to the default region.</p>
+ *
+ * Expiration is specified in seconds
+ *
+ * @see <a href="https://github.com/ben-manes/caffeine">https://github.com/ben-manes/caffeine</a>
+ */
+public class CaffeineImpl implements CacheImpl {
+
+    private static final String DEFAULT_REGION = "default";
+
+    private static CaffeineImpl uniqueInstance;
+
+    private final Region defaultRegion;
+    private final List<Region> regions = new ArrayList<>();
+
+    private CaffeineImpl(Properties configuration) {
+        defaultRegion = new Region(DEFAULT_REGION, null,
+                parseSize(configuration.getProperty("cache.maxWeight", "64mb")),
+                configuration.getProperty("cache.ttl"));
+        for (String name : configuration.getProperty("cache.regions", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            regions.add(new Region(name, name + ":",
+                    parseSize(configuration.getProperty("cache.region." + name + ".maxWeight", "16mb")),
+                    configuration.getProperty("cache.region." + name + ".ttl")));
+        }
+    }
+
+    public static CaffeineImpl getInstance() {
+        return uniqueInstance;
+    }
+
+    public static CaffeineImpl newInstance() {
+        uniqueInstance = new CaffeineImpl(Play.configuration);
+        return uniqueInstance;
+    }
+
+    static long parseSize(String size) {
+        String s = size.trim().toLowerCase();
+        long unit = 1;
+        if (s.endsWith("kb")) {
+            unit = 1024;
+        } else if (s.endsWith("mb")) {
+            unit = 1024 * 1024;
+        } else if (s.endsWith("gb")) {
+            unit = 1024 * 1024 * 1024;
+        }
+        if (unit > 1) {
+            s = s.substring(0, s.length() - 2).trim();
+        }
+        return Long.parseLong(s) * unit;
+    }
+
+    private Region region(String key) {
+        for (Region region : regions) {
+            if (key.startsWith(region.prefix)) {
+                return region;
+            }
+        }
+        return defaultRegion;
+    }
+
+    @Override
+    public void add(String key, Object value, int expiration) {
+        Region region = region(key);
+        region.cache.asMap().putIfAbsent(key, region.entry(value, expiration));
+    }
+
+    @Override
+    public boolean safeAdd(String key, Object value, int expiration) {
+        try {
+            add(key, value, expiration);
+            return true;
+        } catch (Exception e) {
+            Logger.error(e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    public void set(String key, Object value, int expiration) {
+        Region region = region(key);
+        region.cache.put(key, region.entry(value, expiration));
+    }
+
+    @Override
+    public boolean safeSet(String key, Object value, int expiration) {
+        try {
+            set(key, value, expiration);
+            return true;
+        } catch (Exception e) {
+            Logger.error(e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    public void replace(String key, Object value, int expiration) {
+        Region region = region(key);
+        region.cache.asMap().replace(key, region.entry(value, expiration));
+    }
+
+    @Override
+    public boolean safeReplace(String key, Object value, int expiration) {
+        try {
+            replace(key, value, expiration);
+            return true;
+        } catch (Exception e) {
+            Logger.error(e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        Entry entry = region(key).cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        return entry.value instanceof AtomicLong counter ? counter.get() : entry.value;
+    }
+
+    @Override
+    public Map<String, Object> get(String[] keys) {
+        Map<String, Object> result = new HashMap<>(keys.length);
+        for (String key : keys) {
+            result.put(key, get(key));
+        }
+        return result;
+    }
+
+    @Override
+    public long incr(String key, int by) {
+        return addToCounter(key, by);
+    }
+
+    @Override
+    public long decr(String key, int by) {
+        return addToCounter(key, -by);
+    }
+
+    /**
+     * The first update turns the number into an {@link AtomicLong}; later ones only add to it, without locking.
+     */
+    private long addToCounter(String key, long delta) {
+        Region region = region(key);
+        Entry entry = region.cache.getIfPresent(key);
+        if (entry == null) {
+            return -1;
+        }
+        if (!(entry.value instanceof AtomicLong)) {
+            entry = region.cache.asMap().computeIfPresent(key, (k, e) -> e.value instanceof AtomicLong
+                    ? e
+                    : new Entry(new AtomicLong(((Number) e.value).longValue()), e.ttlNanos));
+            if (entry == null) {
+                return -1;
+            }
+        }
+        return ((AtomicLong) entry.value).addAndGet(delta);
+    }
+
+    @Override
+    public void clear() {
+        defaultRegion.cache.invalidateAll();
+        for (Region region : regions) {
+            region.cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        region(key).cache.invalidate(key);
+    }
+
+    @Override
+    public boolean safeDelete(String key) {
+        try {
+            delete(key);
+            return true;
+        } catch (Exception e) {
+            Logger.error(e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    public void stop() {
+        clear();
+    }
+
+    @Override
+    public Map<String, Boolean> setAll(Map<String, ?> values, int expiration) {
+        Map<Region, Map<String, Entry>> entries = new HashMap<>();
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            Region region = region(value.getKey());
+            entries.computeIfAbsent(region, r -> new HashMap<>()).put(value.getKey(), region.entry(value.getValue(), expiration));
+        }
+        entries.forEach((region, regionEntries) -> region.cache.putAll(regionEntries));
+        Map<String, Boolean> results = new HashMap<>(values.size());
+        for (String key : values.keySet()) {
+            results.put(key, true);
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Boolean> deleteAll(Collection<String> keys) {
+        Map<Region, List<String>> byRegion = new HashMap<>();
+        for (String key : keys) {
+            byRegion.computeIfAbsent(region(key), r -> new ArrayList<>()).add(key);
+        }
+        byRegion.forEach((region, regionKeys) -> region.cache.invalidateAll(regionKeys));
+        Map<String, Boolean> results = new HashMap<>(keys.size());
+        for (String key : keys) {
+            results.put(key, true);
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size());
+        for (String key : keys) {
+            Object value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the statistics of each region, the default one first
+     */
+    public List<RegionStats> getStats() {
+        List<RegionStats> stats = new ArrayList<>(regions.size() + 1);
+        stats.add(defaultRegion.stats());
+        for (Region region : regions) {
+            stats.add(region.stats());
+        }
+        return stats;
+    }
+
+    public record RegionStats(String name, long entries, long weight, long maxWeight, long hits, long misses,
+            long evictions) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+    }
+
+    private record Entry(Object value, long ttlNanos) {
+    }
+
+    private static final class Region {
+
+        final String name;
+        final String prefix;
+        final long maxWeight;
+        final long maxTtlNanos;
+        final com.github.benmanes.caffeine.cache.Cache<String, Entry> cache;
+
+        Region(String name, String prefix, long maxWeight, String ttl) {
+            this.name = name;
+            this.prefix = prefix;
+            this.maxWeight = maxWeight;
+            this.maxTtlNanos = ttl == null ? Long.MAX_VALUE : TimeUnit.SECONDS.toNanos(Time.parseDuration(ttl));
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(maxWeight)
+                    .weigher((String key, Entry entry) -> weigh(key, entry.value))
+                    .expireAfter(new Expiry<String, Entry>() {
+                        @Override
+                        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                            return entry.ttlNanos;
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                            return entry.ttlNanos;
+                        }
+
+                        @Override
+                        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .recordStats()
+                    .build();
+        }
+
+        /**
+         * An expiration of 0 keeps the entry as long as the region allows.
+         */
+        Entry entry(Object value, int expiration) {
+            long ttl = expiration <= 0 ? maxTtlNanos : Math.min(TimeUnit.SECONDS.toNanos(expiration), maxTtlNanos);
+            return new Entry(value, ttl);
+        }
+
+        RegionStats stats() {
+            CacheStats stats = cache.stats();
+            long weight = cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+            return new RegionStats(name, cache.estimatedSize(), weight, maxWeight, stats.hitCount(), stats.missCount(),
+                    stats.evictionCount());
+        }
+    }
+
+    /**
+     * Elements of a collection that are weighed, the others are assumed alike.
+     */
+    private static final int SAMPLED_ELEMENTS = 8;
+
+    /**
+     * Nesting of collections that is weighed, deeper ones count as any other object.
+     */
+    private static final int WEIGHED_DEPTH = 2;
+
+    /**
+     * What an object of any other type is assumed to take.
+     */
+    private static final int OBJECT_WEIGHT = 128;
+
+    /**
+     * Approximate heap footprint of an entry, estimated without walking the value: exact enough for strings, byte
+     * arrays, boxed values and cached responses, sampled for collections, a fixed cost otherwise.
+     */
+    static int weigh(String key, Object value) {
+        long size = 64 + 2L * key.length() + estimate(value, 0);
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String s) {
+            return 40 + 2L * s.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 16;
+        }
+        if (value instanceof CachedResponse response) {
+            return 64 + response.body().length + estimate(response.headers(), depth + 1);
+        }
+        if (depth < WEIGHED_DEPTH) {
+            if (value instanceof Collection<?> collection) {
+                return 32 + sampled(collection, collection.size(), depth);
+            }
+            if (value instanceof Map<?, ?> map) {
+                return 32 + sampled(map.entrySet(), map.size(), depth);
+            }
+            if (value instanceof Object[] array) {
+                return 16 + sampled(Arrays.asList(array), array.length, depth);
+            }
+        }
+        if (value.getClass().isArray()) {
+            return 16 + 8L * Array.getLength(value);
+        }
+        return OBJECT_WEIGHT;
+    }
+
+    /**
+     * The weight of the first elements, scaled to the size of the collection.
+     */
+    private static long sampled(Iterable<?> elements, int size, int depth) {
+        long weight = 0;
+        int sampled = 0;
+        for (Object element : elements) {
+            if (sampled == SAMPLED_ELEMENTS) {
+                break;
+            }
+            if (element instanceof Map.Entry<?, ?> entry) {
+                weight += 32 + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            } else {
+                weight += 8 + estimate(element, depth + 1);
+            }
+            sampled++;
+        }
+        return sampled == 0 ? 0 : weight * size / sampled;
+    }
+}
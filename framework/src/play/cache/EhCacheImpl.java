@@ -12,7 +12,9 @@ import play.Logger;
 
 import java.io.Serializable;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -217,4 +219,39 @@ public class EhCacheImpl implements CacheImpl {
 	public void stop() {
 		cacheManager.close();
 	}
+
+	@Override
+	public Map<String, Boolean> setAll(Map<String, ?> values, int expiration) {
+		Map<String, Element> elements = new HashMap<>(values.size());
+		for (Map.Entry<String, ?> value : values.entrySet()) {
+			elements.put(value.getKey(), new Element(value.getValue(), expiration));
+		}
+		cache.putAll(elements);
+		return results(values.keySet());
+	}
+
+	@Override
+	public Map<String, Boolean> deleteAll(Collection<String> keys) {
+		cache.removeAll(new HashSet<>(keys));
+		return results(keys);
+	}
+
+	@Override
+	public Map<String, Object> getAll(Collection<String> keys) {
+		Map<String, Object> result = new HashMap<>(keys.size());
+		for (Map.Entry<String, Element> e : cache.getAll(new HashSet<>(keys)).entrySet()) {
+			if (e.getValue() != null) {
+				result.put(e.getKey(), e.getValue().value());
+			}
+		}
+		return result;
+	}
+
+	private static Map<String, Boolean> results(Collection<String> keys) {
+		Map<String, Boolean> results = new HashMap<>(keys.size());
+		for (String key : keys) {
+			results.put(key, true);
+		}
+		return results;
+	}
 }
@@ -0,0 +1,47 @@
+package play.cache;
+
+import play.Play;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * Java serialization, as the cache always used: any {@link java.io.Serializable} value, at the cost of large payloads
+ * and of instantiating whatever class the bytes name. Only use it with a cache nobody else can write to.
+ */
+public class JavaCacheSerializer implements CacheSerializer {
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(value);
+        }
+        return bos.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException {
+        return deserialize(new ByteArrayInputStream(data));
+    }
+
+    Object deserialize(InputStream data) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(data) {
+
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                ClassLoader loader = Play.classloader != null ? Play.classloader : JavaCacheSerializer.class.getClassLoader();
+                return Class.forName(desc.getName(), false, loader);
+            }
+        }) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -1,17 +1,18 @@
 package play.cache;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.ObjectStreamClass;
 import java.net.InetSocketAddress;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.spy.memcached.AddrUtil;
 import net.spy.memcached.ConnectionFactory;
@@ -19,6 +20,8 @@ import net.spy.memcached.ConnectionFactoryBuilder;
 import net.spy.memcached.MemcachedClient;
 import net.spy.memcached.auth.AuthDescriptor;
 import net.spy.memcached.auth.PlainCallbackHandler;
+import net.spy.memcached.internal.OperationCompletionListener;
+import net.spy.memcached.internal.OperationFuture;
 import net.spy.memcached.transcoders.SerializingTranscoder;
 import play.Logger;
 import play.Play;
@@ -60,14 +63,7 @@ public class MemcachedImpl implements CacheImpl {
             @Override
             protected Object deserialize(byte[] data) {
                 try {
-                    return new ObjectInputStream(new ByteArrayInputStream(data)) {
-
-                        @Override
-                        protected Class<?> resolveClass(ObjectStreamClass desc)
-                                throws IOException, ClassNotFoundException {
-                            return Class.forName(desc.getName(), false, Play.classloader);
-                        }
-                    }.readObject();
+                    return Cache.serializer.deserialize(data);
                 } catch (Exception e) {
                     Logger.error(e, "Could not deserialize");
                 }
@@ -77,9 +73,7 @@ public class MemcachedImpl implements CacheImpl {
             @Override
             protected byte[] serialize(Object object) {
                 try {
-                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                    new ObjectOutputStream(bos).writeObject(object);
-                    return bos.toByteArray();
+                    return Cache.serializer.serialize(object);
                 } catch (IOException e) {
                     Logger.error(e, "Could not serialize");
                 }
@@ -236,4 +230,96 @@ public class MemcachedImpl implements CacheImpl {
     public void stop() {
         client.shutdown();
     }
+
+    /**
+     * All the sets are queued at once: the client writes them to each node back to back, and the results are awaited
+     * together.
+     */
+    @Override
+    public CompletionStage<Map<String, Boolean>> setAllAsync(Map<String, ?> values, int expiration) {
+        Map<String, OperationFuture<Boolean>> futures = new HashMap<>(values.size());
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            futures.put(value.getKey(), client.set(value.getKey(), expiration, value.getValue(), tc));
+        }
+        return completion(futures);
+    }
+
+    @Override
+    public CompletionStage<Map<String, Boolean>> deleteAllAsync(Collection<String> keys) {
+        Map<String, OperationFuture<Boolean>> futures = new HashMap<>(keys.size());
+        for (String key : keys) {
+            futures.put(key, client.delete(key));
+        }
+        return completion(futures);
+    }
+
+    @Override
+    public CompletionStage<Map<String, Object>> getAllAsync(Collection<String> keys) {
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        if (keys.isEmpty()) {
+            result.complete(Collections.emptyMap());
+            return result;
+        }
+        client.asyncGetBulk(keys, tc).addListener(future -> {
+            try {
+                result.complete(new HashMap<String, Object>(future.get()));
+            } catch (Exception e) {
+                result.complete(Collections.emptyMap());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Map<String, Boolean> setAll(Map<String, ?> values, int expiration) {
+        return await(setAllAsync(values, expiration), values.keySet());
+    }
+
+    @Override
+    public Map<String, Boolean> deleteAll(Collection<String> keys) {
+        return await(deleteAllAsync(keys), keys);
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        try {
+            return getAllAsync(keys).toCompletableFuture().get(client.getOperationTimeout(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * The client gives up on each operation after its timeout, so that they all complete.
+     */
+    private static CompletionStage<Map<String, Boolean>> completion(Map<String, OperationFuture<Boolean>> futures) {
+        CompletableFuture<Map<String, Boolean>> result = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            result.complete(Collections.emptyMap());
+            return result;
+        }
+        Map<String, Boolean> results = new ConcurrentHashMap<>(futures.size());
+        AtomicInteger pending = new AtomicInteger(futures.size());
+        for (Map.Entry<String, OperationFuture<Boolean>> future : futures.entrySet()) {
+            future.getValue().addListener((OperationCompletionListener) f -> {
+                results.put(future.getKey(), f.getStatus().isSuccess());
+                if (pending.decrementAndGet() == 0) {
+                    result.complete(results);
+                }
+            });
+        }
+        return result;
+    }
+
+    private Map<String, Boolean> await(CompletionStage<Map<String, Boolean>> stage, Collection<String> keys) {
+        try {
+            return stage.toCompletableFuture().get(2 * client.getOperationTimeout(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Map<String, Boolean> results = new HashMap<>(keys.size());
+            for (String key : keys) {
+                results.put(key, false);
+            }
+            return results;
+        }
+    }
 }
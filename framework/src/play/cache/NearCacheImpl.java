@@ -0,0 +1,475 @@
+package play.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import play.Logger;
+import play.Play;
+import play.libs.Time;
+import play.utils.PThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded in-process tier in front of a remote cache, usually memcached: the values read lately are served from the
+ * heap, without a round trip nor a deserialization. Writes go to the remote cache.
+ *
+ * <p>Local entries live at most <code>cache.near.ttl</code>, and no longer than the expiration their key was last
+ * written with, when that write is known. Each write drops the local entry right away, and the other nodes learn about
+ * it through an invalidation log kept in the remote cache: a sequence number (<code>play.near.seq</code>) and a ring of
+ * the keys written last with when they expire (<code>play.near.inv.&lt;slot&gt;</code>). Every node reads the log once
+ * per <code>cache.near.syncInterval</code> and drops the keys written since it last looked, or its whole tier when it
+ * fell too far behind. A node may so serve a value another one replaced for up to that interval; one
+ * read while it was being replaced may stay until it expires from the local tier.</p>
+ *
+ * Expiration is specified in seconds
+ */
+public class NearCacheImpl implements CacheImpl {
+
+    static final String SEQUENCE_KEY = "play.near.seq";
+    static final String INVALIDATION_KEY = "play.near.inv.";
+
+    /**
+     * How many expirations of written keys are remembered: the keys beyond are capped by <code>cache.near.ttl</code>
+     * only.
+     */
+    private static final int DEADLINES = 65536;
+    private static final long NO_DEADLINE = 0;
+    private static final long UNCHANGED_DEADLINE = -1;
+
+    private final CacheImpl remote;
+    private final long maxWeight;
+    private final long maxTtlNanos;
+    private final int logSize;
+    private final int logExpiration;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Entry> local;
+    /**
+     * When the keys written lately expire in the remote cache, in milliseconds since the epoch.
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> deadlines;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The last position of the invalidation log this node read, only used by the executor.
+     */
+    private long seen = -1;
+
+    NearCacheImpl(CacheImpl remote, Properties configuration) {
+        this.remote = remote;
+        this.maxWeight = CaffeineImpl.parseSize(configuration.getProperty("cache.near.maxWeight", "16mb"));
+        this.maxTtlNanos = TimeUnit.SECONDS.toNanos(Time.parseDuration(configuration.getProperty("cache.near.ttl", "10s")));
+        this.logSize = Integer.parseInt(configuration.getProperty("cache.near.logSize", "1024"));
+        int syncInterval = Time.parseDuration(configuration.getProperty("cache.near.syncInterval", "1s"));
+        this.logExpiration = Math.max(60, 10 * syncInterval);
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, Entry entry) -> CaffeineImpl.weigh(key, entry.value))
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.deadlines = Caffeine.newBuilder()
+                .maximumSize(DEADLINES)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String key, Long deadline, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadline - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Long deadline, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, deadline, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Long deadline, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new PThreadFactory("near-cache"));
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = executor;
+        executor.scheduleWithFixedDelay(this::sync, syncInterval, syncInterval, TimeUnit.SECONDS);
+    }
+
+    public static NearCacheImpl newInstance(CacheImpl remote) {
+        return new NearCacheImpl(remote, Play.configuration);
+    }
+
+    private record Entry(Object value, long ttlNanos) {
+    }
+
+    @Override
+    public Object get(String key) {
+        Entry entry = local.getIfPresent(key);
+        if (entry != null) {
+            return entry.value;
+        }
+        Object value = remote.get(key);
+        if (value != null) {
+            keep(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> get(String[] keys) {
+        Map<String, Object> result = new HashMap<>(keys.length);
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            Entry entry = local.getIfPresent(key);
+            if (entry != null) {
+                result.put(key, entry.value);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Object> values = remote.get(missing.toArray(new String[0]));
+            for (Map.Entry<String, Object> value : values.entrySet()) {
+                if (value.getValue() != null) {
+                    keep(value.getKey(), value.getValue());
+                }
+                result.put(value.getKey(), value.getValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void add(String key, Object value, int expiration) {
+        remote.add(key, value, expiration);
+        invalidate(key, deadline(expiration));
+    }
+
+    @Override
+    public boolean safeAdd(String key, Object value, int expiration) {
+        boolean added = remote.safeAdd(key, value, expiration);
+        invalidate(key, added ? deadline(expiration) : UNCHANGED_DEADLINE);
+        return added;
+    }
+
+    @Override
+    public void set(String key, Object value, int expiration) {
+        remote.set(key, value, expiration);
+        invalidate(key, deadline(expiration));
+    }
+
+    @Override
+    public boolean safeSet(String key, Object value, int expiration) {
+        boolean set = remote.safeSet(key, value, expiration);
+        invalidate(key, set ? deadline(expiration) : UNCHANGED_DEADLINE);
+        return set;
+    }
+
+    @Override
+    public void replace(String key, Object value, int expiration) {
+        remote.replace(key, value, expiration);
+        invalidate(key, deadline(expiration));
+    }
+
+    @Override
+    public boolean safeReplace(String key, Object value, int expiration) {
+        boolean replaced = remote.safeReplace(key, value, expiration);
+        invalidate(key, replaced ? deadline(expiration) : UNCHANGED_DEADLINE);
+        return replaced;
+    }
+
+    @Override
+    public long incr(String key, int by) {
+        long value = remote.incr(key, by);
+        invalidate(key);
+        return value;
+    }
+
+    @Override
+    public long decr(String key, int by) {
+        long value = remote.decr(key, by);
+        invalidate(key);
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+    }
+
+    @Override
+    public void delete(String key) {
+        remote.delete(key);
+        invalidate(key);
+    }
+
+    @Override
+    public boolean safeDelete(String key) {
+        boolean deleted = remote.safeDelete(key);
+        invalidate(key);
+        return deleted;
+    }
+
+    @Override
+    public Map<String, Boolean> setAll(Map<String, ?> values, int expiration) {
+        Map<String, Boolean> results = remote.setAll(values, expiration);
+        invalidate(values.keySet(), results, deadline(expiration));
+        return results;
+    }
+
+    @Override
+    public Map<String, Boolean> deleteAll(Collection<String> keys) {
+        Map<String, Boolean> results = remote.deleteAll(keys);
+        keys.forEach(this::invalidate);
+        return results;
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size());
+        List<String> missing = local(keys, result);
+        if (!missing.isEmpty()) {
+            keep(remote.getAll(missing), result);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletionStage<Map<String, Boolean>> setAllAsync(Map<String, ?> values, int expiration) {
+        values.keySet().forEach(local::invalidate);
+        long deadline = deadline(expiration);
+        return remote.setAllAsync(values, expiration).thenApply(results -> {
+            invalidate(values.keySet(), results, deadline);
+            return results;
+        });
+    }
+
+    @Override
+    public CompletionStage<Map<String, Boolean>> deleteAllAsync(Collection<String> keys) {
+        keys.forEach(local::invalidate);
+        return remote.deleteAllAsync(keys).thenApply(results -> {
+            keys.forEach(this::invalidate);
+            return results;
+        });
+    }
+
+    @Override
+    public CompletionStage<Map<String, Object>> getAllAsync(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size());
+        List<String> missing = local(keys, result);
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return remote.getAllAsync(missing).thenApply(values -> {
+            keep(values, result);
+            return result;
+        });
+    }
+
+    /**
+     * @return the keys not found locally
+     */
+    private List<String> local(Collection<String> keys, Map<String, Object> result) {
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            Entry entry = local.getIfPresent(key);
+            if (entry != null) {
+                result.put(key, entry.value);
+            } else {
+                missing.add(key);
+            }
+        }
+        return missing;
+    }
+
+    private void keep(Map<String, Object> values, Map<String, Object> result) {
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            if (value.getValue() != null) {
+                keep(value.getKey(), value.getValue());
+                result.put(value.getKey(), value.getValue());
+            }
+        }
+    }
+
+    /**
+     * Keeps a value read from the remote cache, until <code>cache.near.ttl</code> or until it expires there if that
+     * comes first.
+     */
+    private void keep(String key, Object value) {
+        long ttlNanos = maxTtlNanos;
+        Long deadline = deadlines.getIfPresent(key);
+        if (deadline != null) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                return;
+            }
+            ttlNanos = Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(left));
+        }
+        local.put(key, new Entry(value, ttlNanos));
+    }
+
+    /**
+     * @return when a value written now with this expiration expires, or {@link #NO_DEADLINE}
+     */
+    private static long deadline(int expiration) {
+        return expiration > 0 ? System.currentTimeMillis() + 1000L * expiration : NO_DEADLINE;
+    }
+
+    /**
+     * Remembers when a written key expires, forgets it if it no longer does.
+     */
+    private void expires(String key, long deadline) {
+        if (deadline > 0) {
+            deadlines.put(key, deadline);
+        } else if (deadline == NO_DEADLINE) {
+            deadlines.invalidate(key);
+        }
+    }
+
+    @Override
+    public void stop() {
+        executor.shutdownNow();
+        local.invalidateAll();
+        remote.stop();
+    }
+
+    /**
+     * @return the statistics of the local tier
+     */
+    public CaffeineImpl.RegionStats getStats() {
+        CacheStats stats = local.stats();
+        long weight = local.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+        return new CaffeineImpl.RegionStats("near", local.estimatedSize(), weight, maxWeight, stats.hitCount(),
+                stats.missCount(), stats.evictionCount());
+    }
+
+    private void invalidate(String key) {
+        invalidate(key, UNCHANGED_DEADLINE);
+    }
+
+    private void invalidate(Collection<String> keys, Map<String, Boolean> results, long deadline) {
+        for (String key : keys) {
+            invalidate(key, Boolean.TRUE.equals(results.get(key)) ? deadline : UNCHANGED_DEADLINE);
+        }
+    }
+
+    /**
+     * Drops the local entry, and tells the other nodes to drop theirs and when the key now expires. The log is written
+     * from the executor, not to make writes wait for two more round trips.
+     *
+     * @param deadline
+     *            When the written value expires, {@link #NO_DEADLINE} if it does not, {@link #UNCHANGED_DEADLINE} if
+     *            the write did not change it
+     */
+    private void invalidate(String key, long deadline) {
+        local.invalidate(key);
+        expires(key, deadline);
+        try {
+            executor.execute(() -> publish(key, deadline));
+        } catch (RuntimeException e) {
+            // Stopped
+        }
+    }
+
+    private void publish(String key, long deadline) {
+        try {
+            long seq = sequence(1);
+            if (seq > 0) {
+                remote.set(INVALIDATION_KEY + seq % logSize, seq + ":" + deadline + ":" + key, logExpiration);
+            }
+        } catch (Exception e) {
+            Logger.warn(e, "Could not log the invalidation of %s", key);
+        }
+    }
+
+    /**
+     * memcached creates the counter when it is missing, other caches need it added first.
+     */
+    private long sequence(int by) {
+        long seq = remote.incr(SEQUENCE_KEY, by);
+        if (seq < 0) {
+            remote.add(SEQUENCE_KEY, 0L, 0);
+            seq = remote.incr(SEQUENCE_KEY, by);
+        }
+        return seq;
+    }
+
+    /**
+     * Applies an entry of the invalidation log: <code>&lt;seq&gt;:&lt;deadline&gt;:&lt;key&gt;</code>.
+     *
+     * @return false if the entry cannot be read
+     */
+    private boolean invalidate(String entry, int start) {
+        int separator = entry.indexOf(':', start);
+        if (separator < 0) {
+            return false;
+        }
+        long deadline;
+        try {
+            deadline = Long.parseLong(entry.substring(start, separator));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        String key = entry.substring(separator + 1);
+        local.invalidate(key);
+        expires(key, deadline);
+        return true;
+    }
+
+    /**
+     * Drops the local entries written by other nodes since the last call, or all of them when the log cannot tell
+     * which: it was cleared, or more keys were written than it keeps.
+     */
+    void sync() {
+        try {
+            long seq = sequence(0);
+            if (seq == seen) {
+                return;
+            }
+            if (seen < 0 || seq < seen || seq - seen > logSize) {
+                local.invalidateAll();
+                seen = seq;
+                return;
+            }
+            String[] slots = new String[(int) (seq - seen)];
+            for (long s = seen + 1; s <= seq; s++) {
+                slots[(int) (s - seen - 1)] = INVALIDATION_KEY + s % logSize;
+            }
+            Map<String, Object> written = remote.get(slots);
+            for (long s = seen + 1; s <= seq; s++) {
+                Object value = written.get(INVALIDATION_KEY + s % logSize);
+                String prefix = s + ":";
+                if (!(value instanceof String entry) || !entry.startsWith(prefix) || !invalidate(entry, prefix.length())) {
+                    local.invalidateAll();
+                    break;
+                }
+            }
+            seen = seq;
+        } catch (Exception e) {
+            Logger.warn(e, "Could not read the cache invalidations");
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package play.data.binding;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.*;
 
@@ -10,12 +13,19 @@ import play.mvc.Context;
 
 /**
  * Parameters map to POJO binder.
+ *
+ * <p>Properties are set through method handles resolved once, and a wrapper is not modified after its construction, so
+ * that the one {@link Binder#getBeanWrapper(Class)} keeps for a class can be shared by all threads.</p>
  */
 public class BeanWrapper {
 
     static final int notwritableField = Modifier.FINAL | Modifier.NATIVE | Modifier.STATIC;
     static final int notaccessibleMethod = Modifier.NATIVE | Modifier.STATIC;
 
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType constructorType = MethodType.methodType(Object.class);
+
     /**
      * a cache for our properties and setters
      */
@@ -23,6 +33,11 @@ public class BeanWrapper {
 
     private final Class<?> beanClass;
 
+    /**
+     * The no-arg constructor, resolved on first use.
+     */
+    private volatile MethodHandle constructor;
+
     public BeanWrapper(Class<?> forClass) {
         if (Logger.isTraceEnabled()) {
             Logger.trace("Bean wrapper for class %s", forClass.getName());
@@ -46,15 +61,14 @@ public class BeanWrapper {
     }
 
     public Collection<Property> getWrappers() {
-        return wrappers.values();
+        return Collections.unmodifiableCollection(wrappers.values());
     }
 
     public void set(String name, Object instance, Object value) {
-        for (Property prop : wrappers.values()) {
-            if (name.equals(prop.name)) {
-                prop.setValue(instance, value);
-                return;
-            }
+        Property prop = wrappers.get(name);
+        if (prop != null) {
+            prop.setValue(instance, value);
+            return;
         }
         String message = String.format("Can't find property with name '%s' on class %s", name, instance.getClass().getName());
         Logger.warn(message);
@@ -71,9 +85,23 @@ public class BeanWrapper {
     }
 
     protected Object newBeanInstance() throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
-        Constructor<?> constructor = beanClass.getDeclaredConstructor();
-        constructor.setAccessible(true);
-        return constructor.newInstance();
+        MethodHandle handle = constructor;
+        if (handle == null) {
+            if (Modifier.isAbstract(beanClass.getModifiers())) {
+                throw new InstantiationException(beanClass.getName());
+            }
+            Constructor<?> c = beanClass.getDeclaredConstructor();
+            c.setAccessible(true);
+            handle = lookup.unreflectConstructor(c).asType(constructorType);
+            constructor = handle;
+        }
+        try {
+            return (Object) handle.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
     }
 
     private void registerFields(Class<?> clazz) {
@@ -149,6 +177,10 @@ public class BeanWrapper {
         private final String name;
         private Method setter;
         private Field field;
+        /**
+         * Calls the setter or sets the field, null when the property can only be set by reflection.
+         */
+        private final MethodHandle handle;
         private String[] profiles;
 
         Property(String propertyName, Method setterMethod) {
@@ -158,6 +190,14 @@ public class BeanWrapper {
             annotations = setter.getAnnotations();
             genericType = setter.getGenericParameterTypes()[0];
             setProfiles(this.annotations);
+            MethodHandle h;
+            try {
+                h = lookup.unreflect(setter).asType(setterType);
+            } catch (IllegalAccessException e) {
+                // Not accessible: reflection reports it when the property is set
+                h = null;
+            }
+            handle = h;
         }
 
         Property(Field field) {
@@ -168,6 +208,13 @@ public class BeanWrapper {
             annotations = field.getAnnotations();
             genericType = field.getGenericType();
             setProfiles(this.annotations);
+            MethodHandle h;
+            try {
+                h = lookup.unreflectSetter(field).asType(setterType);
+            } catch (IllegalAccessException e) {
+                h = null;
+            }
+            handle = h;
         }
 
         public void setProfiles(Annotation[] annotations) {
@@ -187,18 +234,23 @@ public class BeanWrapper {
                     if (Logger.isTraceEnabled()) {
                         Logger.trace("invoke setter %s on %s with value %s", setter, instance, value);
                     }
-
-                    setter.invoke(instance, value);
-                    return;
                 } else {
                     if (Logger.isTraceEnabled()) {
                         Logger.trace("field.set(%s, %s)", instance, value);
                     }
+                }
 
+                if (handle != null) {
+                    handle.invokeExact(instance, value);
+                } else if (setter != null) {
+                    setter.invoke(instance, value);
+                } else {
                     field.set(instance, value);
                 }
 
-            } catch (Exception ex) {
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
                 Logger.warn(ex, "ERROR in BeanWrapper when setting property %s value is %s (%s)", name, value, value == null ? null : value.getClass());
                 throw new UnexpectedException(ex);
             }
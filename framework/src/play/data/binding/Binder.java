@@ -4,6 +4,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import play.Logger;
 import play.Play;
+import play.classloading.ApplicationClassloaderState;
 import play.data.Upload;
 import play.data.binding.types.*;
 import play.data.validation.Validation;
@@ -20,6 +21,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import play.mvc.Context;
 
 /**
@@ -82,9 +84,25 @@ public abstract class Binder {
         supportedTypes.remove(clazz);
     }
 
-    static final Map<Class<?>, BeanWrapper> beanwrappers = new HashMap<>();
+    static final Map<Class<?>, BeanWrapper> beanwrappers = new ConcurrentHashMap<>();
+    private static volatile ApplicationClassloaderState beanwrappersState;
 
-    static BeanWrapper getBeanWrapper(Class<?> clazz) {
+    /**
+     * @param clazz
+     *            The bean class
+     * @return the wrapper of the class, built on first use and shared by all threads until the application classes
+     *         are reloaded
+     */
+    public static BeanWrapper getBeanWrapper(Class<?> clazz) {
+        ApplicationClassloaderState state = Play.classloader == null ? null : Play.classloader.currentState;
+        if (state != null && !state.equals(beanwrappersState)) {
+            synchronized (beanwrappers) {
+                if (!state.equals(beanwrappersState)) {
+                    beanwrappers.clear();
+                    beanwrappersState = state;
+                }
+            }
+        }
         return beanwrappers.computeIfAbsent(clazz, BeanWrapper::new);
     }
 
@@ -130,6 +148,11 @@ public abstract class Binder {
 
     public static Object bind(Context context, RootParamNode parentParamNode, String name, Class<?> clazz, Type type, Annotation[] annotations,
             MethodAndParamInfo methodAndParamInfo) {
+        return bind(context, parentParamNode, name, clazz, type, annotations, new BindingAnnotations(annotations), methodAndParamInfo);
+    }
+
+    static Object bind(Context context, RootParamNode parentParamNode, String name, Class<?> clazz, Type type, Annotation[] annotations,
+            BindingAnnotations bindingAnnotations, MethodAndParamInfo methodAndParamInfo) {
         ParamNode paramNode = parentParamNode.getChild(name, true);
 
         Object result = null;
@@ -137,8 +160,6 @@ public abstract class Binder {
             result = MISSING;
         }
 
-        BindingAnnotations bindingAnnotations = new BindingAnnotations(annotations);
-
         if (bindingAnnotations.checkNoBinding()) {
             return NO_BINDING;
         }
@@ -341,11 +362,23 @@ public abstract class Binder {
     }
 
     private static Object internalBindBean(Context context, Class<?> clazz, ParamNode paramNode, BindingAnnotations bindingAnnotations) {
-        Object bean = createNewInstance(clazz);
+        Object bean = createNewBean(clazz);
         internalBindBean(context, paramNode, bean, bindingAnnotations);
         return bean;
     }
 
+    private static Object createNewBean(Class<?> clazz) {
+        try {
+            return getBeanWrapper(clazz).newBeanInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            Logger.warn("Failed to create instance of %s: %s", clazz.getName(), e);
+            throw new UnexpectedException(e);
+        } catch (NoSuchMethodException | InvocationTargetException e) {
+            Logger.error("Failed to create instance of %s: %s", clazz.getName(), e);
+            throw new UnexpectedException(e);
+        }
+    }
+
     private static <T> T createNewInstance(Class<T> clazz) {
         try {
             Constructor<T> constructor = clazz.getDeclaredConstructor();
@@ -0,0 +1,95 @@
+package play.data.binding;
+
+import play.Logger;
+import play.Play;
+import play.classloading.ApplicationClassloaderState;
+import play.mvc.Context;
+import play.utils.Utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How the arguments of a method are bound from the request parameters, worked out once per method: their names,
+ * types and binding annotations.
+ *
+ * <p>Simple arguments are bound from their own parameter only, so that the body is not parsed for them. The others
+ * share the parameter tree that {@link play.mvc.Scope.Params} keeps for the request. Plans are dropped when the
+ * application classes are reloaded.</p>
+ */
+public final class BindingPlan {
+
+    private record Argument(String name, Class<?> type, Type genericType, Annotation[] annotations,
+            BindingAnnotations bindingAnnotations, boolean simple) {
+    }
+
+    private static final Map<Method, BindingPlan> plans = new ConcurrentHashMap<>();
+    private static volatile ApplicationClassloaderState classloaderState;
+
+    private final Method method;
+    private final Argument[] arguments;
+
+    private BindingPlan(Method method) {
+        this.method = method;
+        Parameter[] parameters = method.getParameters();
+        Class<?>[] types = method.getParameterTypes();
+        Type[] genericTypes = method.getGenericParameterTypes();
+        Annotation[][] annotations = method.getParameterAnnotations();
+        this.arguments = new Argument[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Class<?> type = types[i];
+            BindingAnnotations bindingAnnotations = new BindingAnnotations(annotations[i]);
+            // Resolves the profiles now, the plan is shared between threads
+            bindingAnnotations.checkNoBinding();
+            boolean simple = type.equals(String.class) || Number.class.isAssignableFrom(type) || type.isPrimitive();
+            arguments[i] = new Argument(parameters[i].getName(), type, genericTypes[i], annotations[i], bindingAnnotations, simple);
+        }
+    }
+
+    /**
+     * @return the plan of a method, built on first use
+     */
+    public static BindingPlan of(Method method) {
+        ApplicationClassloaderState state = Play.classloader.currentState;
+        if (!state.equals(classloaderState)) {
+            synchronized (plans) {
+                if (!state.equals(classloaderState)) {
+                    plans.clear();
+                    classloaderState = state;
+                }
+            }
+        }
+        return plans.computeIfAbsent(method, BindingPlan::new);
+    }
+
+    /**
+     * @param instance
+     *            The object the method is invoked on, null if it is static
+     * @return the arguments of the method bound from the request parameters
+     */
+    public Object[] bind(Context context, Object instance) {
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            Argument argument = arguments[i];
+            RootParamNode root;
+            if (argument.simple) {
+                Map<String, String[]> params = new HashMap<>(2);
+                params.put(argument.name, context.getParams().getAll(argument.name));
+                root = ParamNode.convert(params);
+            } else {
+                root = context.getParams().getRootParamNode();
+            }
+            if (Logger.isTraceEnabled()) {
+                Logger.trace("getActionMethodArgs name [" + argument.name + "] annotation [" + Utils.join(argument.annotations, " ") + "]");
+            }
+            args[i] = Binder.bind(context, root, argument.name, argument.type, argument.genericType, argument.annotations,
+                    argument.bindingAnnotations, new Binder.MethodAndParamInfo(instance, method, i + 1));
+        }
+        return args;
+    }
+}
@@ -2,6 +2,7 @@ package play.data.binding;
 
 import play.utils.Utils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -21,7 +22,42 @@ public class ParamNode {
     // a[b].c=12
     // a[b][c]=12
     // a.b[c]=12
-    private static final String keyPartDelimiterRegexpString = "[\\.\\[\\]]+";
+    // Same as key.split("[\\.\\[\\]]+"), without a regular expression: keys are split for every parameter and
+    // every bean property lookup.
+    static String[] splitKey(String key) {
+        int length = key.length();
+        int pos = 0;
+        while (pos < length && !isKeyPartDelimiter(key.charAt(pos))) {
+            pos++;
+        }
+        if (pos == length) {
+            return new String[] {key};
+        }
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (pos < length) {
+            parts.add(key.substring(start, pos));
+            while (pos < length && isKeyPartDelimiter(key.charAt(pos))) {
+                pos++;
+            }
+            start = pos;
+            while (pos < length && !isKeyPartDelimiter(key.charAt(pos))) {
+                pos++;
+            }
+        }
+        if (start < length) {
+            parts.add(key.substring(start));
+        }
+        // Like split(), no trailing empty part: only a leading one can be empty
+        if (parts.size() == 1 && parts.getFirst().isEmpty()) {
+            return new String[0];
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    private static boolean isKeyPartDelimiter(char c) {
+        return c == '.' || c == '[' || c == ']';
+    }
 
     public ParamNode(String name) {
         this.name = name;
@@ -57,7 +93,7 @@ public class ParamNode {
     }
 
     public ParamNode getChild(String name, boolean returnEmptyChildIfNotFound) {
-        ParamNode child = getChild( name.split(keyPartDelimiterRegexpString));
+        ParamNode child = getChild(splitKey(name));
         if (child == null && returnEmptyChildIfNotFound) {
             child = new ParamNode(name);
         }
@@ -143,7 +179,7 @@ public class ParamNode {
 
             ParamNode currentParent = root;
 
-            for ( String name : key.split(keyPartDelimiterRegexpString)) {
+            for (String name : splitKey(key)) {
                 ParamNode paramNode = currentParent.getChild( name );
                 if (paramNode ==null) {
                     // first time we see this node - create it and add it to parent
@@ -792,7 +792,7 @@ public class Evolutions extends PlayPlugin {
                 // Table in lowercase does not exist
                 // oracle gives table names in upper case
                 tableName = tableName.toUpperCase();
-                Logger.trace("Checking " + tableName);
+                Logger.trace("Checking %s", tableName);
                 resultSet.close();
                 resultSet = connection.getMetaData().getTables(null, null, tableName, null);
                 // Does it exist?
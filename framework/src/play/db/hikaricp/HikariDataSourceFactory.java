@@ -35,6 +35,7 @@ public class HikariDataSourceFactory implements DataSourceFactory {
     ds.setValidationTimeout(parseLong(dbConfig.getProperty("db.pool.validationTimeout", "5000")));
     ds.setLoginTimeout(parseInt(dbConfig.getProperty("db.pool.loginTimeout", "0"))); // in seconds
     ds.setMaxLifetime(parseLong(dbConfig.getProperty("db.pool.maxConnectionAge", "0"))); // in ms
+    ds.setMetricsTrackerFactory(new HikariMetricsTrackerFactory(dbConfig.configName));
 
     if (dbConfig.getProperty("db.pool.connectionInitSql") != null) {
       ds.setConnectionInitSql(dbConfig.getProperty("db.pool.connectionInitSql"));
@@ -0,0 +1,57 @@
+package play.db.hikaricp;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import play.metrics.Counter;
+import play.metrics.Metrics;
+import play.metrics.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the connection pool of a database to the {@link Metrics} registry, as <code>db.&lt;name&gt;.pool.*</code>:
+ * the time to acquire a connection and how long it is held, the timeouts, and the number of active, idle and
+ * awaited connections.
+ */
+public class HikariMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final String prefix;
+
+    public HikariMetricsTrackerFactory(String dbName) {
+        this.prefix = "db." + dbName + ".pool.";
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Metrics.gauge(prefix + "active", poolStats::getActiveConnections);
+        Metrics.gauge(prefix + "idle", poolStats::getIdleConnections);
+        Metrics.gauge(prefix + "total", poolStats::getTotalConnections);
+        Metrics.gauge(prefix + "pending", poolStats::getPendingThreads);
+        Timer acquire = Metrics.timer(prefix + "acquire");
+        Timer usage = Metrics.timer(prefix + "usage");
+        Timer creation = Metrics.timer(prefix + "creation");
+        Counter timeouts = Metrics.counter(prefix + "timeouts");
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                creation.record(connectionCreatedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -157,7 +157,7 @@ public class GenericModel extends JPABase {
         // returning from this method.
         List<ParamNode.RemovedNode> removedNodesList = new ArrayList<>();
         try {
-            BeanWrapper bw = new BeanWrapper(o.getClass());
+            BeanWrapper bw = Binder.getBeanWrapper(o.getClass());
             // Start with relations
             Set<Field> fields = new HashSet<>();
             Class<?> clazz = o.getClass();
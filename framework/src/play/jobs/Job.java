@@ -6,8 +6,6 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import com.jamonapi.Monitor;
-import com.jamonapi.MonitorFactory;
 
 import play.Invoker;
 import play.Invoker.InvocationContext;
@@ -20,6 +18,8 @@ import play.exceptions.UnexpectedException;
 import play.libs.F;
 import play.libs.F.Promise;
 import play.libs.Time;
+import play.metrics.Metrics;
+import play.metrics.Timer;
 import play.mvc.Context;
 import play.mvc.Http;
 
@@ -206,7 +206,7 @@ public class Job<V> extends Invoker.Invocation implements Callable<V> {
 
     @Override
     public V call() {
-        Monitor monitor = null;
+        Timer.Stopwatch monitor = null;
         try {
             if (init()) {
                 before();
@@ -215,7 +215,7 @@ public class Job<V> extends Invoker.Invocation implements Callable<V> {
                 try {
                     lastException = null;
                     lastRun = System.currentTimeMillis();
-                    monitor = MonitorFactory.start(this + ".doJob()");
+                    monitor = Metrics.timer(this + ".doJob()").start();
 
                     // If we have a plugin, get him to execute the job within the filter.
                     final AtomicBoolean executed = new AtomicBoolean(false);
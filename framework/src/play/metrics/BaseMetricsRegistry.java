@@ -0,0 +1,60 @@
+package play.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and gauges, which all registries keep the same way.
+ */
+abstract class BaseMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, AdderCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new AdderCounter());
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    @Override
+    public List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> snapshots = new ArrayList<>(counters.size() + gauges.size());
+        counters.forEach((name, counter) -> snapshots.add(MetricSnapshot.value(name, MetricSnapshot.Kind.COUNTER, counter.count())));
+        gauges.forEach((name, gauge) -> snapshots.add(MetricSnapshot.value(name, MetricSnapshot.Kind.GAUGE, gauge.getAsLong())));
+        return snapshots;
+    }
+
+    @Override
+    public void reset() {
+        counters.values().forEach(counter -> counter.adder.reset());
+    }
+
+    private static final class AdderCounter implements Counter {
+
+        final LongAdder adder = new LongAdder();
+
+        @Override
+        public void increment() {
+            adder.increment();
+        }
+
+        @Override
+        public void add(long delta) {
+            adder.add(delta);
+        }
+
+        @Override
+        public long count() {
+            return adder.sum();
+        }
+    }
+}
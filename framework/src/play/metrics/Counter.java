@@ -0,0 +1,13 @@
+package play.metrics;
+
+/**
+ * A count that only goes up, like the number of rejected requests.
+ */
+public interface Counter {
+
+    void increment();
+
+    void add(long delta);
+
+    long count();
+}
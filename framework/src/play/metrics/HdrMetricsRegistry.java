@@ -0,0 +1,101 @@
+package play.metrics;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The default registry. Timers and histograms are HdrHistograms with 3 significant digits, recorded without locking,
+ * so that their percentiles can be reported; counters are {@link java.util.concurrent.atomic.LongAdder}s.
+ *
+ * @see <a href="https://hdrhistogram.github.io/HdrHistogram/">https://hdrhistogram.github.io/HdrHistogram/</a>
+ */
+public class HdrMetricsRegistry extends BaseMetricsRegistry {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<String, HdrTimer> timers = new ConcurrentHashMap<>();
+    private final Map<String, HdrHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> new HdrTimer());
+    }
+
+    @Override
+    public Histogram histogram(String name, String unit) {
+        return histograms.computeIfAbsent(name, n -> new HdrHistogram(unit));
+    }
+
+    @Override
+    public List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> snapshots = super.snapshot();
+        timers.forEach((name, timer) -> snapshots.add(timerSnapshot(name, timer.histogram)));
+        histograms.forEach((name, histogram) -> snapshots.add(snapshot(name, MetricSnapshot.Kind.HISTOGRAM, histogram.unit, histogram.histogram, 1)));
+        return snapshots;
+    }
+
+    /**
+     * @return the snapshot of a histogram of durations in nanoseconds, as the timers of this registry report them
+     */
+    public static MetricSnapshot timerSnapshot(String name, ConcurrentHistogram nanos) {
+        return snapshot(name, MetricSnapshot.Kind.TIMER, "ms.", nanos, NANOS_PER_MILLI);
+    }
+
+    private static MetricSnapshot snapshot(String name, MetricSnapshot.Kind kind, String unit, ConcurrentHistogram histogram, double scale) {
+        AbstractHistogram copy = histogram.copy();
+        long[] buckets = null;
+        if (kind == MetricSnapshot.Kind.TIMER) {
+            buckets = new long[MetricSnapshot.LATENCY_BUCKETS.length];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = copy.getCountBetweenValues(0, (long) (MetricSnapshot.LATENCY_BUCKETS[i] * scale));
+            }
+        }
+        return new MetricSnapshot(name, kind, unit, copy.getTotalCount(), copy.getMean() / scale, copy.getMinValue() / scale,
+                copy.getMaxValue() / scale, copy.getValueAtPercentile(50) / scale, copy.getValueAtPercentile(99) / scale,
+                copy.getValueAtPercentile(99.9) / scale, buckets);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        timers.values().forEach(timer -> timer.histogram.reset());
+        histograms.values().forEach(histogram -> histogram.histogram.reset());
+    }
+
+    private static final class HdrTimer implements Timer {
+
+        final ConcurrentHistogram histogram = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+        @Override
+        public Stopwatch start() {
+            long start = System.nanoTime();
+            return () -> histogram.recordValue(Math.max(0, System.nanoTime() - start));
+        }
+
+        @Override
+        public void record(long duration, TimeUnit unit) {
+            histogram.recordValue(Math.max(0, unit.toNanos(duration)));
+        }
+    }
+
+    private static final class HdrHistogram implements Histogram {
+
+        final String unit;
+        final ConcurrentHistogram histogram = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+        HdrHistogram(String unit) {
+            this.unit = unit;
+        }
+
+        @Override
+        public void record(long value) {
+            histogram.recordValue(Math.max(0, value));
+        }
+    }
+}
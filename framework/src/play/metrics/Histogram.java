@@ -0,0 +1,9 @@
+package play.metrics;
+
+/**
+ * The distribution of sampled values, like the size of a queue each time something is put in it.
+ */
+public interface Histogram {
+
+    void record(long value);
+}
@@ -0,0 +1,57 @@
+package play.metrics;
+
+import com.jamonapi.Monitor;
+import com.jamonapi.MonitorFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records timers and histograms in JAMon monitors, as the framework did before it had a registry, for applications
+ * reading them from {@link MonitorFactory}. JAMon does not track percentiles, and every monitor update takes its lock.
+ */
+public class JamonMetricsRegistry extends BaseMetricsRegistry {
+
+    private static final String TIMER_UNITS = "ms.";
+
+    @Override
+    public Timer timer(String name) {
+        return new Timer() {
+            @Override
+            public Stopwatch start() {
+                Monitor monitor = MonitorFactory.start(name);
+                return monitor::stop;
+            }
+
+            @Override
+            public void record(long duration, TimeUnit unit) {
+                MonitorFactory.add(name, TIMER_UNITS, unit.toNanos(duration) / 1_000_000.0);
+            }
+        };
+    }
+
+    @Override
+    public Histogram histogram(String name, String unit) {
+        return value -> MonitorFactory.getMonitor(name, unit).add(value);
+    }
+
+    @Override
+    public List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> snapshots = super.snapshot();
+        Monitor[] monitors = MonitorFactory.getRootMonitor().getMonitors();
+        if (monitors != null) {
+            for (Monitor monitor : monitors) {
+                MetricSnapshot.Kind kind = TIMER_UNITS.equals(monitor.getUnits()) ? MetricSnapshot.Kind.TIMER : MetricSnapshot.Kind.HISTOGRAM;
+                snapshots.add(new MetricSnapshot(monitor.getLabel(), kind, monitor.getUnits(), (long) monitor.getHits(), monitor.getAvg(),
+                        monitor.getMin(), monitor.getMax(), Double.NaN, Double.NaN, Double.NaN, null));
+            }
+        }
+        return snapshots;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        MonitorFactory.reset();
+    }
+}
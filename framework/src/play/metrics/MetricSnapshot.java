@@ -0,0 +1,32 @@
+package play.metrics;
+
+/**
+ * The value of a metric when it was read. For counters and gauges only {@link #count()} is set, the other values are
+ * <code>NaN</code>; so are the percentiles of a registry that does not track them. Durations are in milliseconds.
+ *
+ * <p>Timers of a registry that tracks percentiles also tell how many durations fell under each of
+ * {@link #LATENCY_BUCKETS}, in {@link #buckets()}; it is null otherwise.</p>
+ */
+public record MetricSnapshot(String name, Kind kind, String unit, long count, double mean, double min, double max,
+        double p50, double p99, double p999, long[] buckets) {
+
+    /**
+     * Upper bounds, in milliseconds, of the latency buckets of timers.
+     */
+    public static final double[] LATENCY_BUCKETS = {1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    public enum Kind {
+        COUNTER, GAUGE, TIMER, HISTOGRAM
+    }
+
+    static MetricSnapshot value(String name, Kind kind, long value) {
+        return new MetricSnapshot(name, kind, "", value, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, null);
+    }
+
+    /**
+     * @return the sum of the recorded values, by which the status page sorts the metrics
+     */
+    public double total() {
+        return (kind == Kind.TIMER || kind == Kind.HISTOGRAM) && count > 0 ? count * mean : 0;
+    }
+}
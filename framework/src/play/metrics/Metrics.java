@@ -0,0 +1,59 @@
+package play.metrics;
+
+import play.Logger;
+import play.Play;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics registry of the application, set by <code>metrics.registry</code>: <code>hdr</code> (the default) for
+ * {@link HdrMetricsRegistry}, <code>jamon</code> for {@link JamonMetricsRegistry}, or the name of a
+ * {@link MetricsRegistry} implementation.
+ */
+public final class Metrics {
+
+    private static volatile MetricsRegistry registry = new HdrMetricsRegistry();
+
+    private Metrics() {
+    }
+
+    /**
+     * Creates the registry configured by <code>metrics.registry</code>, unless it is already in use.
+     */
+    public static void init() {
+        String name = Play.configuration.getProperty("metrics.registry", "hdr");
+        String className = switch (name) {
+            case "hdr" -> HdrMetricsRegistry.class.getName();
+            case "jamon" -> JamonMetricsRegistry.class.getName();
+            default -> name;
+        };
+        if (registry.getClass().getName().equals(className)) {
+            return;
+        }
+        try {
+            registry = (MetricsRegistry) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            Logger.error(e, "Cannot create the metrics registry %s, using %s", name, registry.getClass().getName());
+        }
+    }
+
+    public static MetricsRegistry registry() {
+        return registry;
+    }
+
+    public static Counter counter(String name) {
+        return registry.counter(name);
+    }
+
+    public static Timer timer(String name) {
+        return registry.timer(name);
+    }
+
+    public static Histogram histogram(String name, String unit) {
+        return registry.histogram(name, unit);
+    }
+
+    public static void gauge(String name, LongSupplier value) {
+        registry.gauge(name, value);
+    }
+}
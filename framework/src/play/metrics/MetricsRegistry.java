@@ -0,0 +1,39 @@
+package play.metrics;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Where the framework records its metrics. Metrics are created on first use and looked up by name; the
+ * implementation is chosen with <code>metrics.registry</code>, see {@link Metrics}.
+ */
+public interface MetricsRegistry {
+
+    Counter counter(String name);
+
+    /**
+     * @return the timer of the given name, whose values are reported in milliseconds
+     */
+    Timer timer(String name);
+
+    /**
+     * @param unit
+     *            The unit of the recorded values, for display only
+     */
+    Histogram histogram(String name, String unit);
+
+    /**
+     * Registers a value read when the metrics are reported, replacing any gauge of the same name.
+     */
+    void gauge(String name, LongSupplier value);
+
+    /**
+     * @return the current value of every metric
+     */
+    List<MetricSnapshot> snapshot();
+
+    /**
+     * Clears the recorded values. Gauges are kept.
+     */
+    void reset();
+}
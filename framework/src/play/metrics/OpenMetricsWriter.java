@@ -0,0 +1,438 @@
+package play.metrics;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import play.Invoker;
+import play.Logger;
+import play.cache.Cache;
+import play.cache.CaffeineImpl;
+import play.db.Configuration;
+import play.db.DB;
+import play.mvc.RouteStats;
+import play.mvc.Router;
+import play.server.Server;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the metrics of the application in the OpenMetrics text format, as they are read: the invoker, the server
+ * connections, the connection pools, the cache regions, the routes, the {@link Metrics} registry and the JVM memory
+ * and garbage collectors.
+ *
+ * <p>The timers of the registry are grouped into families: actions by action, jobs by job, the wait for a thread of
+ * the invoker, the connection pools by database, and the others (templates) by name. Counters, gauges and
+ * histograms of the registry that are not written from their source are labelled by name.</p>
+ *
+ * @see <a href="https://github.com/OpenObservability/OpenMetrics/blob/main/specification/OpenMetrics.md">OpenMetrics</a>
+ */
+public class OpenMetricsWriter {
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private record Family(String name, String type, String unit, String help, String label) {
+    }
+
+    private record Member(Family family, String labelValue, MetricSnapshot metric) {
+    }
+
+    private record Pool(String db, long active, long idle, long total, long pending) {
+    }
+
+    private static final Family ACTIONS = new Family("play_action_duration_seconds", "histogram", "seconds",
+            "Time to run the actions, by action.", "action");
+    private static final Family JOBS = new Family("play_job_duration_seconds", "histogram", "seconds", "Time to run the jobs, by job.", "job");
+    private static final Family INVOKER_WAIT = new Family("play_invoker_wait_seconds", "histogram", "seconds",
+            "Time the invocations waited for a thread.", null);
+    private static final Family TIMERS = new Family("play_timer_seconds", "histogram", "seconds",
+            "Other timed operations, such as template renderings, by name.", "name");
+    private static final Family COUNTERS = new Family("play_counter", "counter", "", "Other counters, by name.", "name");
+    private static final Family GAUGES = new Family("play_gauge", "gauge", "", "Other gauges, by name.", "name");
+    private static final Family HISTOGRAMS = new Family("play_histogram", "summary", "", "Other distributions, by name.", "name");
+
+    private static final String[] LATENCY_BOUNDS = new String[MetricSnapshot.LATENCY_BUCKETS.length];
+
+    static {
+        for (int i = 0; i < LATENCY_BOUNDS.length; i++) {
+            LATENCY_BOUNDS[i] = Double.toString(MetricSnapshot.LATENCY_BUCKETS[i] / 1000);
+        }
+    }
+
+    private final Writer out;
+
+    public OpenMetricsWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes every metric, and the end of the exposition.
+     */
+    public void writeAll() throws IOException {
+        writeInvoker();
+        writeServer();
+        writeConnectionPools();
+        writeCache();
+        writeRoutes();
+        writeRegistry();
+        writeJvm();
+        out.write("# EOF\n");
+        out.flush();
+    }
+
+    public void writeInvoker() throws IOException {
+        family("play_invoker_waiting_invocations", "gauge", "", "Invocations waiting for a thread.");
+        sample("play_invoker_waiting_invocations", Invoker.getQueueSize());
+        family("play_invoker_active_invocations", "gauge", "", "Invocations running.");
+        sample("play_invoker_active_invocations", Invoker.getActiveCount());
+        family("play_invoker_threads", "gauge", "", "Threads of the invocation pool.");
+        sample("play_invoker_threads", Invoker.executor.getPoolSize());
+        family("play_invoker_rejected_invocations", "counter", "", "Invocations rejected because the queue was full.");
+        sample("play_invoker_rejected_invocations_total", Invoker.getRejectedCount());
+        family("play_invoker_shed_invocations", "counter", "", "Invocations dropped after waiting too long for a thread.");
+        sample("play_invoker_shed_invocations_total", Invoker.getShedCount());
+    }
+
+    public void writeServer() throws IOException {
+        family("play_server_open_connections", "gauge", "", "Connections open to the server.");
+        sample("play_server_open_connections", Server.Connections.getOpenCount());
+        family("play_server_connections", "counter", "", "Connections accepted by the server.");
+        sample("play_server_connections_total", Server.Connections.getAcceptedCount());
+    }
+
+    public void writeConnectionPools() throws IOException {
+        List<Pool> pools = new ArrayList<>();
+        for (String db : Configuration.getDbNames()) {
+            DataSource ds = DB.getDataSource(db);
+            try {
+                if (ds instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+                    HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                    pools.add(new Pool(db, pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(),
+                            pool.getThreadsAwaitingConnection()));
+                } else if (ds instanceof ComboPooledDataSource c3p0) {
+                    pools.add(new Pool(db, c3p0.getNumBusyConnectionsDefaultUser(), c3p0.getNumIdleConnectionsDefaultUser(),
+                            c3p0.getNumConnectionsDefaultUser(), c3p0.getNumThreadsAwaitingCheckoutDefaultUser()));
+                }
+            } catch (SQLException e) {
+                Logger.warn("Cannot read the connection pool of %s: %s", db, e.getMessage());
+            }
+        }
+        if (pools.isEmpty()) {
+            return;
+        }
+        family("play_db_pool_active_connections", "gauge", "", "Connections in use, by database.");
+        for (Pool pool : pools) {
+            sample("play_db_pool_active_connections", pool.active, "db", pool.db);
+        }
+        family("play_db_pool_idle_connections", "gauge", "", "Connections idle in the pool, by database.");
+        for (Pool pool : pools) {
+            sample("play_db_pool_idle_connections", pool.idle, "db", pool.db);
+        }
+        family("play_db_pool_connections", "gauge", "", "Connections of the pool, by database.");
+        for (Pool pool : pools) {
+            sample("play_db_pool_connections", pool.total, "db", pool.db);
+        }
+        family("play_db_pool_pending_threads", "gauge", "", "Threads waiting for a connection, by database.");
+        for (Pool pool : pools) {
+            sample("play_db_pool_pending_threads", pool.pending, "db", pool.db);
+        }
+    }
+
+    public void writeCache() throws IOException {
+        List<CaffeineImpl.RegionStats> regions = Cache.getStats();
+        if (regions.isEmpty()) {
+            return;
+        }
+        family("play_cache_hits", "counter", "", "Cache hits, by region.");
+        for (CaffeineImpl.RegionStats region : regions) {
+            sample("play_cache_hits_total", region.hits(), "region", region.name());
+        }
+        family("play_cache_misses", "counter", "", "Cache misses, by region.");
+        for (CaffeineImpl.RegionStats region : regions) {
+            sample("play_cache_misses_total", region.misses(), "region", region.name());
+        }
+        family("play_cache_hit_ratio", "gauge", "", "Share of the cache lookups that hit, by region.");
+        for (CaffeineImpl.RegionStats region : regions) {
+            sample("play_cache_hit_ratio", region.hitRate(), "region", region.name());
+        }
+        family("play_cache_evictions", "counter", "", "Entries evicted from the cache, by region.");
+        for (CaffeineImpl.RegionStats region : regions) {
+            sample("play_cache_evictions_total", region.evictions(), "region", region.name());
+        }
+        family("play_cache_entries", "gauge", "", "Entries in the cache, by region.");
+        for (CaffeineImpl.RegionStats region : regions) {
+            sample("play_cache_entries", region.entries(), "region", region.name());
+        }
+        family("play_cache_size_bytes", "gauge", "bytes", "Estimated size of the entries in the cache, by region.");
+        for (CaffeineImpl.RegionStats region : regions) {
+            sample("play_cache_size_bytes", region.weight(), "region", region.name());
+        }
+        family("play_cache_max_size_bytes", "gauge", "bytes", "Size the cache is bounded to, by region.");
+        for (CaffeineImpl.RegionStats region : regions) {
+            sample("play_cache_max_size_bytes", region.maxWeight(), "region", region.name());
+        }
+    }
+
+    /**
+     * The routes that served requests, labelled by method and path.
+     */
+    public void writeRoutes() throws IOException {
+        List<Router.Route> routes = new ArrayList<>();
+        List<RouteStats.Snapshot> stats = new ArrayList<>();
+        for (Router.Route route : Router.routes) {
+            RouteStats.Snapshot snapshot = route.stats.snapshot(route.method + " " + route.path);
+            if (snapshot.latency().count() > 0) {
+                routes.add(route);
+                stats.add(snapshot);
+            }
+        }
+        if (routes.isEmpty()) {
+            return;
+        }
+        family("play_route_duration_seconds", "histogram", "seconds", "Time to serve the requests, by route.");
+        for (int i = 0; i < routes.size(); i++) {
+            writeLatency("play_route_duration_seconds", routeLabels(routes.get(i)), stats.get(i).latency());
+        }
+        family("play_route_responses", "counter", "", "Responses, by route and status class.");
+        for (int i = 0; i < routes.size(); i++) {
+            long[] statuses = stats.get(i).statuses();
+            for (int status = 0; status < statuses.length; status++) {
+                sample("play_route_responses_total", statuses[status], "method", routes.get(i).method, "path", routes.get(i).path,
+                        "status", (status + 1) + "xx");
+            }
+        }
+        family("play_route_response_bytes", "counter", "bytes", "Bytes of the response bodies, by route.");
+        for (int i = 0; i < routes.size(); i++) {
+            sample("play_route_response_bytes_total", stats.get(i).bytes(), routeLabels(routes.get(i)));
+        }
+        family("play_route_phase_seconds", "counter", "seconds", "Time spent in each phase of the requests, by route.");
+        for (int i = 0; i < routes.size(); i++) {
+            long[] phases = stats.get(i).phaseNanos();
+            for (RouteStats.Phase phase : RouteStats.Phase.values()) {
+                sample("play_route_phase_seconds_total", phases[phase.ordinal()] / 1e9, "method", routes.get(i).method, "path",
+                        routes.get(i).path, "phase", phase.name().toLowerCase());
+            }
+        }
+    }
+
+    private static String[] routeLabels(Router.Route route) {
+        return new String[] {"method", route.method, "path", route.path};
+    }
+
+    public void writeRegistry() throws IOException {
+        List<MetricSnapshot> metrics = new ArrayList<>(Metrics.registry().snapshot());
+        metrics.sort(Comparator.comparing(MetricSnapshot::name));
+        Map<String, List<Member>> families = new LinkedHashMap<>();
+        for (MetricSnapshot metric : metrics) {
+            Member member = member(metric);
+            if (member != null) {
+                families.computeIfAbsent(member.family.name, name -> new ArrayList<>()).add(member);
+            }
+        }
+        for (List<Member> members : families.values()) {
+            Family family = members.get(0).family;
+            family(family.name, family.type, family.unit, family.help);
+            for (Member member : members) {
+                String[] labels = family.label == null ? new String[0] : new String[] {family.label, member.labelValue};
+                switch (family.type) {
+                    case "histogram" -> writeLatency(family.name, labels, member.metric);
+                    case "summary" -> writeSummary(family.name, labels, member.metric);
+                    case "counter" -> sample(family.name + "_total", member.metric.count(), labels);
+                    default -> sample(family.name, member.metric.count(), labels);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the family of a metric of the registry and its label, null if it is written from its source
+     */
+    private static Member member(MetricSnapshot metric) {
+        String name = metric.name();
+        int pool = name.startsWith("db.") ? name.indexOf(".pool.") : -1;
+        if (pool > 0) {
+            String db = name.substring(3, pool);
+            String measure = name.substring(pool + 6).replaceAll("[^a-zA-Z0-9_]", "_");
+            return switch (metric.kind()) {
+                case TIMER -> new Member(new Family("play_db_pool_" + measure + "_seconds", "histogram", "seconds",
+                        "Connection pool " + measure + " time, by database.", "db"), db, metric);
+                case COUNTER -> new Member(new Family("play_db_pool_" + measure, "counter", "", "Connection pool " + measure + ", by database.",
+                        "db"), db, metric);
+                case GAUGE -> null;
+                case HISTOGRAM -> new Member(HISTOGRAMS, name, metric);
+            };
+        }
+        return switch (metric.kind()) {
+            case TIMER -> {
+                if (name.equals("Waiting for execution")) {
+                    yield new Member(INVOKER_WAIT, null, metric);
+                } else if (name.endsWith(".doJob()")) {
+                    yield new Member(JOBS, name.substring(0, name.length() - 8), metric);
+                } else if (name.endsWith("()")) {
+                    yield new Member(ACTIONS, name.substring(0, name.length() - 2), metric);
+                }
+                yield new Member(TIMERS, name, metric);
+            }
+            case COUNTER -> new Member(COUNTERS, name, metric);
+            case GAUGE -> name.startsWith("Invoker ") ? null : new Member(GAUGES, name, metric);
+            case HISTOGRAM -> new Member(HISTOGRAMS, name, metric);
+        };
+    }
+
+    /**
+     * A timer as a histogram in seconds. Without buckets, only the <code>+Inf</code> one is written.
+     */
+    private void writeLatency(String name, String[] labels, MetricSnapshot metric) throws IOException {
+        String bucket = name + "_bucket";
+        String[] bucketLabels = new String[labels.length + 2];
+        System.arraycopy(labels, 0, bucketLabels, 0, labels.length);
+        bucketLabels[labels.length] = "le";
+        long[] buckets = metric.buckets();
+        if (buckets != null) {
+            for (int i = 0; i < buckets.length; i++) {
+                bucketLabels[labels.length + 1] = LATENCY_BOUNDS[i];
+                sample(bucket, buckets[i], bucketLabels);
+            }
+        }
+        bucketLabels[labels.length + 1] = "+Inf";
+        sample(bucket, metric.count(), bucketLabels);
+        sample(name + "_count", metric.count(), labels);
+        sample(name + "_sum", metric.total() / 1000, labels);
+    }
+
+    private void writeSummary(String name, String[] labels, MetricSnapshot metric) throws IOException {
+        if (!Double.isNaN(metric.p50()) && metric.count() > 0) {
+            String[] quantileLabels = new String[labels.length + 2];
+            System.arraycopy(labels, 0, quantileLabels, 0, labels.length);
+            quantileLabels[labels.length] = "quantile";
+            quantileLabels[labels.length + 1] = "0.5";
+            sample(name, metric.p50(), quantileLabels);
+            quantileLabels[labels.length + 1] = "0.99";
+            sample(name, metric.p99(), quantileLabels);
+            quantileLabels[labels.length + 1] = "0.999";
+            sample(name, metric.p999(), quantileLabels);
+        }
+        sample(name + "_count", metric.count(), labels);
+        sample(name + "_sum", metric.total(), labels);
+    }
+
+    public void writeJvm() throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        family("jvm_memory_used_bytes", "gauge", "bytes", "Memory used, by area.");
+        sample("jvm_memory_used_bytes", heap.getUsed(), "area", "heap");
+        sample("jvm_memory_used_bytes", nonHeap.getUsed(), "area", "nonheap");
+        family("jvm_memory_committed_bytes", "gauge", "bytes", "Memory committed, by area.");
+        sample("jvm_memory_committed_bytes", heap.getCommitted(), "area", "heap");
+        sample("jvm_memory_committed_bytes", nonHeap.getCommitted(), "area", "nonheap");
+        family("jvm_memory_max_bytes", "gauge", "bytes", "Maximum memory, by area; -1 if undefined.");
+        sample("jvm_memory_max_bytes", heap.getMax(), "area", "heap");
+        sample("jvm_memory_max_bytes", nonHeap.getMax(), "area", "nonheap");
+
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        family("jvm_memory_pool_used_bytes", "gauge", "bytes", "Memory used, by pool.");
+        for (MemoryPoolMXBean pool : pools) {
+            MemoryUsage usage = pool.getUsage();
+            if (usage != null) {
+                sample("jvm_memory_pool_used_bytes", usage.getUsed(), "pool", pool.getName());
+            }
+        }
+
+        family("jvm_gc_collection_seconds", "summary", "seconds", "Time spent in garbage collections, by collector.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample("jvm_gc_collection_seconds_count", Math.max(0, gc.getCollectionCount()), "gc", gc.getName());
+            sample("jvm_gc_collection_seconds_sum", Math.max(0, gc.getCollectionTime()) / 1000.0, "gc", gc.getName());
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        family("jvm_threads", "gauge", "", "Live platform threads.");
+        sample("jvm_threads", threads.getThreadCount());
+        family("jvm_daemon_threads", "gauge", "", "Live platform daemon threads.");
+        sample("jvm_daemon_threads", threads.getDaemonThreadCount());
+    }
+
+    private void family(String name, String type, String unit, String help) throws IOException {
+        out.write("# TYPE ");
+        out.write(name);
+        out.write(' ');
+        out.write(type);
+        out.write('\n');
+        if (!unit.isEmpty()) {
+            out.write("# UNIT ");
+            out.write(name);
+            out.write(' ');
+            out.write(unit);
+            out.write('\n');
+        }
+        out.write("# HELP ");
+        out.write(name);
+        out.write(' ');
+        out.write(help);
+        out.write('\n');
+    }
+
+    private void sample(String name, long value, String... labels) throws IOException {
+        labels(name, labels);
+        out.write(Long.toString(value));
+        out.write('\n');
+    }
+
+    private void sample(String name, double value, String... labels) throws IOException {
+        labels(name, labels);
+        if (Double.isNaN(value)) {
+            out.write("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.write(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.write(Double.toString(value));
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes the name of a sample and its labels, given as name and value pairs.
+     */
+    private void labels(String name, String[] labels) throws IOException {
+        out.write(name);
+        if (labels.length > 0) {
+            out.write('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(labels[i]);
+                out.write("=\"");
+                escape(labels[i + 1]);
+                out.write('"');
+            }
+            out.write('}');
+        }
+        out.write(' ');
+    }
+
+    private void escape(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.write("\\\\");
+                case '"' -> out.write("\\\"");
+                case '\n' -> out.write("\\n");
+                default -> out.write(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package play.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The distribution of the durations of an operation.
+ */
+public interface Timer {
+
+    /**
+     * @return a stopwatch recording the elapsed time in this timer when stopped
+     */
+    Stopwatch start();
+
+    void record(long duration, TimeUnit unit);
+
+    interface Stopwatch {
+
+        void stop();
+    }
+}
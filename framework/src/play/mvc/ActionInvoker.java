@@ -1,48 +1,61 @@
 package play.mvc;
 
-import com.jamonapi.Monitor;
-import com.jamonapi.MonitorFactory;
 import play.Invoker;
 import play.Logger;
 import play.Play;
 import play.cache.Cache;
 import play.cache.CacheFor;
-import play.data.binding.Binder;
-import play.data.binding.ParamNode;
-import play.data.binding.RootParamNode;
+import play.cache.CachedResponse;
+import play.data.binding.BindingPlan;
 import play.data.parsing.UrlEncodedParser;
 import play.exceptions.ActionNotFoundException;
 import play.exceptions.JavaExecutionException;
 import play.exceptions.PlayException;
 import play.exceptions.UnexpectedException;
+import play.i18n.Lang;
 import play.libs.F;
+import play.metrics.Metrics;
+import play.metrics.Timer;
 import play.mvc.Http.Request;
 import play.mvc.Router.Route;
 import play.mvc.results.NoResult;
 import play.mvc.results.NotFound;
+import play.mvc.results.RenderCached;
+import play.mvc.results.RenderStatic;
 import play.mvc.results.Result;
-import play.utils.Java;
-import play.utils.Utils;
+import play.mvc.results.WebSocketResult;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.charset.Charset;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Invoke an action after an HTTP request.
  */
 public class ActionInvoker {
 
+    private static final boolean routeStats = Boolean.parseBoolean(Play.configuration.getProperty("play.routes.stats", "true"));
+    private static final String[] cacheForVary = Arrays.stream(Play.configuration.getProperty("http.cacheFor.vary", "").split(","))
+        .map(String::trim).filter(dimension -> !dimension.isEmpty()).toArray(String[]::new);
+
     @SuppressWarnings("unchecked")
     public static void resolve(Context context, Request request) {
         if (!Play.started) {
@@ -88,7 +101,40 @@ public class ActionInvoker {
     }
 
     public static void invoke(Context context) {
-        _invoke(context, ActionInvoker::invokeAction, ActionInvoker::prepareInvokeAction);
+        Route route = context.getRequest().route;
+        if (!routeStats || route == null) {
+            _invoke(context, ActionInvoker::invokeAction, ActionInvoker::prepareInvokeAction);
+            return;
+        }
+        RouteStats.Timing timing = new RouteStats.Timing();
+        context.setRouteTiming(timing);
+        try {
+            _invoke(context, ActionInvoker::invokeAction, ActionInvoker::prepareInvokeAction);
+        } catch (Invoker.AsyncRequest e) {
+            // Recorded once the continuation has run
+            e.getTask().onRedeem(p -> recordRouteStats(context, route, timing, p.getExceptionOrNull() != null));
+            throw e;
+        } catch (RuntimeException | Error e) {
+            recordRouteStats(context, route, timing, true);
+            throw e;
+        }
+        recordRouteStats(context, route, timing, false);
+    }
+
+    /**
+     * @param failed
+     *            Whether the request ended with an error, to be answered with a 500
+     */
+    private static void recordRouteStats(Context context, Route route, RouteStats.Timing timing, boolean failed) {
+        Http.Response response = context.getResponse();
+        long unsent = 0;
+        if (!failed) {
+            unsent = response.out.size();
+            if (response.direct instanceof File file) {
+                unsent += file.length();
+            }
+        }
+        route.stats.record(timing, failed ? 500 : response.status, unsent);
     }
 
     private static void _invoke(Context context, IInvokeAction action, IPrepareInvokeAction prepareAction) {
@@ -103,11 +149,19 @@ public class ActionInvoker {
             Play.pluginCollection.onActionInvocationResult(context, result);
 
             // OK there is a result to apply
+            RouteStats.Timing timing = context.getRouteTiming();
+            long commitStart = System.nanoTime();
+            long templateBefore = timing == null ? 0 : timing.get(RouteStats.Phase.TEMPLATE);
             // Save session & flash scope now
             context.getSession().save(context);
             context.getFlash().save(context);
 
             result.apply(context);
+            if (timing != null) {
+                // Streamed templates are rendered when applied
+                long template = timing.get(RouteStats.Phase.TEMPLATE) - templateBefore;
+                timing.add(RouteStats.Phase.COMMIT, System.nanoTime() - commitStart - template);
+            }
 
             Play.pluginCollection.afterActionInvocation(context);
 
@@ -176,12 +230,11 @@ public class ActionInvoker {
     }
 
     private static class InvokeActionResult {
-        private String cacheKey;
         private Result actionResult;
     }
 
     private static class WrapInvokeActionCtx {
-        private Monitor monitor;
+        private Timer.Stopwatch monitor;
     }
 
     private interface IInvokeAction {
@@ -189,7 +242,7 @@ public class ActionInvoker {
     }
 
     private static void wrapInvokeAction(Context context, WrapInvokeActionCtx wrapInvokeActionCtx, IInvokeAction invokeActionMethod) throws Exception {
-        Method actionMethod = context.getRequest().invokedMethod;
+        ActionPlan plan = plan(context);
         InvokeActionResult res = new InvokeActionResult();
 
         // 3. Invoke the action
@@ -197,17 +250,13 @@ public class ActionInvoker {
             invokeActionMethod.apply(context, res);
         } catch (Result result) {
             res.actionResult = result;
-            // Cache it if needed
-            if (res.cacheKey != null && !res.cacheKey.isEmpty()) {
-                Cache.set(res.cacheKey, res.actionResult, actionMethod.getAnnotation(CacheFor.class).value());
-            }
         } catch (JavaExecutionException e) {
-            invokeControllerCatchMethods(context, e.getCause());
+            invokeControllerCatchMethods(context, plan, e.getCause());
             throw e;
         }
 
         // @After
-        handleAfters(context);
+        handleAfters(context, plan);
 
         wrapInvokeActionCtx.monitor.stop();
         wrapInvokeActionCtx.monitor = null;
@@ -221,48 +270,195 @@ public class ActionInvoker {
     }
 
     private static void invokeAction(Context context, InvokeActionResult invokeActionResult) throws Exception {
+        ActionPlan plan = plan(context);
+
         // @Before
-        handleBefores(context);
+        handleBefores(context, plan);
 
         // Action
 
         // Check the cache (only for GET or HEAD)
-        if ((context.getRequest().method.equals("GET") || context.getRequest().method.equals("HEAD")) && context.getActionMethod().isAnnotationPresent(CacheFor.class)) {
-            CacheFor cacheFor = context.getActionMethod().getAnnotation(CacheFor.class);;
-            invokeActionResult.cacheKey = cacheFor.id();
-            if (invokeActionResult.cacheKey != null && invokeActionResult.cacheKey.isEmpty()) {
+        CacheFor cacheFor = plan.cacheFor;
+        if (cacheFor != null && (context.getRequest().method.equals("GET") || context.getRequest().method.equals("HEAD"))) {
+            String cacheKey = cacheFor.id();
+            if (cacheKey != null && cacheKey.isEmpty()) {
                 // Generate a cache key for this request
-                invokeActionResult.cacheKey = cacheFor.generator().getDeclaredConstructor().newInstance().generate(context.getRequest());
+                cacheKey = cacheFor.generator().getDeclaredConstructor().newInstance().generate(context.getRequest());
             }
-            if(invokeActionResult.cacheKey != null && !invokeActionResult.cacheKey.isEmpty()) {
-                invokeActionResult.actionResult = (Result) Cache.get(invokeActionResult.cacheKey);
+            if (cacheKey != null && !cacheKey.isEmpty()) {
+                String[] vary = cacheFor.vary().length > 0 ? cacheFor.vary() : cacheForVary;
+                String varyHeader = varyHeader(vary);
+                AtomicBoolean invoked = new AtomicBoolean();
+                AtomicReference<Result> uncached = new AtomicReference<>();
+                // Concurrent requests for a missing response wait for the one rendering it
+                Object cached = Cache.getOrLoad(cacheKey + varyKey(context, vary), cacheFor.value(), cacheFor.stale(),
+                        cacheFor.earlyExpiration(), () -> {
+                            invoked.set(true);
+                            return render(context, actionResult(context, plan), varyHeader, uncached);
+                        });
+                if (cached instanceof CachedResponse response) {
+                    // Answers If-None-Match with 304 itself
+                    invokeActionResult.actionResult = new RenderCached(response);
+                    return;
+                }
+                if (cached instanceof Result result) {
+                    // Cached as a result by an earlier version
+                    invokeActionResult.actionResult = result;
+                    return;
+                }
+                if (invoked.get()) {
+                    invokeActionResult.actionResult = uncached.get();
+                    return;
+                }
+                // The request that invoked the action could not cache its result
             }
         }
 
-        if (invokeActionResult.actionResult == null) {
-            inferResult(context, invokeControllerMethod(context, context.getActionMethod()));
+        inferResult(context, invokeControllerMethod(context, plan, plan.action, null));
+    }
+
+    /**
+     * Renders the result on a copy of the response, with what the action already set on it.
+     *
+     * @param uncached
+     *            Set to the result to apply instead when the response cannot be cached
+     * @return the response the result renders, or null if it cannot be cached
+     */
+    private static CachedResponse render(Context context, Result result, String vary, AtomicReference<Result> uncached) {
+        if (result == null || result instanceof RenderStatic || result instanceof WebSocketResult) {
+            uncached.set(result);
+            return null;
+        }
+        Http.Response response = context.getResponse();
+        Http.Response rendered = new Http.Response();
+        rendered.status = response.status;
+        rendered.contentType = response.contentType;
+        rendered.headers.putAll(response.headers);
+        rendered.cookies.putAll(response.cookies);
+        rendered.encoding = response.encoding;
+        rendered.out = new ByteArrayOutputStream();
+        context.setResponse(rendered);
+        try {
+            result.apply(context);
+        } finally {
+            context.setResponse(response);
+        }
+        // Files and streams are sent as they are read, cookies belong to one client
+        if (rendered.direct != null || !rendered.cookies.isEmpty()) {
+            uncached.set(new Rendered(rendered));
+            return null;
+        }
+        return CachedResponse.of(rendered, vary);
+    }
+
+    /**
+     * A result already rendered on a copy of the response, so that it is not applied twice.
+     */
+    private static final class Rendered extends Result {
+
+        // Results are thrown, never serialized
+        private final transient Http.Response rendered;
+
+        Rendered(Http.Response rendered) {
+            this.rendered = rendered;
+        }
+
+        @Override
+        public void apply(Context context) {
+            Http.Response response = context.getResponse();
+            response.status = rendered.status;
+            response.contentType = rendered.contentType;
+            response.headers.putAll(rendered.headers);
+            response.cookies.putAll(rendered.cookies);
+            response.direct = rendered.direct;
+            try {
+                rendered.out.writeTo(response.out);
+            } catch (IOException e) {
+                throw new UnexpectedException(e);
+            }
+        }
+    }
+
+    /**
+     * @param vary
+     *            Request header names, <code>lang</code> or <code>session.</code> followed by a session key
+     * @return the suffix of the cache key for the values of this request, empty if nothing varies
+     */
+    private static String varyKey(Context context, String[] vary) {
+        if (vary.length == 0) {
+            return "";
+        }
+        StringBuilder values = new StringBuilder();
+        for (String dimension : vary) {
+            Object value;
+            if (dimension.equals("lang")) {
+                value = Lang.get(context);
+            } else if (dimension.startsWith("session.")) {
+                value = context.getSession().get(dimension.substring("session.".length()));
+            } else {
+                Http.Header header = context.getRequest().headers.get(dimension.toLowerCase());
+                value = header != null ? String.join(",", header.values) : null;
+            }
+            values.append(value).append('\n');
+        }
+        try {
+            // Memcached keys cannot hold any value
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(values.toString().getBytes(StandardCharsets.UTF_8));
+            return "|" + HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnexpectedException(e);
+        }
+    }
+
+    private static String varyHeader(String[] vary) {
+        Set<String> headers = new LinkedHashSet<>();
+        for (String dimension : vary) {
+            if (dimension.equals("lang")) {
+                headers.add("Accept-Language");
+            } else if (dimension.startsWith("session.")) {
+                headers.add("Cookie");
+            } else {
+                headers.add(dimension);
+            }
+        }
+        return headers.isEmpty() ? null : String.join(", ", headers);
+    }
+
+    /**
+     * @return the result the action throws, or null if it has none
+     */
+    private static Result actionResult(Context context, ActionPlan plan) throws Exception {
+        try {
+            inferResult(context, invokeControllerMethod(context, plan, plan.action, null));
+        } catch (Result result) {
+            return result;
         }
+        return null;
     }
 
     private interface IPrepareInvokeAction {
-        Monitor apply(Context context) throws NoSuchFieldException, UnsupportedEncodingException, IllegalAccessException;
+        Timer.Stopwatch apply(Context context) throws NoSuchFieldException, UnsupportedEncodingException, IllegalAccessException;
     }
 
-    private static Monitor prepareInvokeAction(Context context) throws UnsupportedEncodingException {
+    private static Timer.Stopwatch prepareInvokeAction(Context context) throws UnsupportedEncodingException {
         initActionContext(context, context.getRequest(), context.getResponse());
 
         // 1. Prepare request params
         context.getParams().__mergeWith(context.getRequest().routeArgs);
 
         // add parameters from the URI query string
+        long start = System.nanoTime();
         Charset encoding = context.getRequest().encoding;
         context.getParams()
             ._mergeWith(UrlEncodedParser.parseQueryString(context.getRequest(), new ByteArrayInputStream(context.getRequest().querystring.getBytes(encoding))));
+        if (context.getRouteTiming() != null) {
+            context.getRouteTiming().add(RouteStats.Phase.BINDING, System.nanoTime() - start);
+        }
 
         Play.pluginCollection.beforeActionInvocation(context);
 
         // Monitoring
-        return MonitorFactory.start(context.getRequest().action + "()");
+        return Metrics.timer(context.getRequest().action + "()").start();
     }
 
     private static void initActionContext(Context context, Request request, Http.Response response) {
@@ -272,21 +468,12 @@ public class ActionInvoker {
         context.clear();
     }
 
-    private static void invokeControllerCatchMethods(Context context, Throwable throwable) throws Exception {
+    private static void invokeControllerCatchMethods(Context context, ActionPlan plan, Throwable throwable) throws Exception {
         // @Catch
         Object[] args = new Object[] {throwable};
-        List<Method> catches = Java.findAllAnnotatedMethods(getControllerClass(context), Catch.class);
-        for (Method mCatch : catches) {
-            Class[] exceptions = mCatch.getAnnotation(Catch.class).value();
-            if (exceptions.length == 0) {
-                exceptions = new Class[]{Exception.class};
-            }
-            for (Class exception : exceptions) {
-                if (exception.isInstance(args[0])) {
-                    mCatch.setAccessible(true);
-                    inferResult(context, invokeControllerMethod(context, mCatch, args));
-                    break;
-                }
+        for (ActionPlan.Handler mCatch : plan.catches) {
+            if (mCatch.handles(throwable)) {
+                inferResult(context, invokeControllerMethod(context, plan, mCatch, args));
             }
         }
     }
@@ -323,75 +510,15 @@ public class ActionInvoker {
         return null;
     }
 
-    private static void handleBefores(Context context) throws Exception {
-        Http.Request request = context.getRequest();
-
-        List<Method> befores = Java.findAllAnnotatedMethods(getControllerClass(context), Before.class);
-
-        for (Method before : befores) {
-            String[] unless = before.getAnnotation(Before.class).unless();
-            String[] only = before.getAnnotation(Before.class).only();
-            boolean skip = false;
-            for (String un : only) {
-                if (!un.contains(".")) {
-                    un = before.getDeclaringClass().getName().substring(12).replace("$", "") + "." + un;
-                }
-                if (un.equals(request.action)) {
-                    skip = false;
-                    break;
-                } else {
-                    skip = true;
-                }
-            }
-            for (String un : unless) {
-                if (!un.contains(".")) {
-                    un = before.getDeclaringClass().getName().substring(12).replace("$", "") + "." + un;
-                }
-                if (un.equals(request.action)) {
-                    skip = true;
-                    break;
-                }
-            }
-            if (!skip) {
-                before.setAccessible(true);
-                inferResult(context, invokeControllerMethod(context, before));
-            }
+    private static void handleBefores(Context context, ActionPlan plan) throws Exception {
+        for (ActionPlan.Handler before : plan.befores) {
+            inferResult(context, invokeControllerMethod(context, plan, before, null));
         }
     }
 
-    private static void handleAfters(Context context) throws Exception {
-        Http.Request request = context.getRequest();
-
-        List<Method> afters = Java.findAllAnnotatedMethods(getControllerClass(context), After.class);
-
-        for (Method after : afters) {
-            String[] unless = after.getAnnotation(After.class).unless();
-            String[] only = after.getAnnotation(After.class).only();
-            boolean skip = false;
-            for (String un : only) {
-                if (!un.contains(".")) {
-                    un = after.getDeclaringClass().getName().substring(12) + "." + un;
-                }
-                if (un.equals(request.action)) {
-                    skip = false;
-                    break;
-                } else {
-                    skip = true;
-                }
-            }
-            for (String un : unless) {
-                if (!un.contains(".")) {
-                    un = after.getDeclaringClass().getName().substring(12) + "." + un;
-                }
-                if (un.equals(request.action)) {
-                    skip = true;
-                    break;
-                }
-            }
-            if (!skip) {
-                after.setAccessible(true);
-                inferResult(context, invokeControllerMethod(context, after));
-            }
+    private static void handleAfters(Context context, ActionPlan plan) throws Exception {
+        for (ActionPlan.Handler after : plan.afters) {
+            inferResult(context, invokeControllerMethod(context, plan, after, null));
         }
     }
 
@@ -414,46 +541,17 @@ public class ActionInvoker {
         }
 
         try {
-            List<Method> allFinally = Java.findAllAnnotatedMethods(context.getRequest().controllerClass, Finally.class);
-
-            for (Method aFinally : allFinally) {
-                String[] unless = aFinally.getAnnotation(Finally.class).unless();
-                String[] only = aFinally.getAnnotation(Finally.class).only();
-                boolean skip = false;
-                for (String un : only) {
-                    if (!un.contains(".")) {
-                        un = aFinally.getDeclaringClass().getName().substring(12) + "." + un;
-                    }
-                    if (un.equals(context.getRequest().action)) {
-                        skip = false;
-                        break;
-                    } else {
-                        skip = true;
-                    }
-                }
-                for (String un : unless) {
-                    if (!un.contains(".")) {
-                        un = aFinally.getDeclaringClass().getName().substring(12) + "." + un;
-                    }
-                    if (un.equals(context.getRequest().action)) {
-                        skip = true;
-                        break;
-                    }
-                }
-                if (!skip) {
-                    aFinally.setAccessible(true);
-
-                    // check if method accepts Throwable as only parameter
-                    Class[] parameterTypes = aFinally.getParameterTypes();
-                    if (parameterTypes.length == 1 && parameterTypes[0] == Throwable.class) {
-                        // invoking @Finally method with caughtException as
-                        // parameter
-                        invokeControllerMethod(context, aFinally, new Object[] { caughtException });
-                    } else {
-                        // invoke @Finally-method the regular way without
-                        // caughtException
-                        invokeControllerMethod(context, aFinally, null);
-                    }
+            ActionPlan plan = plan(context);
+            for (ActionPlan.Handler aFinally : plan.finallies) {
+                // check if method accepts Throwable as only parameter
+                if (aFinally.takesThrowable) {
+                    // invoking @Finally method with caughtException as
+                    // parameter
+                    invokeControllerMethod(context, plan, aFinally, new Object[] { caughtException });
+                } else {
+                    // invoke @Finally-method the regular way without
+                    // caughtException
+                    invokeControllerMethod(context, plan, aFinally, null);
                 }
             }
         } catch (PlayException e) {
@@ -506,6 +604,26 @@ public class ActionInvoker {
         return invoke(method, methodClassInstance, args);
     }
 
+    private static Object invokeControllerMethod(Context context, ActionPlan plan, ActionPlan.Handler handler, Object[] forceArgs) throws Exception {
+        Request request = context.getRequest();
+
+        if (!handler.isStatic && request.controllerInstance == null) {
+            request.controllerInstance = plan.newController(context);
+        }
+
+        Object[] args = forceArgs != null
+            ? forceArgs
+            : getActionMethodArgs(context, handler.method, request.controllerInstance);
+
+        Object methodClassInstance = handler.isStatic
+            ? null
+            : handler.onController
+                ? request.controllerInstance
+                : handler.newDeclaringInstance(context);
+
+        return handler.invoke(methodClassInstance, args);
+    }
+
     static Object invoke(Method method, Object instance, Object ... realArgs) throws Exception {
         try {
             return method.invoke(instance, realArgs);
@@ -515,15 +633,19 @@ public class ActionInvoker {
             if (originalThrowable instanceof Result || originalThrowable instanceof PlayException)
                 throw (Exception) originalThrowable;
 
-            StackTraceElement element = PlayException.getInterestingStackTraceElement(originalThrowable);
-            if (element != null) {
-                throw new JavaExecutionException(Play.classes.getApplicationClass(element.getClassName()), element.getLineNumber(),
-                        originalThrowable);
-            }
-            throw new JavaExecutionException(originalThrowable);
+            throw executionException(originalThrowable);
         }
     }
 
+    static JavaExecutionException executionException(Throwable originalThrowable) {
+        StackTraceElement element = PlayException.getInterestingStackTraceElement(originalThrowable);
+        if (element != null) {
+            return new JavaExecutionException(Play.classes.getApplicationClass(element.getClassName()), element.getLineNumber(),
+                    originalThrowable);
+        }
+        return new JavaExecutionException(originalThrowable);
+    }
+
     public static Object[] getActionMethod(String fullAction) {
         Method actionMethod;
         Class<?> controllerClass;
@@ -560,8 +682,6 @@ public class ActionInvoker {
     }
 
     public static Object[] getActionMethodArgs(Context context, Method method, Object o) throws Exception {
-        String[] paramsNames = Java.parameterNames(method);
-
         // Check if we have already performed the bind operation
         Object[] rArgs = context.getCachedBoundActionMethodArgs().retrieveActionMethodArgs(method);
         if (rArgs != null) {
@@ -570,24 +690,10 @@ public class ActionInvoker {
             return rArgs;
         }
 
-        rArgs = new Object[method.getParameterTypes().length];
-        for (int i = 0; i < method.getParameterTypes().length; i++) {
-
-            Class<?> type = method.getParameterTypes()[i];
-            Map<String, String[]> params = new HashMap<>();
-
-            // In case of simple params, we don't want to parse the body.
-            if (type.equals(String.class) || Number.class.isAssignableFrom(type) || type.isPrimitive()) {
-                params.put(paramsNames[i], context.getParams().getAll(paramsNames[i]));
-            } else {
-                params.putAll(context.getParams().all());
-            }
-            Logger.trace("getActionMethodArgs name [" + paramsNames[i] + "] annotation ["
-                    + Utils.join(method.getParameterAnnotations()[i], " ") + "]");
-
-            RootParamNode root = ParamNode.convert(params);
-            rArgs[i] = Binder.bind(context, root, paramsNames[i], method.getParameterTypes()[i], method.getGenericParameterTypes()[i],
-                    method.getParameterAnnotations()[i], new Binder.MethodAndParamInfo(o, method, i + 1));
+        long start = System.nanoTime();
+        rArgs = BindingPlan.of(method).bind(context, o);
+        if (context.getRouteTiming() != null) {
+            context.getRouteTiming().add(RouteStats.Phase.BINDING, System.nanoTime() - start);
         }
 
         context.getCachedBoundActionMethodArgs().storeActionMethodArgs(method, rArgs);
@@ -597,4 +703,8 @@ public class ActionInvoker {
     private static Class<? extends PlayController> getControllerClass(Context context) {
         return context.getRequest().controllerClass;
     }
+
+    private static ActionPlan plan(Context context) {
+        return ActionPlan.of(context.getRequest().controllerClass, context.getRequest().invokedMethod);
+    }
 }
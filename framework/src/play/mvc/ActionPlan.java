@@ -0,0 +1,260 @@
+package play.mvc;
+
+import play.Play;
+import play.cache.CacheFor;
+import play.classloading.ApplicationClassloaderState;
+import play.exceptions.PlayException;
+import play.exceptions.UnexpectedException;
+import play.mvc.results.Result;
+import play.utils.Java;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What {@link ActionInvoker} needs to run an action, worked out on its first request instead of on every one: the
+ * {@link Before}, {@link After}, {@link Finally} and {@link Catch} interceptors that apply to it, already filtered
+ * with their <code>only</code> and <code>unless</code> lists, and method handles for the action, the interceptors and
+ * the controller constructors.
+ *
+ * <p>Plans are dropped when the application classes are reloaded.</p>
+ */
+final class ActionPlan {
+
+    private record Key(Class<?> controllerClass, Method action) {
+    }
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final MethodType staticType = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType instanceType = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final MethodType constructorType = MethodType.methodType(Object.class, Context.class);
+
+    private static final Map<Key, ActionPlan> plans = new ConcurrentHashMap<>();
+    private static volatile ApplicationClassloaderState classloaderState;
+
+    final Class<? extends PlayController> controllerClass;
+    final Handler action;
+    final List<Handler> befores;
+    final List<Handler> afters;
+    final List<Handler> finallies;
+    final List<Handler> catches;
+    final CacheFor cacheFor;
+    private final Instantiator controller;
+
+    private ActionPlan(Class<? extends PlayController> controllerClass, Method actionMethod) {
+        this.controllerClass = controllerClass;
+        this.controller = new Instantiator(controllerClass);
+        String action = controllerClass.getName().substring(12).replace("$", "") + "." + actionMethod.getName();
+        this.action = new Handler(actionMethod);
+        this.befores = interceptors(Before.class, action, true);
+        this.afters = interceptors(After.class, action, false);
+        this.finallies = interceptors(Finally.class, action, false);
+        List<Handler> catches = new ArrayList<>();
+        for (Method method : Java.findAllAnnotatedMethods(controllerClass, Catch.class)) {
+            Class<?>[] exceptions = method.getAnnotation(Catch.class).value();
+            catches.add(new Handler(method, exceptions.length == 0 ? new Class<?>[] {Exception.class} : exceptions));
+        }
+        this.catches = List.copyOf(catches);
+        this.cacheFor = actionMethod.getAnnotation(CacheFor.class);
+    }
+
+    /**
+     * @return the plan of an action of a controller, built on first use
+     */
+    static ActionPlan of(Class<? extends PlayController> controllerClass, Method action) {
+        ApplicationClassloaderState state = Play.classloader.currentState;
+        if (!state.equals(classloaderState)) {
+            synchronized (plans) {
+                if (!state.equals(classloaderState)) {
+                    plans.clear();
+                    classloaderState = state;
+                }
+            }
+        }
+        return plans.computeIfAbsent(new Key(controllerClass, action), key -> new ActionPlan(controllerClass, action));
+    }
+
+    PlayController newController(Context context) throws Exception {
+        return (PlayController) controller.newInstance(context);
+    }
+
+    /**
+     * Interceptors of a kind that apply to the action, in priority order. Unqualified action names in
+     * <code>only</code> and <code>unless</code> are relative to the class declaring the interceptor; only @Before
+     * strips the <code>$</code> of nested classes from it, as it always did.
+     */
+    private List<Handler> interceptors(Class<? extends Annotation> type, String action, boolean stripNested) {
+        List<Handler> handlers = new ArrayList<>();
+        for (Method method : Java.findAllAnnotatedMethods(controllerClass, type)) {
+            String[] only;
+            String[] unless;
+            switch (method.getAnnotation(type)) {
+                case Before before -> {
+                    only = before.only();
+                    unless = before.unless();
+                }
+                case After after -> {
+                    only = after.only();
+                    unless = after.unless();
+                }
+                case Finally aFinally -> {
+                    only = aFinally.only();
+                    unless = aFinally.unless();
+                }
+                default -> throw new IllegalArgumentException(type.getName());
+            }
+            String declaring = method.getDeclaringClass().getName().substring(12);
+            if (stripNested) {
+                declaring = declaring.replace("$", "");
+            }
+            if (applies(action, declaring, only, unless)) {
+                handlers.add(new Handler(method));
+            }
+        }
+        return List.copyOf(handlers);
+    }
+
+    private static boolean applies(String action, String declaring, String[] only, String[] unless) {
+        boolean skip = false;
+        for (String un : only) {
+            if (!un.contains(".")) {
+                un = declaring + "." + un;
+            }
+            if (un.equals(action)) {
+                skip = false;
+                break;
+            } else {
+                skip = true;
+            }
+        }
+        for (String un : unless) {
+            if (!un.contains(".")) {
+                un = declaring + "." + un;
+            }
+            if (un.equals(action)) {
+                skip = true;
+                break;
+            }
+        }
+        return !skip;
+    }
+
+    /**
+     * A controller method (the action or an interceptor) with a handle taking its arguments as an array.
+     */
+    final class Handler {
+
+        final Method method;
+        final boolean isStatic;
+        /**
+         * Whether it runs on the controller instance rather than on a new instance of its declaring class.
+         */
+        final boolean onController;
+        /**
+         * For @Finally: whether the caught exception is passed as only argument.
+         */
+        final boolean takesThrowable;
+        /**
+         * For @Catch: the exceptions it handles.
+         */
+        final Class<?>[] exceptions;
+        private final MethodHandle handle;
+        private final Instantiator declaring;
+
+        private Handler(Method method) {
+            this(method, null);
+        }
+
+        private Handler(Method method, Class<?>[] exceptions) {
+            this.method = method;
+            this.exceptions = exceptions;
+            this.isStatic = Modifier.isStatic(method.getModifiers());
+            this.onController = method.getDeclaringClass().isAssignableFrom(controllerClass);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            this.takesThrowable = parameterTypes.length == 1 && parameterTypes[0] == Throwable.class;
+            this.declaring = isStatic || onController ? null : new Instantiator(method.getDeclaringClass());
+            try {
+                method.setAccessible(true);
+                this.handle = lookup.unreflect(method)
+                        .asFixedArity()
+                        .asSpreader(Object[].class, parameterTypes.length)
+                        .asType(isStatic ? staticType : instanceType);
+            } catch (IllegalAccessException e) {
+                throw new UnexpectedException(e);
+            }
+        }
+
+        /**
+         * @return a new instance of the class declaring this method, for methods not on the controller
+         */
+        Object newDeclaringInstance(Context context) throws Exception {
+            return declaring.newInstance(context);
+        }
+
+        boolean handles(Throwable throwable) {
+            for (Class<?> exception : exceptions) {
+                if (exception.isInstance(throwable)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Object invoke(Object instance, Object[] args) throws Exception {
+            try {
+                return isStatic ? (Object) handle.invokeExact(args) : (Object) handle.invokeExact(instance, args);
+            } catch (Result | PlayException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw ActionInvoker.executionException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates instances with their <code>(Context)</code> constructor. When there is none, falls back to reflection so
+     * that the error is the same as before.
+     */
+    private static final class Instantiator {
+
+        private final Class<?> clazz;
+        private final MethodHandle constructor;
+
+        Instantiator(Class<?> clazz) {
+            this.clazz = clazz;
+            MethodHandle handle = null;
+            if (!Modifier.isAbstract(clazz.getModifiers())) {
+                try {
+                    Constructor<?> constructor = clazz.getDeclaredConstructor(Context.class);
+                    constructor.setAccessible(true);
+                    handle = lookup.unreflectConstructor(constructor).asType(constructorType);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // Reported when used
+                }
+            }
+            this.constructor = handle;
+        }
+
+        Object newInstance(Context context) throws Exception {
+            if (constructor == null) {
+                return clazz.getDeclaredConstructor(Context.class).newInstance(context);
+            }
+            try {
+                return (Object) constructor.invokeExact(context);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UnexpectedException(e);
+            }
+        }
+    }
+}
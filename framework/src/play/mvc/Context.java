@@ -29,6 +29,8 @@ public class Context {
 
 	private Invoker.InvocationContext invocationContext;
 
+	private RouteStats.Timing routeTiming;
+
 	public Context(Http.Request request, Http.Response response) {
 		this(request, response, null, null);
 	}
@@ -129,6 +131,17 @@ public class Context {
 		this.validation = validation;
 	}
 
+	/**
+	 * @return the costs of the request gathered so far for its route, null if they are not
+	 */
+	public RouteStats.Timing getRouteTiming() {
+		return routeTiming;
+	}
+
+	public void setRouteTiming(RouteStats.Timing routeTiming) {
+		this.routeTiming = routeTiming;
+	}
+
 	public Scope.RouteArgs getRouteArgs() {
 		return routeArgs;
 	}
@@ -244,6 +244,10 @@ public class Http {
          * Format (html,xml,json,text)
          */
         public String format = null;
+        /**
+         * The route that matched the request
+         */
+        public transient Router.Route route;
         /**
          * Full action (ex: Application.index)
          */
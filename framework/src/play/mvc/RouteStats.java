@@ -0,0 +1,143 @@
+package play.mvc;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import play.metrics.HdrMetricsRegistry;
+import play.metrics.MetricSnapshot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What the requests of a route cost: how long they took, how they were answered, how many bytes they sent, and where
+ * their time went. Each {@link Router.Route} has its own, updated by {@link ActionInvoker} without locking, so that
+ * the status page can tell which routes keep the invoker busy.
+ */
+public final class RouteStats {
+
+    /**
+     * Where the time of a request goes. The action is what is left once the others are taken out: the interceptors,
+     * the action itself, and the wait for an asynchronous result.
+     */
+    public enum Phase {
+        /**
+         * Parsing the query string and binding the arguments of the action and its interceptors.
+         */
+        BINDING,
+        ACTION,
+        /**
+         * Rendering the templates of the result.
+         */
+        TEMPLATE,
+        /**
+         * Saving the session and flash, and applying the result to the response.
+         */
+        COMMIT
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final ConcurrentHistogram latency = new ConcurrentHistogram(3);
+    private final LongAdder[] statuses = new LongAdder[5];
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder[] phases = new LongAdder[PHASES.length];
+
+    RouteStats() {
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = new LongAdder();
+        }
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param latency
+     *            The durations of the requests, in milliseconds
+     * @param statuses
+     *            The number of responses by status class, 1xx to 5xx
+     * @param bytes
+     *            The bytes of the response bodies
+     * @param phaseNanos
+     *            The total time spent in each {@link Phase}, in nanoseconds
+     */
+    public record Snapshot(MetricSnapshot latency, long[] statuses, long bytes, long[] phaseNanos) {
+
+        /**
+         * @return the average time of a request spent in a phase, in milliseconds
+         */
+        public double averageMillis(Phase phase) {
+            return latency.count() == 0 ? 0 : phaseNanos[phase.ordinal()] / 1_000_000.0 / latency.count();
+        }
+    }
+
+    /**
+     * The costs of one request, gathered while it runs.
+     */
+    public static final class Timing {
+
+        private final long start = System.nanoTime();
+        private final long[] phases = new long[PHASES.length];
+        private long bytes;
+
+        public void add(Phase phase, long nanos) {
+            phases[phase.ordinal()] += nanos;
+        }
+
+        public long get(Phase phase) {
+            return phases[phase.ordinal()];
+        }
+
+        /**
+         * @param sent
+         *            Bytes of the body already sent, as chunks
+         */
+        public void addBytes(long sent) {
+            bytes += sent;
+        }
+    }
+
+    /**
+     * Records a finished request.
+     *
+     * @param unsent
+     *            Bytes of the body that are still to be sent
+     */
+    void record(Timing timing, int status, long unsent) {
+        long total = Math.max(0, System.nanoTime() - timing.start);
+        latency.recordValue(total);
+        if (status >= 100 && status < 600) {
+            statuses[status / 100 - 1].increment();
+        }
+        bytes.add(timing.bytes + unsent);
+        long others = 0;
+        for (Phase phase : PHASES) {
+            if (phase != Phase.ACTION) {
+                phases[phase.ordinal()].add(timing.phases[phase.ordinal()]);
+                others += timing.phases[phase.ordinal()];
+            }
+        }
+        phases[Phase.ACTION.ordinal()].add(Math.max(0, total - others));
+    }
+
+    public Snapshot snapshot(String name) {
+        long[] statusCounts = new long[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            statusCounts[i] = statuses[i].sum();
+        }
+        long[] phaseNanos = new long[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            phaseNanos[i] = phases[i].sum();
+        }
+        return new Snapshot(HdrMetricsRegistry.timerSnapshot(name, latency), statusCounts, bytes.sum(), phaseNanos);
+    }
+
+    public void reset() {
+        latency.reset();
+        bytes.reset();
+        for (LongAdder status : statuses) {
+            status.reset();
+        }
+        for (LongAdder phase : phases) {
+            phase.reset();
+        }
+    }
+}
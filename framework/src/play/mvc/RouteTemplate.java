@@ -0,0 +1,129 @@
+package play.mvc;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A route path (or host) split once into its literal parts and its <code>(?&lt;name&gt;regex)</code> groups, so that
+ * reversing an action is a plain append of the encoded arguments instead of one regex replacement per argument.
+ */
+final class RouteTemplate {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    final String source;
+    private final String[] literals;
+    private final String[] names;
+    private final String[] groups;
+
+    private RouteTemplate(String source, String[] literals, String[] names, String[] groups) {
+        this.source = source;
+        this.literals = literals;
+        this.names = names;
+        this.groups = groups;
+    }
+
+    /**
+     * @param source
+     *            The route path or host; an optional trailing slash (<code>/?</code>) is dropped
+     */
+    static RouteTemplate compile(String source) {
+        String pattern = source.endsWith("/?") ? source.substring(0, source.length() - 2) : source;
+        List<String> literals = new ArrayList<>(4);
+        List<String> names = new ArrayList<>(3);
+        List<String> groups = new ArrayList<>(3);
+        int len = pattern.length();
+        int literalStart = 0;
+        int groupStart;
+        while ((groupStart = pattern.indexOf("(?<", literalStart)) != -1) {
+            int nameStart = groupStart + 3;
+            int closing = pattern.indexOf('>', nameStart);
+            if (closing == -1) {
+                break;
+            }
+            int depth = 1;
+            int end = closing + 1;
+            for (; end < len && depth > 0; end++) {
+                char c = pattern.charAt(end);
+                if (c == '\\') {
+                    end++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+            }
+            if (depth != 0) {
+                break;
+            }
+            literals.add(pattern.substring(literalStart, groupStart));
+            names.add(pattern.substring(nameStart, closing));
+            groups.add(pattern.substring(groupStart, end));
+            literalStart = end;
+        }
+        literals.add(pattern.substring(literalStart));
+        return new RouteTemplate(source, literals.toArray(new String[0]), names.toArray(new String[0]),
+                groups.toArray(new String[0]));
+    }
+
+    /**
+     * Fill in the groups from the arguments. Groups without a value are left as they are in the route.
+     */
+    String fill(Map<String, Object> args, Charset encoding) {
+        if (names.length == 0) {
+            return literals[0];
+        }
+        StringBuilder url = new StringBuilder(literals[0].length() + 32);
+        for (int i = 0; i < names.length; i++) {
+            url.append(literals[i]);
+            Object value = args.get(names[i]);
+            if (value == null) {
+                url.append(groups[i]);
+            } else if (value instanceof List<?> list) {
+                url.append(list.getFirst());
+            } else {
+                encode(url, value.toString(), encoding, true);
+            }
+        }
+        return url.append(literals[names.length]).toString();
+    }
+
+    /**
+     * URL-encode a value the way {@link java.net.URLEncoder} does, appending to <code>out</code>. In a path ':' and
+     * '@' are kept and spaces become <code>%20</code>; in a query string spaces become '+'.
+     */
+    static void encode(StringBuilder out, String value, Charset encoding, boolean path) {
+        int len = value.length();
+        int i = 0;
+        while (i < len) {
+            char c = value.charAt(i);
+            if (isSafe(c, path)) {
+                out.append(c);
+                i++;
+            } else if (c == ' ' && !path) {
+                out.append('+');
+                i++;
+            } else {
+                int start = i;
+                do {
+                    i++;
+                } while (i < len && !isSafe(value.charAt(i), path) && (path || value.charAt(i) != ' '));
+                for (byte b : value.substring(start, i).getBytes(encoding)) {
+                    out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+                }
+            }
+        }
+    }
+
+    private static boolean isSafe(char c, boolean path) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-'
+                || c == '*' || c == '_' || (path && (c == ':' || c == '@'));
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,160 @@
+package play.mvc;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import play.Play;
+
+/**
+ * Prefix tree over the literal leading segments of the routes, one tree per HTTP method.
+ *
+ * <p>A route is stored on the node reached by the complete path segments that appear before the first regular
+ * expression construct of its path (<code>/users/(?&lt;id&gt;[0-9]+)</code> is stored under <code>users</code>). A
+ * lookup walks the request path and collects the routes of every node crossed: any route able to match the path is
+ * among them, so only these candidates need their regex checked. Candidates are returned in the routes file order, so
+ * the first match is the same one the linear scan would have found.</p>
+ */
+final class RouteTrie {
+
+    private static final String REGEX_CHARS = "\\.[]{}()*+?^$|";
+
+    private final Router.Route[] routes;
+    private final Map<String, Node> roots = new HashMap<>(16);
+
+    RouteTrie(List<Router.Route> routes) {
+        this.routes = routes.toArray(new Router.Route[0]);
+        for (int i = 0; i < this.routes.length; i++) {
+            Router.Route route = this.routes[i];
+            String method = route.method == null ? "*" : route.method.toUpperCase();
+            Node node = roots.computeIfAbsent(method, m -> new Node());
+            for (String segment : literalSegments(route.path)) {
+                node = node.child(segment);
+            }
+            node.add(i);
+        }
+    }
+
+    int size() {
+        return routes.length;
+    }
+
+    /**
+     * @param method
+     *            The request method, null for any
+     * @param path
+     *            The request path
+     * @return the routes that may match, in declaration order
+     */
+    Router.Route[] candidates(String method, String path) {
+        if (path.equals(Play.ctxPath)) {
+            path = path + "/";
+        }
+        Found found = new Found();
+        if (method == null) {
+            for (Node root : roots.values()) {
+                collect(root, path, found);
+            }
+        } else {
+            String m = method.toUpperCase();
+            collect(roots.get(m), path, found);
+            collect(roots.get("*"), path, found);
+            if (m.equals("HEAD")) {
+                collect(roots.get("GET"), path, found);
+            }
+        }
+        Arrays.sort(found.indexes, 0, found.count);
+        Router.Route[] result = new Router.Route[found.count];
+        for (int i = 0; i < found.count; i++) {
+            result[i] = routes[found.indexes[i]];
+        }
+        return result;
+    }
+
+    private static void collect(Node node, String path, Found found) {
+        if (node == null) {
+            return;
+        }
+        found.add(node.routes);
+        int length = path.length();
+        int start = path.startsWith("/") ? 1 : length + 1;
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            node = node.children == null ? null : node.children.get(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            found.add(node.routes);
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Complete path segments before the first regex construct. A segment is only complete if it is followed by a '/'
+     * or ends a fully literal path. Empty segments (<code>//</code>) are kept, as the lookup walks them too.
+     */
+    static String[] literalSegments(String path) {
+        if (path == null || !path.startsWith("/")) {
+            return new String[0];
+        }
+        int literalEnd = path.length();
+        for (int i = 0; i < path.length(); i++) {
+            if (REGEX_CHARS.indexOf(path.charAt(i)) >= 0) {
+                literalEnd = i;
+                break;
+            }
+        }
+        String[] segments = path.substring(1).split("/", -1);
+        if (literalEnd == path.length()) {
+            // Static directories match past a trailing '/'
+            return path.endsWith("/") ? Arrays.copyOf(segments, segments.length - 1) : segments;
+        }
+        // The segment holding the regex construct is not complete
+        int complete = 0;
+        for (int i = 1; i < literalEnd; i++) {
+            if (path.charAt(i) == '/') {
+                complete++;
+            }
+        }
+        return Arrays.copyOf(segments, complete);
+    }
+
+    private static final class Node {
+
+        private Map<String, Node> children;
+        private int[] routes = new int[0];
+
+        Node child(String segment) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(segment, s -> new Node());
+        }
+
+        void add(int index) {
+            routes = Arrays.copyOf(routes, routes.length + 1);
+            routes[routes.length - 1] = index;
+        }
+    }
+
+    private static final class Found {
+
+        private int[] indexes = new int[8];
+        private int count;
+
+        void add(int[] more) {
+            if (more.length == 0) {
+                return;
+            }
+            if (count + more.length > indexes.length) {
+                indexes = Arrays.copyOf(indexes, Math.max(indexes.length * 2, count + more.length));
+            }
+            System.arraycopy(more, 0, indexes, count, more.length);
+            count += more.length;
+        }
+    }
+}
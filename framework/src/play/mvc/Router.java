@@ -3,7 +3,6 @@ package play.mvc;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,6 +15,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import play.Invoker;
 import play.Logger;
 import play.Play;
 import play.Play.Mode;
@@ -52,6 +52,7 @@ public class Router {
     public static void load(String prefix) {
         routes.clear();
         actionRoutesCache.clear();
+        trie = null;
         parse(Play.routes, prefix);
         lastLoading = System.currentTimeMillis();
         // Plugins
@@ -109,6 +110,8 @@ public class Router {
             position = routes.size();
         }
         routes.add(position, getRoute(method, path, action, params, headers));
+        trie = null;
+        actionRoutesCache.clear();
     }
 
     /**
@@ -214,6 +217,8 @@ public class Router {
      */
     public static void appendRoute(String method, String path, String action, String params, String headers, String sourceFile, int line) {
         routes.add(getRoute(method, path, action, params, headers, sourceFile, line));
+        trie = null;
+        actionRoutesCache.clear();
     }
 
     public static Route getRoute(String method, String path, String action, String params, String headers) {
@@ -252,6 +257,8 @@ public class Router {
      */
     public static void prependRoute(String method, String path, String action, String params, String headers) {
         routes.add(0, getRoute(method, path, action, params, headers));
+        trie = null;
+        actionRoutesCache.clear();
     }
 
     /**
@@ -346,8 +353,36 @@ public class Router {
      */
     public static final List<Route> routes = new CopyOnWriteArrayList<>();
 
+    /**
+     * Prefix tree over {@link #routes}, rebuilt on first use after the routes changed. Routes added or removed directly
+     * through the list are detected by its size.
+     */
+    private static volatile RouteTrie trie;
+
+    static RouteTrie trie() {
+        RouteTrie current = trie;
+        if (current == null || current.size() != routes.size()) {
+            current = new RouteTrie(routes);
+            trie = current;
+        }
+        return current;
+    }
+
+    /**
+     * Routes that may match a request, in priority order.
+     *
+     * @param method
+     *            The request method, null for any
+     * @param path
+     *            The request path
+     * @return the candidate routes
+     */
+    public static Route[] candidates(String method, String path) {
+        return trie().candidates(method, path);
+    }
+
     public static void routeOnlyStatic(Http.Request request) {
-        for (Route route : routes) {
+        for (Route route : candidates(request.method, request.path)) {
             try {
                 if (route.matches(request.method, request.path, request.format, request.domain) != null) {
                     break;
@@ -359,6 +394,27 @@ public class Router {
         }
     }
 
+    /**
+     * Admission class of the route matching a request, see <code>play.pool.priority.critical</code> and
+     * <code>play.pool.priority.low</code>.
+     *
+     * @param request
+     *            The (not yet routed) request
+     * @return the priority of the first matching route, NORMAL if none
+     */
+    public static Invoker.Priority priority(Http.Request request) {
+        for (Route route : candidates(request.method, request.path)) {
+            try {
+                if (route.matches(request.method, request.path, request.format, request.domain) != null) {
+                    return route.priority;
+                }
+            } catch (RenderStatic | NotFound e) {
+                break;
+            }
+        }
+        return Invoker.Priority.NORMAL;
+    }
+
     public static Route route(Http.Request request) {
         if (Logger.isTraceEnabled()) {
             Logger.trace("Route: " + request.path + " - " + request.querystring);
@@ -374,10 +430,11 @@ public class Router {
                 request.method = matcher.group("method");
             }
         }
-        for (Route route : routes) {
+        for (Route route : candidates(request.method, request.path)) {
             Map<String, String> args = route.matches(request.method, request.path, request.format, request.domain);
             if (args != null) {
                 request.routeArgs = args;
+                request.route = route;
                 request.action = route.action;
                 if (args.containsKey("format")) {
                     request.format = args.get("format");
@@ -415,7 +472,7 @@ public class Router {
     }
 
     public static Map<String, String> route(String method, String path, String headers, String host) {
-        for (Route route : routes) {
+        for (Route route : candidates(method, path)) {
             Map<String, String> args = route.matches(method, path, headers, host);
             if (args != null) {
                 args.put("action", route.action);
@@ -589,43 +646,13 @@ public class Router {
             }
             if (allRequiredArgsAreHere) {
                 StringBuilder queryString = new StringBuilder();
-                String path = route.path;
-                String host = route.host;
-                if (path.endsWith("/?")) {
-                    path = path.substring(0, path.length() - 2);
-                }
+                String path = route.pathTemplate().fill(args, encoding);
+                String host = route.hostTemplate().fill(args, encoding);
                 for (Map.Entry<String, Object> entry : args.entrySet()) {
                     String key = entry.getKey();
                     Object value = entry.getValue();
                     if (inPathArgs.contains(key) && value != null) {
-						// TODO JB: replace all this regex stuff and comment what it is for
-                        if (List.class.isAssignableFrom(value.getClass())) {
-                            @SuppressWarnings("unchecked")
-                            List<Object> vals = (List<Object>) value;
-                            path = path.replaceAll(
-								"\\(\\?<" + key + ">([^)]+)\\)",
-	                            vals.getFirst().toString()
-                            )
-	                            .replace("$", "\\$");
-                        } else {
-                            path = path.replaceAll(
-								"\\(\\?<" + key + ">([^)]+)\\)",
-	                            URLEncoder.encode(value.toString(), encoding)
-                                    .replace("$", "\\$")
-		                            .replace("%3A", ":")
-		                            .replace("%40", "@")
-		                            .replace("+", "%20")
-                            );
-
-							host = host.replaceAll(
-								"\\(\\?<" + key + ">([^)]+)\\)",
-	                            URLEncoder.encode(value.toString(), encoding)
-                                    .replace("$", "\\$")
-		                            .replace("%3A", ":")
-		                            .replace("%40", "@")
-		                            .replace("+", "%20")
-                            );
-                        }
+                        // Already in the path
                     } else if (route.staticArgs.containsKey(key)) {
                         // Do nothing -> The key is static
                     } else if (!argsbackup.containsKey(key)) {
@@ -636,36 +663,17 @@ public class Router {
                             @SuppressWarnings("unchecked")
                             List<Object> vals = (List<Object>) value;
                             for (Object object : vals) {
-                                queryString.append(URLEncoder.encode(key, encoding));
-                                queryString.append("=");
-                                String objStr = object.toString();
-                                // Special case to handle jsAction
-                                // tag
-                                if (objStr.startsWith(":") && objStr.length() > 1) {
-                                    queryString.append(':');
-                                    objStr = objStr.substring(1);
-                                }
-                                queryString.append(URLEncoder.encode(objStr + "", encoding));
-                                queryString.append("&");
+                                appendQueryParameter(queryString, key, object.toString(), encoding);
                             }
                         } else {
-                            queryString.append(URLEncoder.encode(key, encoding));
-                            queryString.append("=");
-                            String objStr = value.toString();
-                            // Special case to handle jsAction tag
-                            if (objStr.startsWith(":") && objStr.length() > 1) {
-                                queryString.append(':');
-                                objStr = objStr.substring(1);
-                            }
-                            queryString.append(URLEncoder.encode(objStr + "", encoding));
-                            queryString.append("&");
+                            appendQueryParameter(queryString, key, value.toString(), encoding);
                         }
                     }
                 }
-                String qs = queryString.toString();
-                if (qs.endsWith("&")) {
-                    qs = qs.substring(0, qs.length() - 1);
+                if (!queryString.isEmpty()) {
+                    queryString.setLength(queryString.length() - 1);
                 }
+                String qs = queryString.toString();
                 ActionDefinition actionDefinition = new ActionDefinition();
                 actionDefinition.url = qs.isEmpty() ? path : path + "?" + qs;
                 actionDefinition.method = route.method == null || route.method.equals("*") ? "GET" : route.method.toUpperCase();
@@ -683,6 +691,21 @@ public class Router {
         throw new NoRouteFoundException(action, args);
     }
 
+    private static void appendQueryParameter(StringBuilder queryString, String key, String value, Charset encoding) {
+        RouteTemplate.encode(queryString, key, encoding, false);
+        queryString.append('=');
+        // Special case to handle jsAction tag
+        if (value.startsWith(":") && value.length() > 1) {
+            queryString.append(':');
+            value = value.substring(1);
+        }
+        RouteTemplate.encode(queryString, value, encoding, false);
+        queryString.append('&');
+    }
+
+    /**
+     * Routes able to reverse an action, in declaration order. Cleared whenever the route list changes.
+     */
     private static final Map<String, List<ActionRoute>> actionRoutesCache = new ConcurrentHashMap<>();
 
     private static List<ActionRoute> getActionRoutes(String action) {
@@ -822,6 +845,7 @@ public class Router {
         Pattern actionPattern;
         List<String> actionArgs = new ArrayList<>(3);
         String staticDir;
+        private volatile String staticRoot;
         boolean staticFile;
         Pattern pattern;
         Pattern hostPattern;
@@ -830,11 +854,22 @@ public class Router {
         List<String> formats = new ArrayList<>(1);
         String host;
         Arg hostArg = null;
+        private volatile RouteTemplate pathTemplate;
+        private volatile RouteTemplate hostTemplate;
         public int routesFileLine;
         public String routesFile;
+        /**
+         * Admission class used when the Invoker queue is bounded.
+         */
+        public Invoker.Priority priority = Invoker.Priority.NORMAL;
+        /**
+         * What the requests of this route cost, see <code>play.routes.stats</code>.
+         */
+        public final RouteStats stats = new RouteStats();
         static final Pattern paramPattern = Pattern.compile("([a-zA-Z_0-9]+):'(.*)'");
 
         public void compute() {
+            this.priority = computePriority(action);
             this.host = "";
             this.hostPattern = Pattern.compile(".*");
             if (action.startsWith("staticDir:") || action.startsWith("staticFile:")) {
@@ -963,7 +998,42 @@ public class Router {
 
                 // Action pattern
                 actionPattern = Pattern.compile(action.replace(".", "\\."), Pattern.CASE_INSENSITIVE);
+                pathTemplate = RouteTemplate.compile(path);
+                hostTemplate = RouteTemplate.compile(host);
+            }
+        }
+
+        /**
+         * The path split into literals and arguments for reverse routing, recompiled if the path was changed since.
+         */
+        RouteTemplate pathTemplate() {
+            RouteTemplate template = pathTemplate;
+            if (template == null || !template.source.equals(path)) {
+                template = pathTemplate = RouteTemplate.compile(path);
             }
+            return template;
+        }
+
+        RouteTemplate hostTemplate() {
+            RouteTemplate template = hostTemplate;
+            if (template == null || !template.source.equals(host)) {
+                template = hostTemplate = RouteTemplate.compile(host);
+            }
+            return template;
+        }
+
+        static Invoker.Priority computePriority(String action) {
+            for (Invoker.Priority priority : Invoker.Priority.values()) {
+                String actions = Play.configuration.getProperty("play.pool.priority." + priority.name().toLowerCase());
+                if (actions != null) {
+                    for (String a : actions.split(",")) {
+                        if (a.trim().equalsIgnoreCase(action)) {
+                            return priority;
+                        }
+                    }
+                }
+            }
+            return Invoker.Priority.NORMAL;
         }
 
         public void addParams(String params) {
@@ -1057,7 +1127,7 @@ public class Router {
                             resource = matcher.group("resource");
                         }
                         try {
-                            String root = new File(staticDir).getCanonicalPath();
+                            String root = staticRoot();
                             String urlDecodedResource = Utils.urlDecodePath(resource);
                             String childResourceName = staticDir + (staticFile ? "" : "/" + urlDecodedResource);
                             String child = new File(childResourceName).getCanonicalPath();
@@ -1068,7 +1138,7 @@ public class Router {
                         }
                         throw new NotFound(resource);
                     } else {
-                        Map<String, String> localArgs = new HashMap<>();
+                        Map<String, String> localArgs = new HashMap<>((args.size() + staticArgs.size()) * 4 / 3 + 1);
                         for (Arg arg : args) {
                             // FIXME: Careful with the arguments that are not
                             // matching as they are part of the hostname
@@ -1093,6 +1163,18 @@ public class Router {
             return null;
         }
 
+        /**
+         * Canonical path of the static directory, resolved once.
+         */
+        private String staticRoot() throws IOException {
+            String root = staticRoot;
+            if (root == null) {
+                root = new File(staticDir).getCanonicalPath();
+                staticRoot = root;
+            }
+            return root;
+        }
+
         static class Arg {
 
             String name;
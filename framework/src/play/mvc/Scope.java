@@ -415,12 +415,14 @@ public class Scope {
             for (Map.Entry<String, String[]> entry : map.entrySet()) {
                 Utils.Maps.mergeValueInMap(data, entry.getKey(), entry.getValue());
             }
+            rootParamsNodeIsGenerated = false;
         }
 
         void __mergeWith(Map<String, String> map) {
             for (Map.Entry<String, String> entry : map.entrySet()) {
                 Utils.Maps.mergeValueInMap(data, entry.getKey(), entry.getValue());
             }
+            rootParamsNodeIsGenerated = false;
         }
 
         public Charset urlEncode(Http.Response response) {
@@ -0,0 +1,48 @@
+package play.mvc.results;
+
+import play.cache.CachedResponse;
+import play.exceptions.UnexpectedException;
+import play.mvc.Context;
+import play.mvc.Http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response cached by {@link play.cache.CacheFor}, or 304 Not Modified when the client already has it.
+ */
+public class RenderCached extends Result {
+
+    // Results are thrown, never serialized
+    private final transient CachedResponse cached;
+
+    public RenderCached(CachedResponse cached) {
+        this.cached = cached;
+    }
+
+    @Override
+    public void apply(Context context) {
+        try {
+            Http.Response response = context.getResponse();
+            for (Map.Entry<String, List<String>> header : cached.headers().entrySet()) {
+                response.headers.put(header.getKey(), new Http.Header(header.getKey(), new ArrayList<>(header.getValue())));
+            }
+            response.setHeader("ETag", cached.etag());
+            Http.Header ifNoneMatch = context.getRequest().headers.get("if-none-match");
+            if (ifNoneMatch != null && cached.matches(String.join(",", ifNoneMatch.values))) {
+                response.status = Http.StatusCode.NOT_MODIFIED;
+                return;
+            }
+            response.status = cached.status();
+            response.contentType = cached.contentType();
+            response.out.write(cached.body());
+        } catch (Exception e) {
+            throw new UnexpectedException(e);
+        }
+    }
+
+    public CachedResponse getCached() {
+        return cached;
+    }
+}
@@ -1,24 +1,41 @@
 package play.mvc.results;
 
+import play.Play;
+import play.cache.CacheFor;
 import play.exceptions.UnexpectedException;
 import play.libs.MimeTypes;
 import play.mvc.Context;
 import play.mvc.Http;
 import play.mvc.Http.Request;
 import play.mvc.Http.Response;
+import play.mvc.RouteStats;
+import play.server.PooledOutputStream;
+import play.templates.GroovyTemplate;
+import play.templates.StreamingWriter;
 import play.templates.Template;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 200 OK with a template rendering
+ *
+ * <p>With <code>template.streaming</code>, a template whose layouts are known beforehand is not rendered here but when
+ * the result is applied, straight to the client: {@link #getContent()} is then null.</p>
  */
 public class RenderTemplate extends Result {
 
+    private static final boolean streaming = Boolean.parseBoolean(Play.configuration.getProperty("template.streaming", "false"));
+    private static final int chunkSize = Integer.parseInt(Play.configuration.getProperty("template.streaming.chunkSize", "8192"));
+
     private final String name;
     private final String content;
     private final Map<String, Object> arguments;
-    private final long renderTime;
+    private long renderTime;
+    private final transient GroovyTemplate streamedTemplate;
+    private final transient List<GroovyTemplate> layouts;
 
     public RenderTemplate(Context context, Template template, Map<String, Object> arguments) {
         if (arguments.containsKey("out")) {
@@ -26,13 +43,54 @@ public class RenderTemplate extends Result {
         }
         this.name = template.name;
         this.arguments = arguments;
-        long start = System.currentTimeMillis();
+        this.layouts = streamingLayouts(context, template);
+        if (layouts != null) {
+            this.streamedTemplate = (GroovyTemplate) template;
+            this.content = null;
+            return;
+        }
+        this.streamedTemplate = null;
+        long start = System.nanoTime();
         this.content = template.render(context, arguments);
-        this.renderTime = System.currentTimeMillis() - start;
+        this.renderTime = rendered(context, start);
+    }
+
+    /**
+     * @return the time since the rendering started, in milliseconds, after counting it for the route
+     */
+    private static long rendered(Context context, long start) {
+        long nanos = System.nanoTime() - start;
+        if (context.getRouteTiming() != null) {
+            context.getRouteTiming().add(RouteStats.Phase.TEMPLATE, nanos);
+        }
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * @return the layouts of a template that is to be streamed, null if it is rendered here
+     */
+    private static List<GroovyTemplate> streamingLayouts(Context context, Template template) {
+        if (!streaming || !(template instanceof GroovyTemplate groovyTemplate)) {
+            return null;
+        }
+        // Only the server's pooled buffer can be sent in chunks
+        if (context.getResponse() == null || !(context.getResponse().out instanceof PooledOutputStream)) {
+            return null;
+        }
+        // A cached result must hold its content
+        Method actionMethod = context.getActionMethod();
+        if (actionMethod != null && actionMethod.isAnnotationPresent(CacheFor.class)) {
+            return null;
+        }
+        return groovyTemplate.streamingLayouts();
     }
 
     @Override
     public void apply(Context context) {
+        if (streamedTemplate != null) {
+            stream(context);
+            return;
+        }
         try {
             Http.Response response = context.getResponse();
 
@@ -44,6 +102,25 @@ public class RenderTemplate extends Result {
         }
     }
 
+    private void stream(Context context) {
+        Http.Response response = context.getResponse();
+        // Before the first chunk sends the headers
+        setContentTypeIfNotSet(response, MimeTypes.getContentType(response, name, "text/plain"));
+        long start = System.nanoTime();
+        StreamingWriter writer = new StreamingWriter(response, (PooledOutputStream) response.out, getEncoding(response), chunkSize,
+                !layouts.isEmpty());
+        streamedTemplate.stream(context, arguments, layouts, writer);
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UnexpectedException(e);
+        }
+        renderTime = rendered(context, start);
+        if (context.getRouteTiming() != null) {
+            context.getRouteTiming().addBytes(writer.getBytesSent());
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -3,28 +3,36 @@ package play.plugins;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
-import com.jamonapi.Monitor;
-import com.jamonapi.MonitorFactory;
-import com.jamonapi.utils.Misc;
 import org.apache.commons.lang3.StringUtils;
 import play.Invoker;
 import play.Logger;
 import play.Play;
 import play.Play.Mode;
 import play.PlayPlugin;
+import play.cache.Cache;
+import play.cache.CaffeineImpl;
+import play.metrics.MetricSnapshot;
+import play.metrics.Metrics;
+import play.metrics.OpenMetricsWriter;
 import play.mvc.Context;
 import play.mvc.Http;
 import play.mvc.Http.Header;
+import play.mvc.RouteStats;
+import play.mvc.Router;
 
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
-import static java.util.Arrays.asList;
-
 public class PlayStatusPlugin extends PlayPlugin {
 
+    // One sampling window per endpoint, so that polling one does not skew the other
+    private final Invoker.CarrierSampler textCarrierSampler = new Invoker.CarrierSampler();
+    private final Invoker.CarrierSampler jsonCarrierSampler = new Invoker.CarrierSampler();
+
     /**
      * Get the application status
      * 
@@ -70,6 +78,9 @@ public class PlayStatusPlugin extends PlayPlugin {
      *
      * You can ask the /@status using the authorization header and putting your status secret key in it. Prior to that
      * you would be required to start play with a -DstatusKey=yourkey
+     *
+     * /@metrics, with the same key, writes the metrics in the OpenMetrics text format for a scraper such as
+     * Prometheus, which sends it as a bearer token.
      */
     @Override
     public boolean rawInvocation(Context context) throws Exception {
@@ -91,9 +102,7 @@ public class PlayStatusPlugin extends PlayPlugin {
                 return true;
             }
             response.contentType = request.path.contains(".json") ? "application/json" : "text/plain";
-            Header authorization = request.headers.get("authorization");
-            String statusKey = Play.configuration.getProperty("application.statusKey", System.getProperty("statusKey"));
-            if (authorization != null && statusKey != null && statusKey.equals(authorization.value())) {
+            if (isAuthorized(request)) {
                 response.print(computeApplicationStatus(request.path.contains(".json")));
                 response.status = 200;
                 return true;
@@ -106,9 +115,39 @@ public class PlayStatusPlugin extends PlayPlugin {
             }
             return true;
         }
+        if (request.path.equals("/@metrics")) {
+            if (!Play.started) {
+                response.print("Application is not started");
+                response.status = 503;
+                return true;
+            }
+            if (!isAuthorized(request)) {
+                response.contentType = "text/plain";
+                response.print("Not authorized");
+                response.status = 401;
+                return true;
+            }
+            response.contentType = OpenMetricsWriter.CONTENT_TYPE;
+            new OpenMetricsWriter(new OutputStreamWriter(response.out, StandardCharsets.UTF_8)).writeAll();
+            response.status = 200;
+            return true;
+        }
         return super.rawInvocation(context);
     }
 
+    /**
+     * @return whether the Authorization header holds the status key, as is or as a bearer token
+     */
+    private static boolean isAuthorized(Http.Request request) {
+        Header authorization = request.headers.get("authorization");
+        String statusKey = Play.configuration.getProperty("application.statusKey", System.getProperty("statusKey"));
+        if (authorization == null || statusKey == null) {
+            return false;
+        }
+        String value = authorization.value();
+        return statusKey.equals(value) || (value != null && value.startsWith("Bearer ") && statusKey.equals(value.substring(7)));
+    }
+
     /**
      * Retrieve status about play core.
      */
@@ -164,29 +203,74 @@ public class PlayStatusPlugin extends PlayPlugin {
         out.println("Requests execution pool:");
         out.println("~~~~~~~~~~~~~~~~~~~~~~~~");
         out.println("Pool size: " + Invoker.executor.getPoolSize());
-        out.println("Active count: " + Invoker.executor.getActiveCount());
+        out.println("Active count: " + Invoker.getActiveCount());
         out.println("Scheduled task count: " + Invoker.executor.getTaskCount());
         out.println("Queue size: " + Invoker.executor.getQueue().size());
+        out.println("Waiting invocations: " + Invoker.getQueueSize());
+        out.println("Rejected (queue full): " + Invoker.getRejectedCount());
+        out.println("Shed (waited too long): " + Invoker.getShedCount());
         out.println();
-        try {
-            out.println("Monitors:");
-            out.println("~~~~~~~~");
-            List<Monitor> monitors = new ArrayList<>(asList(MonitorFactory.getRootMonitor().getMonitors()));
-            monitors.sort((m1, m2) -> Double.compare(m2.getTotal(), m1.getTotal()));
-            int lm = 10;
-            for (Monitor monitor : monitors) {
-                if (monitor.getLabel().length() > lm) {
-                    lm = monitor.getLabel().length();
-                }
+        if (Invoker.VirtualThreads.isEnabled()) {
+            out.println("Virtual threads:");
+            out.println("~~~~~~~~~~~~~~~~");
+            out.println("Active invocations: " + Invoker.VirtualThreads.getActiveCount());
+            out.println("Carrier threads: " + Invoker.VirtualThreads.getCarrierCount());
+            out.println("Carrier utilisation: " + String.format("%.1f%%", textCarrierSampler.sample() * 100));
+            out.println("Pinned events: " + Invoker.VirtualThreads.getPinnedCount());
+            out.println("Pinned time: " + Invoker.VirtualThreads.getPinnedMillis() + " ms");
+            out.println();
+        }
+        List<CaffeineImpl.RegionStats> regions = Cache.getStats();
+        if (!regions.isEmpty()) {
+            out.println("Cache:");
+            out.println("~~~~~~");
+            for (CaffeineImpl.RegionStats region : regions) {
+                out.println(String.format("%-16s -> %8d entries; %10d/%d bytes; %8d hits; %8d misses; %5.1f%% hit rate; %8d evictions;",
+                        region.name(), region.entries(), region.weight(), region.maxWeight(), region.hits(), region.misses(),
+                        region.hitRate() * 100, region.evictions()));
+            }
+            out.println();
+        }
+        List<RouteSnapshot> routes = routes();
+        if (!routes.isEmpty()) {
+            out.println("Routes:");
+            out.println("~~~~~~~");
+            int lr = 10;
+            for (RouteSnapshot route : routes) {
+                lr = Math.max(lr, route.name().length());
+            }
+            for (RouteSnapshot route : routes) {
+                MetricSnapshot latency = route.stats().latency();
+                long[] statuses = route.stats().statuses();
+                out.println(String.format("%-" + lr + "s -> %8d hits; %8.1f avg; %8.1f p50; %8.1f p99; %8.1f max; %d/%d/%d/%d/%d 1xx-5xx; %10d bytes; "
+                                + "%6.1f binding; %6.1f action; %6.1f template; %6.1f commit;",
+                        route.name(), latency.count(), latency.mean(), latency.p50(), latency.p99(), latency.max(), statuses[0], statuses[1],
+                        statuses[2], statuses[3], statuses[4], route.stats().bytes(), route.stats().averageMillis(RouteStats.Phase.BINDING),
+                        route.stats().averageMillis(RouteStats.Phase.ACTION), route.stats().averageMillis(RouteStats.Phase.TEMPLATE),
+                        route.stats().averageMillis(RouteStats.Phase.COMMIT)));
+            }
+            out.println();
+        }
+        out.println("Monitors:");
+        out.println("~~~~~~~~");
+        List<MetricSnapshot> metrics = metrics();
+        int lm = 10;
+        for (MetricSnapshot metric : metrics) {
+            if (metric.name().length() > lm) {
+                lm = metric.name().length();
             }
-            for (Monitor monitor : monitors) {
-                if (monitor.getHits() > 0) {
-                    out.println(String.format("%-" + lm + "s -> %8.0f hits; %8.1f avg; %8.1f min; %8.1f max;", monitor.getLabel(),
-                            monitor.getHits(), monitor.getAvg(), monitor.getMin(), monitor.getMax()));
+        }
+        for (MetricSnapshot metric : metrics) {
+            switch (metric.kind()) {
+                case COUNTER, GAUGE -> out.println(String.format("%-" + lm + "s -> %8d;", metric.name(), metric.count()));
+                default -> {
+                    if (metric.count() > 0) {
+                        out.println(String.format("%-" + lm + "s -> %8d hits; %8.1f avg; %8.1f min; %8.1f max; %8.1f p50; %8.1f p99; %8.1f p999;",
+                                metric.name(), metric.count(), metric.mean(), metric.min(), metric.max(), metric.p50(), metric.p99(),
+                                metric.p999()));
+                    }
                 }
             }
-        } catch (Exception e) {
-            out.println("No monitors found: " + e);
         }
         return sw.toString();
     }
@@ -219,29 +303,94 @@ public class PlayStatusPlugin extends PlayPlugin {
         {
             JsonObject pool = new JsonObject();
             pool.addProperty("size", Invoker.executor.getPoolSize());
-            pool.addProperty("active", Invoker.executor.getActiveCount());
+            pool.addProperty("active", Invoker.getActiveCount());
             pool.addProperty("scheduled", Invoker.executor.getTaskCount());
             pool.addProperty("queue", Invoker.executor.getQueue().size());
+            pool.addProperty("waiting", Invoker.getQueueSize());
+            pool.addProperty("rejected", Invoker.getRejectedCount());
+            pool.addProperty("shed", Invoker.getShedCount());
             status.add("pool", pool);
         }
 
+        if (Invoker.VirtualThreads.isEnabled()) {
+            JsonObject virtual = new JsonObject();
+            virtual.addProperty("active", Invoker.VirtualThreads.getActiveCount());
+            virtual.addProperty("carriers", Invoker.VirtualThreads.getCarrierCount());
+            virtual.addProperty("carrierUtilisation", jsonCarrierSampler.sample());
+            virtual.addProperty("pinned", Invoker.VirtualThreads.getPinnedCount());
+            virtual.addProperty("pinnedMillis", Invoker.VirtualThreads.getPinnedMillis());
+            status.add("virtualThreads", virtual);
+        }
+
+        List<CaffeineImpl.RegionStats> regions = Cache.getStats();
+        if (!regions.isEmpty()) {
+            JsonObject cache = new JsonObject();
+            for (CaffeineImpl.RegionStats region : regions) {
+                JsonObject o = new JsonObject();
+                o.addProperty("entries", region.entries());
+                o.addProperty("weight", region.weight());
+                o.addProperty("maxWeight", region.maxWeight());
+                o.addProperty("hits", region.hits());
+                o.addProperty("misses", region.misses());
+                o.addProperty("hitRate", region.hitRate());
+                o.addProperty("evictions", region.evictions());
+                cache.add(region.name(), o);
+            }
+            status.add("cache", cache);
+        }
+
+        {
+            JsonArray routes = new JsonArray();
+            for (RouteSnapshot route : routes()) {
+                MetricSnapshot latency = route.stats().latency();
+                JsonObject o = new JsonObject();
+                o.addProperty("method", route.route().method);
+                o.addProperty("path", route.route().path);
+                o.addProperty("action", route.route().action);
+                o.addProperty("hits", latency.count());
+                o.addProperty("avg", latency.mean());
+                o.addProperty("p50", latency.p50());
+                o.addProperty("p99", latency.p99());
+                o.addProperty("p999", latency.p999());
+                o.addProperty("max", latency.max());
+                JsonObject statuses = new JsonObject();
+                for (int i = 0; i < route.stats().statuses().length; i++) {
+                    statuses.addProperty((i + 1) + "xx", route.stats().statuses()[i]);
+                }
+                o.add("statuses", statuses);
+                o.addProperty("bytes", route.stats().bytes());
+                JsonObject phases = new JsonObject();
+                for (RouteStats.Phase phase : RouteStats.Phase.values()) {
+                    phases.addProperty(phase.name().toLowerCase(), route.stats().averageMillis(phase));
+                }
+                o.add("phases", phases);
+                routes.add(o);
+            }
+            status.add("routes", routes);
+        }
+
         {
             JsonArray monitors = new JsonArray();
-            try {
-                Object[][] data = Misc.sort(MonitorFactory.getRootMonitor().getBasicData(), 3, "desc");
-                for (Object[] row : data) {
-                    if (((Double) row[1]) > 0) {
-                        JsonObject o = new JsonObject();
-                        o.addProperty("name", row[0].toString());
-                        o.addProperty("hits", (Double) row[1]);
-                        o.addProperty("avg", (Double) row[2]);
-                        o.addProperty("min", (Double) row[6]);
-                        o.addProperty("max", (Double) row[7]);
-                        monitors.add(o);
+            for (MetricSnapshot metric : metrics()) {
+                if (metric.kind() == MetricSnapshot.Kind.COUNTER || metric.kind() == MetricSnapshot.Kind.GAUGE) {
+                    JsonObject o = new JsonObject();
+                    o.addProperty("name", metric.name());
+                    o.addProperty("value", metric.count());
+                    monitors.add(o);
+                } else if (metric.count() > 0) {
+                    JsonObject o = new JsonObject();
+                    o.addProperty("name", metric.name());
+                    o.addProperty("hits", metric.count());
+                    o.addProperty("avg", metric.mean());
+                    o.addProperty("min", metric.min());
+                    o.addProperty("max", metric.max());
+                    if (!Double.isNaN(metric.p50())) {
+                        o.addProperty("p50", metric.p50());
+                        o.addProperty("p99", metric.p99());
+                        o.addProperty("p999", metric.p999());
                     }
+                    monitors.add(o);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
             status.add("monitors", monitors);
         }
@@ -249,6 +398,36 @@ public class PlayStatusPlugin extends PlayPlugin {
         return status;
     }
 
+    private record RouteSnapshot(Router.Route route, String name, RouteStats.Snapshot stats) {
+    }
+
+    /**
+     * @return the routes that served requests, by decreasing total time
+     */
+    private static List<RouteSnapshot> routes() {
+        List<RouteSnapshot> routes = new ArrayList<>();
+        for (Router.Route route : Router.routes) {
+            String name = route.method + " " + route.path + " " + route.action;
+            RouteStats.Snapshot stats = route.stats.snapshot(name);
+            if (stats.latency().count() > 0) {
+                routes.add(new RouteSnapshot(route, name, stats));
+            }
+        }
+        routes.sort(Comparator.comparing((RouteSnapshot r) -> r.stats().latency().total(), Comparator.reverseOrder()));
+        return routes;
+    }
+
+    /**
+     * @return the metrics of the registry, counters and gauges first, then the others by decreasing total
+     */
+    private static List<MetricSnapshot> metrics() {
+        List<MetricSnapshot> metrics = new ArrayList<>(Metrics.registry().snapshot());
+        metrics.sort(Comparator.comparing((MetricSnapshot m) -> m.kind() != MetricSnapshot.Kind.COUNTER && m.kind() != MetricSnapshot.Kind.GAUGE)
+                .thenComparing(MetricSnapshot::total, Comparator.reverseOrder())
+                .thenComparing(MetricSnapshot::name));
+        return metrics;
+    }
+
     /**
      * Recursively visit all JVM threads
      */
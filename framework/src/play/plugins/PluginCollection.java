@@ -267,7 +267,7 @@ public class PluginCollection {
      */
     @SuppressWarnings({ "deprecation" })
     protected void initializePlugin(PlayPlugin plugin) {
-        Logger.trace("Initializing plugin " + plugin);
+        Logger.trace("Initializing plugin %s", plugin);
         // We're ready to call onLoad for this plugin.
         // must create a unique Play.plugins-list for this onLoad-method-call so
         // we can detect if some plugins are removed/disabled
@@ -347,7 +347,7 @@ public class PluginCollection {
                 }
 
                 updatePlayPluginsList();
-                Logger.trace("Plugin " + plugin + " enabled");
+                Logger.trace("Plugin %s enabled", plugin);
                 return true;
             }
         }
@@ -401,7 +401,7 @@ public class PluginCollection {
             }
 
             updatePlayPluginsList();
-            Logger.trace("Plugin " + plugin + " disabled");
+            Logger.trace("Plugin %s disabled", plugin);
             return true;
         }
         return false;
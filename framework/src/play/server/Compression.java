@@ -0,0 +1,258 @@
+package play.server;
+
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import play.Play;
+import play.libs.IO;
+import play.libs.MimeTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response compression, enabled with <code>http.compression</code>.
+ *
+ * <p>Dynamic responses go through a {@link ResponseCompressor} in the pipeline, which negotiates gzip, deflate and,
+ * when their libraries are on the classpath, brotli and zstd. Static files are handled by {@link FileService}: a
+ * precompressed <code>.br</code> or <code>.gz</code> sibling is served as is, otherwise small enough files are
+ * gzipped once and kept in a bounded in-memory cache.</p>
+ */
+public final class Compression {
+
+    public static final boolean enabled = Boolean.parseBoolean(Play.configuration.getProperty("http.compression", "false"));
+
+    /**
+     * Responses known to be smaller than this are sent uncompressed.
+     */
+    static final int minSize = Integer.parseInt(Play.configuration.getProperty("http.compression.minSize", "1024"));
+
+    /**
+     * Largest static file compressed on the fly.
+     */
+    static final long maxFileSize = Long.parseLong(Play.configuration.getProperty("http.compression.maxFileSize", "1048576"));
+
+    private static final Set<String> mimeTypes = mimeTypes(Play.configuration.getProperty("http.compression.types",
+            "html,txt,css,js,json,xml,svg,csv,application/javascript,application/json,application/xml,text/javascript"));
+
+    private static final VariantCache cache = new VariantCache(
+            Long.parseLong(Play.configuration.getProperty("http.compression.cacheSize", "16777216")));
+
+    private Compression() {
+    }
+
+    /**
+     * Types are given as mime types, or as file extensions resolved with {@link MimeTypes}.
+     */
+    private static Set<String> mimeTypes(String types) {
+        Set<String> result = new HashSet<>();
+        for (String type : types.split(",")) {
+            type = type.trim().toLowerCase();
+            if (type.isEmpty()) {
+                continue;
+            }
+            String mimeType = type.contains("/") ? type : MimeTypes.getMimeType("file." + type, null);
+            if (mimeType != null) {
+                result.add(mimeType);
+            }
+        }
+        return result;
+    }
+
+    static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mimeType = (semicolon == -1 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase();
+        return mimeTypes.contains(mimeType);
+    }
+
+    static void addVary(HttpResponse response) {
+        HttpHeaders headers = response.headers();
+        if (!headers.containsValue(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING, true)) {
+            headers.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        }
+    }
+
+    /**
+     * @return the quality the client gives to an encoding, 0 if it does not accept it
+     */
+    static float accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return 0;
+        }
+        float star = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String name = params[0].trim();
+            float q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase(encoding)) {
+                return q;
+            }
+            if (name.equals("*")) {
+                star = q;
+            }
+        }
+        return star;
+    }
+
+    /**
+     * A precompressed sibling of a static file the client accepts, brotli first.
+     *
+     * @return the sibling and its encoding, or null
+     */
+    static String[] precompressed(File file, String acceptEncoding) {
+        String[][] candidates = {{".br", "br"}, {".gz", "gzip"}};
+        for (String[] candidate : candidates) {
+            if (accepts(acceptEncoding, candidate[1]) > 0) {
+                File sibling = new File(file.getPath() + candidate[0]);
+                if (sibling.isFile() && sibling.lastModified() >= file.lastModified()) {
+                    return new String[] {sibling.getPath(), candidate[1]};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The gzipped content of a static file, from the cache when the file has not changed.
+     */
+    static byte[] gzipped(File file) throws IOException {
+        String key = file.getPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        byte[] compressed = cache.get(key, lastModified, length);
+        if (compressed == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(length / 4, 64));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(IO.readContent(file));
+            }
+            compressed = out.toByteArray();
+            cache.put(key, lastModified, length, compressed);
+        }
+        return compressed;
+    }
+
+    /**
+     * Compresses dynamic responses of the allowed types, leaving static files (that advertise byte ranges) to
+     * {@link FileService}.
+     */
+    public static class ResponseCompressor extends HttpContentCompressor {
+
+        public ResponseCompressor() {
+            super(0, compressionOptions());
+        }
+
+        private static CompressionOptions[] compressionOptions() {
+            List<CompressionOptions> options = new ArrayList<>(4);
+            if (Brotli.isAvailable()) {
+                options.add(StandardCompressionOptions.brotli());
+            }
+            if (Zstd.isAvailable()) {
+                options.add(StandardCompressionOptions.zstd());
+            }
+            options.add(StandardCompressionOptions.gzip());
+            options.add(StandardCompressionOptions.deflate());
+            return options.toArray(new CompressionOptions[0]);
+        }
+
+        @Override
+        protected Result beginEncode(HttpResponse response, String acceptEncoding) throws Exception {
+            HttpHeaders headers = response.headers();
+            if (headers.contains(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES, true)
+                    || !isCompressible(headers.get(HttpHeaderNames.CONTENT_TYPE))) {
+                return null;
+            }
+            addVary(response);
+            if (HttpUtil.getContentLength(response, Long.MAX_VALUE) < minSize) {
+                return null;
+            }
+            Result result = super.beginEncode(response, acceptEncoding);
+            if (result != null) {
+                // The encoded body is not the one a strong tag was computed from
+                String etag = headers.get(HttpHeaderNames.ETAG);
+                if (etag != null && etag.startsWith("\"")) {
+                    headers.set(HttpHeaderNames.ETAG, "W/" + etag);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Compressed static files, least recently used first out once their total size exceeds the budget.
+     */
+    private static final class VariantCache {
+
+        private record Variant(long lastModified, long length, byte[] content) {
+        }
+
+        private final long maxBytes;
+        private long bytes;
+        private final LinkedHashMap<String, Variant> variants = new LinkedHashMap<>(64, 0.75f, true);
+
+        VariantCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(String key, long lastModified, long length) {
+            Variant variant = variants.get(key);
+            if (variant == null) {
+                return null;
+            }
+            if (variant.lastModified != lastModified || variant.length != length) {
+                remove(key);
+                return null;
+            }
+            return variant.content;
+        }
+
+        synchronized void put(String key, long lastModified, long length, byte[] content) {
+            if (content.length > maxBytes) {
+                return;
+            }
+            remove(key);
+            variants.put(key, new Variant(lastModified, length, content));
+            bytes += content.length;
+            Iterator<Map.Entry<String, Variant>> eldest = variants.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().content.length;
+                eldest.remove();
+            }
+        }
+
+        private void remove(String key) {
+            Variant old = variants.remove(key);
+            if (old != null) {
+                bytes -= old.content.length;
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpChunkedInput;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
@@ -17,6 +18,7 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedFile;
 import io.netty.handler.stream.ChunkedInput;
@@ -37,7 +39,58 @@ import java.util.Locale;
 
 
 public class FileService  {
+    /**
+     * The content coding {@link #serve} sends a file with to this request, so that its entity tag can tell the
+     * representations apart.
+     *
+     * @return the coding, or null when the file is sent as is
+     */
+    static String contentCoding(File localFile, HttpRequest nettyRequest, Response response) {
+        if (!Compression.enabled || ByteRangeInput.accepts(nettyRequest)) {
+            return null;
+        }
+        String acceptEncoding = nettyRequest.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+        String[] precompressed = Compression.precompressed(localFile, acceptEncoding);
+        if (precompressed != null) {
+            return precompressed[1];
+        }
+        return Compression.isCompressible(contentType(localFile, response)) && gzipOnTheFly(localFile, acceptEncoding) ? "gzip" : null;
+    }
+
+    private static String contentType(File localFile, Response response) {
+        return response.contentType != null
+                ? response.contentType
+                : MimeTypes.getContentType(response, localFile.getName(), "text/plain");
+    }
+
+    private static boolean gzipOnTheFly(File localFile, String acceptEncoding) {
+        long length = localFile.length();
+        return length >= Compression.minSize && length <= Compression.maxFileSize
+                && Compression.accepts(acceptEncoding, "gzip") > 0;
+    }
+
     public static void serve(File localFile, HttpRequest nettyRequest, HttpResponse nettyResponse, ChannelHandlerContext ctx, Response response, Channel channel) throws FileNotFoundException {
+        if (Compression.enabled && !ByteRangeInput.accepts(nettyRequest)) {
+            String contentType = contentType(localFile, response);
+            String acceptEncoding = nettyRequest.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+
+            String[] precompressed = Compression.precompressed(localFile, acceptEncoding);
+            if (precompressed != null) {
+                if (nettyResponse.headers().get(HttpHeaderNames.CONTENT_TYPE) == null) {
+                    nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+                }
+                nettyResponse.headers().set(HttpHeaderNames.CONTENT_ENCODING, precompressed[1]);
+                Compression.addVary(nettyResponse);
+                localFile = new File(precompressed[0]);
+            } else if (Compression.isCompressible(contentType)) {
+                Compression.addVary(nettyResponse);
+                if (gzipOnTheFly(localFile, acceptEncoding)) {
+                    serveGzipped(localFile, contentType, nettyRequest, nettyResponse, ctx, channel);
+                    return;
+                }
+            }
+        }
+
         RandomAccessFile raf = new RandomAccessFile(localFile, "r");
 
         try {
@@ -77,8 +130,10 @@ public class FileService  {
 
 	        boolean zeroCopyPossible;
 	        if (!isRange && !isHead && fileLength > 0) {
-	        	// Zero-copy is only possible when there's no SSL/TLS in the pipeline
-	        	zeroCopyPossible = (ctx.pipeline().get(SslHandler.class) == null);
+	        	// Zero-copy is only possible when there's no SSL/TLS in the pipeline, and not
+	        	// on an HTTP/2 stream where the body has to be framed
+	        	zeroCopyPossible = (ctx.pipeline().get(SslHandler.class) == null)
+				        && !(ctx.channel() instanceof Http2StreamChannel);
 	        } else {
 		        zeroCopyPossible = false;
 	        }
@@ -134,7 +189,7 @@ public class FileService  {
 		
 		        // HEAD: send headers only (with correct framing) and close the file
 		        if (channel.isOpen()) {
-		        	handleWriteFuture("head", localFile, nettyRequest, channel.writeAndFlush(nettyResponse), isKeepAlive, raf);
+		        	handleWriteFuture("head", localFile, nettyRequest, PlayHandler.writeHeaders(ctx, nettyResponse), isKeepAlive, raf);
 		        } else {
 		        	Logger.debug("Try to write on a closed channel[keepAlive:%s]: Remote host may have closed the connection", String.valueOf(isKeepAlive));
 			        IOUtils.closeQuietly(raf);
@@ -153,6 +208,43 @@ public class FileService  {
 
     }
 
+	/**
+	 * Serve a static file gzipped on the fly, from the cache of compressed variants when possible.
+	 */
+	private static void serveGzipped(File localFile, String contentType, HttpRequest nettyRequest, HttpResponse nettyResponse, ChannelHandlerContext ctx, Channel channel) {
+		boolean isKeepAlive = HttpUtil.isKeepAlive(nettyRequest) && nettyRequest.protocolVersion().equals(HttpVersion.HTTP_1_1);
+		try {
+			byte[] compressed = Compression.gzipped(localFile);
+
+			nettyResponse.headers().remove(HttpHeaderNames.TRANSFER_ENCODING);
+			nettyResponse.headers().set(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+			HttpUtil.setContentLength(nettyResponse, compressed.length);
+			if (nettyResponse.headers().get(HttpHeaderNames.CONTENT_TYPE) == null) {
+				nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+			}
+
+			if (!channel.isOpen()) {
+				Logger.debug("Try to write on a closed channel[keepAlive:%s]: Remote host may have closed the connection", String.valueOf(isKeepAlive));
+				return;
+			}
+			ChannelFuture writeFuture;
+			if (nettyRequest.method().equals(HttpMethod.HEAD)) {
+				writeFuture = PlayHandler.writeHeaders(ctx, nettyResponse);
+			} else {
+				ctx.write(nettyResponse);
+				writeFuture = ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.wrappedBuffer(compressed)));
+			}
+			handleWriteFuture("gzip", localFile, nettyRequest, writeFuture, isKeepAlive, null);
+		} catch (Throwable exx) {
+			Logger.error(exx, "Error compressing %s", localFile);
+			try {
+				if (ctx.channel().isOpen()) {
+					ctx.channel().close();
+				}
+			} catch (Throwable ex) { /* Left empty */ }
+		}
+	}
+
 	private static void handleWriteFuture(String description, File localFile, HttpRequest nettyRequest, ChannelFuture writeFuture, boolean isKeepAlive, RandomAccessFile raf) {
 		if (writeFuture != null) {
 			writeFuture.addListener(_ -> IOUtils.closeQuietly(raf));
@@ -169,9 +261,9 @@ public class FileService  {
 		if (writeFuture != null) {
 			writeFuture.addListener(f -> {
 				if (!f.isSuccess()) {
-					Logger.debug(f.cause(), "FileService body write FAILED at " + description + " for file " + localFile.getAbsolutePath() + " for request " + nettyRequest.uri());
+					Logger.debug(f.cause(), "FileService body write FAILED at %s for file %s for request %s", description, localFile.getAbsolutePath(), nettyRequest.uri());
 				} else {
-					Logger.trace("FileService body write SUCCEEDED at " + description + " for file " + localFile.getAbsolutePath() + " for request " + nettyRequest.uri());
+					Logger.trace("FileService body write SUCCEEDED at %s for file %s for request %s", () -> description, localFile::getAbsolutePath, nettyRequest::uri);
 				}
 			});
 		}
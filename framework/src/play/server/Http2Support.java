@@ -0,0 +1,134 @@
+package play.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContextBuilder;
+import play.Logger;
+import play.Play;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * HTTP/2 on top of the HTTP/1.1 pipelines: each HTTP/2 stream gets its own child channel whose frames are converted
+ * to HTTP/1.1 messages, so the configured handlers (and PlayHandler) work unchanged. Negotiated with ALPN over TLS,
+ * and with prior knowledge for cleartext connections (h2c).
+ */
+public final class Http2Support {
+
+    /**
+     * Whether HTTP/2 is offered at all, see <code>play.netty.http2</code>.
+     */
+    public static final boolean enabled = Boolean.parseBoolean(Play.configuration.getProperty("play.netty.http2", "false"));
+
+    private static final long maxConcurrentStreams = Long.parseLong(Play.configuration.getProperty("play.netty.http2.maxConcurrentStreams", "128"));
+
+    private Http2Support() {
+    }
+
+    /**
+     * Offer h2 and http/1.1 through ALPN on the TLS context.
+     */
+    public static SslContextBuilder alpn(SslContextBuilder builder) {
+        return builder.applicationProtocolConfig(new ApplicationProtocolConfig(
+                ApplicationProtocolConfig.Protocol.ALPN,
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                ApplicationProtocolNames.HTTP_2,
+                ApplicationProtocolNames.HTTP_1_1));
+    }
+
+    /**
+     * Turn the connection into an HTTP/2 one.
+     *
+     * @param channel
+     *            The connection
+     * @param secure
+     *            Whether the connection is over TLS
+     * @param streamPipeline
+     *            Adds the HTTP/1.1 handlers to the pipeline of a new stream
+     */
+    public static void configure(Channel channel, boolean secure, Consumer<Channel> streamPipeline) {
+        channel.pipeline().addLast("http2FrameCodec", Http2FrameCodecBuilder.forServer()
+                .initialSettings(Http2Settings.defaultSettings().maxConcurrentStreams(maxConcurrentStreams))
+                .build());
+        channel.pipeline().addLast("http2Multiplex", new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+            @Override
+            protected void initChannel(Http2StreamChannel stream) {
+                stream.pipeline().addLast("http2StreamCodec", new Http2StreamFrameToHttpObjectCodec(true, secure));
+                streamPipeline.accept(stream);
+            }
+        }));
+    }
+
+    /**
+     * Completes the TLS pipeline once the protocol is negotiated.
+     */
+    public static ChannelHandler negotiation(Consumer<Channel> http2, Consumer<Channel> http1) {
+        return new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+            @Override
+            protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                    http2.accept(ctx.channel());
+                } else if (ApplicationProtocolNames.HTTP_1_1.equals(protocol)) {
+                    http1.accept(ctx.channel());
+                } else {
+                    Logger.debug("Unsupported protocol %s negotiated, closing the connection", protocol);
+                    ctx.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Completes the cleartext pipeline by looking at the first bytes: clients with prior knowledge of HTTP/2 start
+     * with the connection preface, anything else is HTTP/1.1.
+     */
+    public static ChannelHandler priorKnowledge(Consumer<Channel> http2, Consumer<Channel> http1) {
+        return new PrefaceDetector(http2, http1);
+    }
+
+    private static final class PrefaceDetector extends ByteToMessageDecoder {
+
+        private static final ByteBuf PREFACE = Http2CodecUtil.connectionPrefaceBuf();
+
+        private final Consumer<Channel> http2;
+        private final Consumer<Channel> http1;
+
+        PrefaceDetector(Consumer<Channel> http2, Consumer<Channel> http1) {
+            this.http2 = http2;
+            this.http1 = http1;
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            int length = Math.min(in.readableBytes(), PREFACE.readableBytes());
+            boolean isHttp2 = ByteBufUtil.equals(in, in.readerIndex(), PREFACE, PREFACE.readerIndex(), length);
+            if (isHttp2 && length < PREFACE.readableBytes()) {
+                // Wait for the rest of the preface
+                return;
+            }
+            if (isHttp2) {
+                http2.accept(ctx.channel());
+            } else {
+                http1.accept(ctx.channel());
+            }
+            // The bytes read so far are handed to the handlers just added
+            ctx.pipeline().remove(this);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package play.server;
+
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The value of the <code>Date</code> header, formatted once a second rather than for each response. While the server
+ * runs, a timer of its event loop keeps it current; otherwise it is refreshed when it is found to be out of date.
+ */
+public final class HttpDate {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+            .withZone(ZoneOffset.UTC);
+
+    private static volatile Stamp current = stamp(System.currentTimeMillis());
+    private static volatile ScheduledFuture<?> timer;
+
+    private record Stamp(long second, AsciiString value) {
+    }
+
+    private HttpDate() {
+    }
+
+    /**
+     * @return the current date, formatted for an HTTP header
+     */
+    public static AsciiString now() {
+        Stamp stamp = current;
+        if (timer == null) {
+            long now = System.currentTimeMillis();
+            if (now / 1000 != stamp.second) {
+                stamp = stamp(now);
+                current = stamp;
+            }
+        }
+        return stamp.value;
+    }
+
+    /**
+     * @return a date formatted for an HTTP header
+     */
+    public static String format(long millis) {
+        return FORMAT.format(Instant.ofEpochMilli(millis));
+    }
+
+    /**
+     * Refreshes the date at the start of each second on one of the executors of the group, until it shuts down.
+     */
+    static synchronized void schedule(EventExecutorGroup group) {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        current = stamp(System.currentTimeMillis());
+        long delay = 1000 - System.currentTimeMillis() % 1000;
+        ScheduledFuture<?> scheduled = group.next().scheduleAtFixedRate(
+                () -> current = stamp(System.currentTimeMillis()), delay, 1000, TimeUnit.MILLISECONDS);
+        timer = scheduled;
+        scheduled.addListener(f -> {
+            synchronized (HttpDate.class) {
+                if (timer == scheduled) {
+                    timer = null;
+                }
+            }
+        });
+    }
+
+    private static Stamp stamp(long millis) {
+        return new Stamp(millis / 1000, AsciiString.cached(format(millis)));
+    }
+}
@@ -1,12 +1,17 @@
 package play.server;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpContentEncoder;
 import io.netty.handler.codec.http.HttpDecoderConfig;
 import io.netty.handler.codec.http.HttpObjectDecoder;
+import io.netty.handler.codec.http.HttpObjectEncoder;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import play.Logger;
 import play.Play;
 import play.exceptions.UnexpectedException;
@@ -33,10 +38,26 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
 
 	@Override
 	protected void initChannel(SocketChannel ch) {
-		addConfiguredHandlers(ch, pipelineConfig, play.server.PlayHandler.class);
+		if (Http2Support.enabled) {
+			ch.pipeline().addLast("http2PriorKnowledge", Http2Support.priorKnowledge(
+					channel -> Http2Support.configure(channel, false,
+							stream -> addConfiguredHandlers(stream, pipelineConfig, play.server.PlayHandler.class, true)),
+					channel -> addConfiguredHandlers(channel, pipelineConfig, play.server.PlayHandler.class, false)));
+		} else {
+			addConfiguredHandlers(ch, pipelineConfig, play.server.PlayHandler.class);
+		}
 	}
 
 	protected final void addConfiguredHandlers(SocketChannel ch, String pipelineConfig, Class<?> requiredLastHandlerType) {
+		addConfiguredHandlers(ch, pipelineConfig, requiredLastHandlerType, false);
+	}
+
+	/**
+	 * @param http2Stream
+	 *            Whether the channel is an HTTP/2 stream, whose frames are already converted to HTTP/1.1 messages: the
+	 *            HTTP/1.1 codecs of the configuration are left out
+	 */
+	protected final void addConfiguredHandlers(Channel ch, String pipelineConfig, Class<?> requiredLastHandlerType, boolean http2Stream) {
 		ChannelPipeline pipeline = ch.pipeline();
 
 		String[] handlers = pipelineConfig.split(",");
@@ -58,6 +79,9 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
 			String fqcn = handlers[i].trim();
 			try {
 				ChannelHandler instance = newHandlerInstance(fqcn);
+				if (http2Stream && isHttp1Codec(instance)) {
+					continue;
+				}
 				if (instance != null) {
 					String name = simpleName(fqcn);
 					pipeline.addLast(name, instance);
@@ -67,11 +91,25 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
 			}
 		}
 
+		// Compress responses before they are chunked, unless the pipeline already does
+		if (Compression.enabled && pipeline.get(HttpContentEncoder.class) == null) {
+			ChannelHandlerContext chunked = pipeline.context(ChunkedWriteHandler.class);
+			if (chunked != null) {
+				pipeline.addBefore(chunked.name(), "ResponseCompressor", new Compression.ResponseCompressor());
+			} else {
+				pipeline.addLast("ResponseCompressor", new Compression.ResponseCompressor());
+			}
+		}
+
 		// Finally, the Play handler
 		String handlerName = lastInstance.getClass().getSimpleName();
 		pipeline.addLast(handlerName, lastInstance);
 	}
 
+	private static boolean isHttp1Codec(ChannelHandler handler) {
+		return handler instanceof HttpServerCodec || handler instanceof HttpObjectDecoder || handler instanceof HttpObjectEncoder;
+	}
+
 	protected static String simpleName(String fqcn) {
 		int dot = fqcn.lastIndexOf('.');
 		return dot > 0 ? fqcn.substring(dot + 1) : fqcn;
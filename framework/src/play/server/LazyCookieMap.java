@@ -0,0 +1,91 @@
+package play.server;
+
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
+import play.mvc.Http;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The cookies of a request, as {@link Http.Request#cookies} expects them, decoded from the Cookie header the first time
+ * one of them is asked for. Requests whose action never looks at a cookie never decode them. It can be changed like any
+ * map, and is serialized as a plain {@link HashMap}. They are decoded under the map's lock, as another thread may ask
+ * for them too.
+ */
+final class LazyCookieMap extends AbstractMap<String, Http.Cookie> implements Serializable {
+
+    // Never serialized itself, see writeReplace
+    private transient String header;
+    private transient Map<String, Http.Cookie> cookies;
+
+    /**
+     * @param header
+     *            The Cookie header of the request, or null if it has none
+     */
+    LazyCookieMap(String header) {
+        this.header = header;
+    }
+
+    private synchronized Map<String, Http.Cookie> cookies() {
+        if (cookies == null) {
+            cookies = new HashMap<>(16);
+            if (header != null) {
+                for (Cookie cookie : ServerCookieDecoder.STRICT.decode(header)) {
+                    Http.Cookie playCookie = new Http.Cookie();
+                    playCookie.name = cookie.name();
+                    playCookie.path = cookie.path();
+                    playCookie.domain = cookie.domain();
+                    playCookie.secure = cookie.isSecure();
+                    playCookie.value = cookie.value();
+                    playCookie.httpOnly = cookie.isHttpOnly();
+                    cookies.put(playCookie.name, playCookie);
+                }
+                header = null;
+            }
+        }
+        return cookies;
+    }
+
+    @Override
+    public Http.Cookie get(Object key) {
+        return cookies().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return cookies().containsKey(key);
+    }
+
+    @Override
+    public Http.Cookie put(String key, Http.Cookie value) {
+        return cookies().put(key, value);
+    }
+
+    @Override
+    public Http.Cookie remove(Object key) {
+        return cookies().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        cookies().clear();
+    }
+
+    @Override
+    public int size() {
+        return cookies().size();
+    }
+
+    @Override
+    public Set<Entry<String, Http.Cookie>> entrySet() {
+        return cookies().entrySet();
+    }
+
+    private Object writeReplace() {
+        return new HashMap<>(cookies());
+    }
+}
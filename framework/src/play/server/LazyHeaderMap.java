@@ -0,0 +1,114 @@
+package play.server;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import play.mvc.Http;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The headers of a request, as {@link Http.Request#headers} expects them, read from Netty's headers as they are asked
+ * for. A header is only copied once an action looks it up, and all of them only when the whole map is needed: when it
+ * is iterated or its size is asked. It can be changed like any map, and is serialized as a plain {@link HashMap}.
+ *
+ * <p>Looking a header up fills the map, so lookups and changes hold its lock: a job or a promise callback may read the
+ * headers while the request's thread does. Iterating it while it is changed is no safer than with any map.</p>
+ */
+final class LazyHeaderMap extends AbstractMap<String, Http.Header> implements Serializable {
+
+    /**
+     * Stands for a header known to be missing, or removed.
+     */
+    private static final Http.Header ABSENT = new Http.Header(null, List.of());
+
+    private final transient HttpHeaders source;
+    // Never serialized itself, see writeReplace
+    private final transient Map<String, Http.Header> headers = new HashMap<>(16);
+    private transient boolean complete;
+
+    LazyHeaderMap(HttpHeaders source) {
+        this.source = source;
+    }
+
+    @Override
+    public synchronized Http.Header get(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        Http.Header header = headers.get(name);
+        if (header == null && !complete) {
+            header = load(name);
+            headers.put(name, header);
+        }
+        return header == ABSENT ? null : header;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public synchronized Http.Header put(String key, Http.Header value) {
+        Http.Header previous = get(key);
+        headers.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public synchronized Http.Header remove(Object key) {
+        Http.Header previous = get(key);
+        if (complete) {
+            headers.remove(key);
+        } else if (key instanceof String name) {
+            headers.put(name, ABSENT);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        headers.clear();
+        complete = true;
+    }
+
+    @Override
+    public synchronized Set<Entry<String, Http.Header>> entrySet() {
+        if (!complete) {
+            for (String name : source.names()) {
+                String key = name.toLowerCase();
+                if (!headers.containsKey(key)) {
+                    headers.put(key, load(key));
+                }
+            }
+            for (Iterator<Http.Header> it = headers.values().iterator(); it.hasNext(); ) {
+                if (it.next() == ABSENT) {
+                    it.remove();
+                }
+            }
+            complete = true;
+        }
+        return headers.entrySet();
+    }
+
+    /**
+     * Header names are lower case, as they were when all of them were copied: other names are not looked up.
+     */
+    private Http.Header load(String name) {
+        if (!name.equals(name.toLowerCase())) {
+            return ABSENT;
+        }
+        List<String> values = source.getAll(name);
+        return values.isEmpty() ? ABSENT : new Http.Header(name, new ArrayList<>(values));
+    }
+
+    private synchronized Object writeReplace() {
+        return new HashMap<>(this);
+    }
+}
@@ -11,6 +11,7 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
@@ -28,7 +29,6 @@ import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
-import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
@@ -41,6 +41,7 @@ import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
 import io.netty.handler.stream.ChunkedInput;
 import io.netty.handler.stream.ChunkedStream;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.AsciiString;
 import io.netty.util.ReferenceCountUtil;
 import play.Invoker;
 import play.Invoker.InvocationContext;
@@ -64,11 +65,9 @@ import play.mvc.results.RenderStatic;
 import play.templates.JavaExtensions;
 import play.templates.TemplateLoader;
 import play.utils.HTTP;
-import play.utils.Utils;
 import play.vfs.VirtualFile;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
@@ -77,13 +76,13 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -111,9 +110,50 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
      */
     private static final Set<String> allowedHttpMethodOverride;
 
+    /**
+     * Value of the Retry-After header (in seconds) sent with the 503 responses of rejected requests, see
+     * <code>play.pool.maxQueue</code>.
+     */
+    private static final String retryAfter;
+
+    /**
+     * Whether buffered response bodies are kept in direct (off-heap) pooled buffers rather than heap ones, see
+     * <code>play.netty.directResponseBuffers</code>.
+     */
+    private static final boolean directResponseBuffers;
+
+    /**
+     * The Cache-Control header of the static files served in prod mode, see <code>http.cacheControl</code>.
+     */
+    private static final AsciiString staticCacheControl;
+
+    /**
+     * Whether static files are served with an entity tag, see <code>http.useETag</code>.
+     */
+    private static final boolean useEtag;
+
+    private static final AsciiString serverHeader = AsciiString.cached(signature);
+    private static final AsciiString TEXT_HTML = AsciiString.cached("text/html");
+    private static final AsciiString TEXT_PLAIN_UTF8 = AsciiString.cached("text/plain; charset=utf-8");
+
+    /**
+     * The Content-Type headers already built, by the content type of the response. Applications only use a handful,
+     * but nothing stops them from making one up per response, so the cache stops growing at some point.
+     */
+    private static final Map<String, ContentTypeHeader> contentTypeHeaders = new ConcurrentHashMap<>();
+    private static final int MAX_CONTENT_TYPE_HEADERS = 256;
+
+    private record ContentTypeHeader(Charset encoding, AsciiString value) {
+    }
+
     static {
         exposePlayServer = !"false".equals(Play.configuration.getProperty("http.exposePlayServer"));
+        retryAfter = Play.configuration.getProperty("play.pool.retryAfter", "1");
+        directResponseBuffers = !"false".equals(Play.configuration.getProperty("play.netty.directResponseBuffers"));
         allowedHttpMethodOverride = Stream.of(Play.configuration.getProperty("http.allowed.method.override", "").split(",")).collect(Collectors.toSet());
+        String maxAge = Play.configuration.getProperty("http.cacheControl", "3600");
+        staticCacheControl = maxAge.equals("0") ? HttpHeaderValues.NO_CACHE : AsciiString.cached("max-age=" + maxAge);
+        useEtag = Play.configuration.getProperty("http.useETag", "true").equals("true");
     }
 
     @Override
@@ -145,7 +185,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 
 					try {
 						// Buffered in memory output
-						response.out = new ByteArrayOutputStream();
+						response.out = new PooledOutputStream(ctx.alloc(), directResponseBuffers);
 
 						// Direct output (will be set later)
 						response.direct = null;
@@ -159,12 +199,19 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 							copyResponse(ctx, request, response, nettyRequest);
 						} else {
 							// Delegate to the Play framework
-							Invoker.invoke(new NettyInvocation(context, request, response, ctx, nettyRequest, msg));
-							closeRequest = false; // NettyInvocation runs in different thread and we don't want to release before it's finished
+							try {
+								Invoker.invoke(new NettyInvocation(context, request, response, ctx, nettyRequest, msg));
+								closeRequest = false; // NettyInvocation runs in different thread and we don't want to release before it's finished
+							} catch (RejectedExecutionException e) {
+								serve503(ctx, nettyRequest);
+							}
 						}
 					} finally {
-						if (closeRequest && request != null && request.body != null) {
-							request.body.close();
+						if (closeRequest) {
+							releaseBody(response);
+							if (request != null && request.body != null) {
+								request.body.close();
+							}
 						}
 					}
 				} catch (Exception ex) {
@@ -269,6 +316,27 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
             return true;
         }
 
+        @Override
+        public Invoker.Priority getPriority() {
+            return Router.priority(request);
+        }
+
+        @Override
+        protected boolean onQueueTimeout() {
+            try {
+                serve503(ctx, nettyRequest);
+            } finally {
+                if (request.body != null) {
+                    try {
+                        request.body.close();
+                    } catch (Exception e) {
+                        Logger.error(e, "Error closing request body");
+                    }
+                }
+            }
+            return true;
+        }
+
         @Override
         public InvocationContext getInvocationContext() {
             ActionInvoker.resolve(context, context.getRequest());
@@ -287,6 +355,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
                 }
                 super.run();
             } catch (Exception e) {
+                releaseBody(response);
                 PlayHandler.serve500(e, ctx, context, nettyRequest);
             }
 
@@ -297,6 +366,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 
         @Override
         protected void serve500(Exception e) {
+            releaseBody(response);
             PlayHandler.serve500(e, ctx, context, nettyRequest);
         }
 
@@ -324,10 +394,14 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
             Http.Request request = this.context.getRequest();
             Http.Response response = this.context.getResponse();
 
-            if (response.chunked) {
-                closeChunked(request, response, ctx, nettyRequest);
-            } else {
-                copyResponse(ctx, request, response, nettyRequest);
+            try {
+                if (response.chunked) {
+                    closeChunked(request, response, ctx, nettyRequest);
+                } else {
+                    copyResponse(ctx, request, response, nettyRequest);
+                }
+            } finally {
+                releaseBody(response);
             }
             if (Logger.isTraceEnabled()) {
                 Logger.trace("execute: end");
@@ -405,7 +479,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
             }
         }
 
-        nettyResponse.headers().set(HttpHeaderNames.DATE, Utils.getHttpDateFormatter().format(new Date()));
+        nettyResponse.headers().set(HttpHeaderNames.DATE, HttpDate.now());
 
         Map<String, Http.Cookie> cookies = response.cookies;
 
@@ -425,7 +499,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 
         if (!response.headers.containsKey(HttpHeaderNames.CACHE_CONTROL.toString()) && !response.headers.containsKey(HttpHeaderNames.EXPIRES.toString())
                 && !(response.direct instanceof File)) {
-            nettyResponse.headers().set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
+            nettyResponse.headers().set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE);
         }
 
     }
@@ -439,34 +513,34 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         boolean keepAlive = isKeepAlive(nettyRequest);
 
 	    final boolean isHead = nettyRequest.method().equals(HttpMethod.HEAD);
-	    final byte[] bytes = isHead ? new byte[0] : response.out.toByteArray();
+	    final int length = response.out.size();
 
 	    ByteBuf content = null;
 
         if (!nettyResponse.status().equals(HttpResponseStatus.NOT_MODIFIED)) {
-	        if (!isHead && bytes.length > 0) {
-				content = Unpooled.buffer(bytes.length);
-		        content.writeBytes(bytes);
+	        if (!isHead && length > 0) {
+		        content = takeBody(response);
 	        }
 
             if (Logger.isTraceEnabled()) {
-                Logger.trace("writeResponse: content length [" + response.out.size() + "]");
+                Logger.trace("writeResponse: content length [" + length + "]");
             }
-            setContentLength(nettyResponse, response.out.size());
+            setContentLength(nettyResponse, length);
         } else {
 	        // Ensure no Content-Length for 304 and no body
 	        nettyResponse.headers().remove(HttpHeaderNames.CONTENT_LENGTH);
         }
+        releaseBody(response);
 
         ChannelFuture f = null;
         if (ctx.channel().isActive()) {
 	        ctx.write(nettyResponse);
-			if (content != null) {
-				ctx.write(content);
-			}
-
-			f = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+			// As an HttpContent, for HTTP/2 streams and the response compressor
+			f = ctx.writeAndFlush(content != null ? new DefaultLastHttpContent(content) : LastHttpContent.EMPTY_LAST_CONTENT);
         } else {
+            if (content != null) {
+                content.release();
+            }
             Logger.debug("Try to write on a closed channel[keepAlive:%s]: Remote host may have closed the connection",
                     String.valueOf(keepAlive));
         }
@@ -481,6 +555,33 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * Write a response without a body. The empty last content ends it, which an HTTP/2 stream needs.
+     */
+    static ChannelFuture writeHeaders(ChannelHandlerContext ctx, HttpResponse nettyResponse) {
+        ctx.write(nettyResponse);
+        return ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    /**
+     * The buffered body as a buffer Netty can write, without copying it when it is already pooled.
+     */
+    private static ByteBuf takeBody(Response response) {
+        if (response.out instanceof PooledOutputStream pooled) {
+            return pooled.detach();
+        }
+        return Unpooled.wrappedBuffer(response.out.toByteArray());
+    }
+
+    /**
+     * Give the pooled body buffer back if the response is not written through {@link #writeResponse}.
+     */
+    static void releaseBody(Response response) {
+        if (response != null && response.out instanceof PooledOutputStream pooled) {
+            pooled.release();
+        }
+    }
+
     public void copyResponse(ChannelHandlerContext ctx, Request request, Response response, HttpRequest nettyRequest)
             throws Exception {
         if (Logger.isTraceEnabled()) {
@@ -492,23 +593,11 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         HttpResponse nettyResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
                 HttpResponseStatus.valueOf(response.status));
         if (exposePlayServer) {
-            nettyResponse.headers().set(HttpHeaderNames.SERVER, signature);
-        }
-
-        if (response.contentType != null) {
-            nettyResponse.headers()
-                .set(HttpHeaderNames.CONTENT_TYPE,
-                    response.contentType + (
-						response.contentType.startsWith("text/")
-                        && !response.contentType.contains("charset")
-							? "; charset=" + response.encoding
-                            : ""
-                    )
-                );
-        } else {
-            nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=" + response.encoding);
+            nettyResponse.headers().set(HttpHeaderNames.SERVER, serverHeader);
         }
 
+        nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, contentTypeHeader(response.contentType, response.encoding));
+
         addToResponse(response, nettyResponse);
 
         Object obj = response.direct;
@@ -527,11 +616,11 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         boolean keepAlive = isKeepAlive(nettyRequest);
         if (file != null && file.isFile()) {
             try {
-                addEtag(nettyRequest, nettyResponse, file);
+                addEtag(nettyRequest, nettyResponse, file, FileService.contentCoding(file, nettyRequest, response));
                 if (nettyResponse.status().equals(HttpResponseStatus.NOT_MODIFIED)) {
 
                     // Write the initial line and the header.
-                    ChannelFuture writeFuture = ctx.writeAndFlush(nettyResponse);
+                    ChannelFuture writeFuture = writeHeaders(ctx, nettyResponse);
 
                     if (!keepAlive) {
                         // Close the connection when the whole content is
@@ -563,7 +652,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 		        }
 	        } else {
 		        // No body for HEAD or 304. Just flush the headers.
-		        ChannelFuture writeFuture = ctx.writeAndFlush(nettyResponse);
+		        ChannelFuture writeFuture = writeHeaders(ctx, nettyResponse);
 		        if (!keepAlive) {
 			        writeFuture.addListener(ChannelFutureListener.CLOSE);
 		        }
@@ -584,7 +673,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 			        writeFuture.addListener(ChannelFutureListener.CLOSE);
 		        }
 	        } else {
-		        ChannelFuture writeFuture = ctx.writeAndFlush(nettyResponse);
+		        ChannelFuture writeFuture = writeHeaders(ctx, nettyResponse);
 		        if (!keepAlive) {
 			        writeFuture.addListener(ChannelFutureListener.CLOSE);
 		        }
@@ -722,36 +811,18 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         return request;
     }
 
+    /**
+     * @return the headers of the request, copied from Netty's as they are looked up
+     */
     protected static Map<String, Http.Header> getHeaders(HttpRequest nettyRequest) {
-        Map<String, Http.Header> headers = new HashMap<>(16);
-
-        for (String key : nettyRequest.headers().names()) {
-            Http.Header hd = new Http.Header();
-            hd.name = key.toLowerCase();
-            hd.values = new ArrayList<>(nettyRequest.headers().getAll(key));
-            headers.put(hd.name, hd);
-        }
-
-        return headers;
+        return new LazyHeaderMap(nettyRequest.headers());
     }
 
+    /**
+     * @return the cookies of the request, decoded when the first one is looked up
+     */
     protected static Map<String, Http.Cookie> getCookies(HttpRequest nettyRequest) {
-        Map<String, Http.Cookie> cookies = new HashMap<>(16);
-        String value = nettyRequest.headers().get(HttpHeaderNames.COOKIE);
-        if (value != null) {
-            Set<Cookie> cookieSet = ServerCookieDecoder.STRICT.decode(value);
-            for (Cookie cookie : cookieSet) {
-                Http.Cookie playCookie = new Http.Cookie();
-                playCookie.name = cookie.name();
-                playCookie.path = cookie.path();
-                playCookie.domain = cookie.domain();
-                playCookie.secure = cookie.isSecure();
-                playCookie.value = cookie.value();
-                playCookie.httpOnly = cookie.isHttpOnly();
-                cookies.put(playCookie.name, playCookie);
-            }
-        }
-        return cookies;
+        return new LazyCookieMap(nettyRequest.headers().get(HttpHeaderNames.COOKIE));
     }
 
     @Override
@@ -775,10 +846,10 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 
         FullHttpResponse nettyResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND);
         if (exposePlayServer) {
-            nettyResponse.headers().set(HttpHeaderNames.SERVER, signature);
+            nettyResponse.headers().set(HttpHeaderNames.SERVER, serverHeader);
         }
 
-        nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/html");
+        nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, TEXT_HTML);
         Map<String, Object> binding = getBindingForErrors(context, e, false);
 
         String format = context.getRequest().format;
@@ -802,6 +873,25 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * Answer a request the Invoker had no room for, telling the client when to come back.
+     */
+    public static void serve503(ChannelHandlerContext ctx, HttpRequest nettyRequest) {
+        FullHttpResponse nettyResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE);
+        if (exposePlayServer) {
+            nettyResponse.headers().set(HttpHeaderNames.SERVER, serverHeader);
+        }
+        nettyResponse.headers().set(HttpHeaderNames.RETRY_AFTER, retryAfter);
+        nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, TEXT_PLAIN_UTF8);
+        nettyResponse.content().writeBytes("Service Unavailable".getBytes(StandardCharsets.UTF_8));
+        setContentLength(nettyResponse, nettyResponse.content().readableBytes());
+
+        ChannelFuture writeFuture = ctx.channel().writeAndFlush(nettyResponse);
+        if (!isKeepAlive(nettyRequest)) {
+            writeFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
     protected static Map<String, Object> getBindingForErrors(Context context, Exception e, boolean isError) {
         Map<String, Object> binding = new HashMap<>();
         if (!isError) {
@@ -832,12 +922,19 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         FullHttpResponse nettyResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
                 HttpResponseStatus.INTERNAL_SERVER_ERROR);
         if (exposePlayServer) {
-            nettyResponse.headers().set(HttpHeaderNames.SERVER, signature);
+            nettyResponse.headers().set(HttpHeaderNames.SERVER, serverHeader);
         }
 
         Request request = context.getRequest();
         Response response = context.getResponse();
 
+        if (response.chunked) {
+            // The status and part of the body are already sent, all we can do is cut the response short
+            Logger.error(e, "Error while streaming the response to %s", request == null ? "?" : request.path);
+            ctx.close();
+            return;
+        }
+
         Charset encoding = response.encoding;
 
         try {
@@ -934,7 +1031,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         HttpResponse nettyResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
                 HttpResponseStatus.valueOf(response.status));
         if (exposePlayServer) {
-            nettyResponse.headers().set(HttpHeaderNames.SERVER, signature);
+            nettyResponse.headers().set(HttpHeaderNames.SERVER, serverHeader);
         }
         try {
             VirtualFile file = Play.getVirtualFile(renderStatic.file);
@@ -953,13 +1050,11 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
                 } else {
                     File localFile = file.getRealFile();
                     boolean keepAlive = isKeepAlive(nettyRequest);
-                    addEtag(nettyRequest, nettyResponse, localFile);
+                    addEtag(nettyRequest, nettyResponse, localFile, FileService.contentCoding(localFile, nettyRequest, response));
 
                     if (nettyResponse.status().equals(HttpResponseStatus.NOT_MODIFIED)) {
-                        Channel ch = ctx.channel();
-
                         // Write the initial line and the header.
-                        ChannelFuture writeFuture = ch.writeAndFlush(nettyResponse);
+                        ChannelFuture writeFuture = writeHeaders(ctx, nettyResponse);
                         if (!keepAlive) {
                             // Write the content.
                             writeFuture.addListener(ChannelFutureListener.CLOSE);
@@ -998,23 +1093,21 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         return HTTP.isModified(etag, last, browserEtag, ifModifiedSince);
     }
 
-    private static HttpResponse addEtag(HttpRequest nettyRequest, HttpResponse httpResponse, File file) {
+    /**
+     * @param contentCoding
+     *            The coding the file is sent with, part of the entity tag, or null
+     */
+    static HttpResponse addEtag(HttpRequest nettyRequest, HttpResponse httpResponse, File file, String contentCoding) {
         if (Play.mode == Play.Mode.DEV) {
-            httpResponse.headers().set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
+            httpResponse.headers().set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE);
         } else {
             // Check if Cache-Control header is not set
-            if (httpResponse.headers().get(HttpHeaderNames.CACHE_CONTROL) == null) {
-                String maxAge = Play.configuration.getProperty("http.cacheControl", "3600");
-                if (maxAge.equals("0")) {
-                    httpResponse.headers().set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
-                } else {
-                    httpResponse.headers().set(HttpHeaderNames.CACHE_CONTROL, "max-age=" + maxAge);
-                }
+            if (!httpResponse.headers().contains(HttpHeaderNames.CACHE_CONTROL)) {
+                httpResponse.headers().set(HttpHeaderNames.CACHE_CONTROL, staticCacheControl);
             }
         }
-        boolean useEtag = Play.configuration.getProperty("http.useETag", "true").equals("true");
         long last = file.lastModified();
-        String etag = "\"" + last + "-" + file.hashCode() + "\"";
+        String etag = "\"" + last + "-" + file.hashCode() + (contentCoding == null ? "" : "-" + contentCoding) + "\"";
         if (!isModified(etag, last, nettyRequest)) {
             if (nettyRequest.method().equals(HttpMethod.GET)) {
                 httpResponse.setStatus(HttpResponseStatus.NOT_MODIFIED);
@@ -1024,7 +1117,7 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
             }
 
         } else {
-            httpResponse.headers().set(HttpHeaderNames.LAST_MODIFIED, Utils.getHttpDateFormatter().format(new Date(last)));
+            httpResponse.headers().set(HttpHeaderNames.LAST_MODIFIED, HttpDate.format(last));
             if (useEtag) {
                 httpResponse.headers().set(HttpHeaderNames.ETAG, etag);
             }
@@ -1032,6 +1125,29 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         return httpResponse;
     }
 
+    /**
+     * @return the Content-Type header of a response, with the charset added to text types that have none
+     */
+    private static AsciiString contentTypeHeader(String contentType, Charset encoding) {
+        String key = contentType == null ? "" : contentType;
+        ContentTypeHeader header = contentTypeHeaders.get(key);
+        if (header != null && header.encoding.equals(encoding)) {
+            return header.value;
+        }
+        AsciiString value;
+        if (contentType == null) {
+            value = AsciiString.cached("text/plain; charset=" + encoding);
+        } else if (contentType.startsWith("text/") && !contentType.contains("charset")) {
+            value = AsciiString.cached(contentType + "; charset=" + encoding);
+        } else {
+            value = AsciiString.cached(contentType);
+        }
+        if (header != null || contentTypeHeaders.size() < MAX_CONTENT_TYPE_HEADERS) {
+            contentTypeHeaders.put(key, new ContentTypeHeader(encoding, value));
+        }
+        return value;
+    }
+
     public static boolean isKeepAlive(HttpMessage message) {
         return HttpHeaders.isKeepAlive(message) && message.getProtocolVersion().equals(HttpVersion.HTTP_1_1);
     }
@@ -1097,7 +1213,9 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
 			}
 
 			ByteBuf buf;
-			if (chunk instanceof byte[]) {
+			if (chunk instanceof ByteBuf) {
+				buf = (ByteBuf) chunk; // ownership is handed over, released by the write pipeline
+			} else if (chunk instanceof byte[]) {
 				buf = Unpooled.wrappedBuffer((byte[]) chunk); // refCnt = 1; will be released by the write pipeline
 			} else {
 				String s = (chunk == null) ? "" : chunk.toString();
@@ -1283,7 +1401,13 @@ public class PlayHandler extends ChannelInboundHandlerAdapter {
         Logger.trace("invoking");
 
 	    Context context = new Context(request, inbound, outbound);
-	    Invoker.invoke(new WebSocketInvocation(route, context, ctx, msg));
+	    try {
+		    Invoker.invoke(new WebSocketInvocation(route, context, ctx, msg));
+	    } catch (RejectedExecutionException e) {
+		    Logger.warn("Closing websocket %s: %s", request.path, e.getMessage());
+		    channels.remove(ctx);
+		    ctx.channel().close();
+	    }
     }
 
     @Override
@@ -0,0 +1,117 @@
+package play.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+/**
+ * Response body buffered in a pooled {@link ByteBuf} from the channel's allocator instead of a growing byte array.
+ *
+ * <p>It extends {@link ByteArrayOutputStream} so that <code>Http.Response.out</code> keeps its type, but none of the
+ * inherited storage is used. The buffer is only allocated on the first write. {@link #detach()} hands it over to
+ * Netty, which releases it once written; otherwise {@link #release()} must be called.</p>
+ */
+public class PooledOutputStream extends ByteArrayOutputStream {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ByteBufAllocator allocator;
+    private final boolean direct;
+    private ByteBuf buffer;
+
+    public PooledOutputStream(ByteBufAllocator allocator, boolean direct) {
+        super(0);
+        this.allocator = allocator;
+        this.direct = direct;
+    }
+
+    private ByteBuf buffer(int length) {
+        if (buffer == null) {
+            int capacity = Math.max(length, INITIAL_CAPACITY);
+            buffer = direct ? allocator.directBuffer(capacity) : allocator.heapBuffer(capacity);
+        }
+        return buffer;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        buffer(1).writeByte(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        buffer(len).writeBytes(b, off, len);
+    }
+
+    @Override
+    public void writeBytes(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        if (buffer != null) {
+            buffer.getBytes(buffer.readerIndex(), out, buffer.readableBytes());
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        if (buffer != null) {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public synchronized byte[] toByteArray() {
+        return buffer == null ? new byte[0] : ByteBufUtil.getBytes(buffer);
+    }
+
+    @Override
+    public synchronized int size() {
+        return buffer == null ? 0 : buffer.readableBytes();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toString(Charset.defaultCharset());
+    }
+
+    @Override
+    public synchronized String toString(String charsetName) {
+        return toString(Charset.forName(charsetName));
+    }
+
+    @Override
+    public synchronized String toString(Charset charset) {
+        return buffer == null ? "" : buffer.toString(charset);
+    }
+
+    /**
+     * Take the content out of this stream without copying it. The caller owns the returned buffer and must release
+     * it, usually by writing it to the channel.
+     */
+    public synchronized ByteBuf detach() {
+        ByteBuf content = buffer == null ? Unpooled.EMPTY_BUFFER : buffer;
+        buffer = null;
+        return content;
+    }
+
+    /**
+     * Give the buffer back to the pool if it was not detached. Safe to call more than once.
+     */
+    public synchronized void release() {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+}
@@ -3,11 +3,12 @@ package play.server;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultiThreadIoEventLoopGroup;
-import io.netty.channel.nio.NioIoHandler;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
@@ -21,7 +22,11 @@ import java.io.File;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Server {
 
@@ -30,10 +35,16 @@ public class Server {
 
     public static final String PID_FILE = "server.pid";
 
+	private Transport transport;
+	private int acceptors;
 	private EventLoopGroup bossGroup;
 	private EventLoopGroup workerGroup;
 	private Channel httpChannel;
 	private Channel httpsChannel;
+	/**
+	 * Additional listening sockets bound to the same ports with SO_REUSEPORT, one per extra acceptor.
+	 */
+	private final List<Channel> reusePortChannels = new ArrayList<>();
 
     public Server(String[] args) {
         System.setProperty("file.encoding", "utf-8");
@@ -85,16 +96,24 @@ public class Server {
     }
 
 	private void start(InetAddress httpAddress, InetAddress httpsAddress) {
-		bossGroup = new MultiThreadIoEventLoopGroup(NioIoHandler.newFactory());
-		workerGroup = new MultiThreadIoEventLoopGroup(NioIoHandler.newFactory());
+		Properties p = Play.configuration;
+		transport = Transport.select(p);
+		acceptors = transport.supportsReusePort() && Transport.reusePort(p)
+				? Math.max(1, Integer.parseInt(p.getProperty("play.netty.acceptors", "1")))
+				: 1;
+		int workers = Integer.parseInt(p.getProperty("play.netty.workers", "0"));
+		Logger.info("Using the %s transport", transport.name().toLowerCase());
+
+		bossGroup = new MultiThreadIoEventLoopGroup(acceptors, transport.ioHandlerFactory());
+		workerGroup = new MultiThreadIoEventLoopGroup(workers, transport.ioHandlerFactory());
+		HttpDate.schedule(workerGroup);
 
 		try {
 			if (httpPort != -1) {
 				ServerBootstrap http = baseBootstrap()
 						.childHandler(new HttpServerInitializer());
 
-				ChannelFuture bind = http.bind(new InetSocketAddress(httpAddress, httpPort)).syncUninterruptibly();
-				httpChannel = bind.channel();
+				httpChannel = bind(http, new InetSocketAddress(httpAddress, httpPort));
 				InetSocketAddress local = (InetSocketAddress) httpChannel.localAddress();
 				if (Play.mode == Mode.DEV) {
 					if (httpAddress == null) {
@@ -117,8 +136,7 @@ public class Server {
 				ServerBootstrap https = baseBootstrap()
 						.childHandler(new HttpsServerInitializer(sslCtx));
 
-				ChannelFuture bind = https.bind(new InetSocketAddress(httpsAddress, httpsPort)).syncUninterruptibly();
-				httpsChannel = bind.channel();
+				httpsChannel = bind(https, new InetSocketAddress(httpsAddress, httpsPort));
 				InetSocketAddress local = (InetSocketAddress) httpsChannel.localAddress();
 				if (Play.mode == Mode.DEV) {
 					if (httpsAddress == null) {
@@ -149,19 +167,75 @@ public class Server {
 	}
 
 	private ServerBootstrap baseBootstrap() {
-		return new ServerBootstrap()
+		ServerBootstrap bootstrap = new ServerBootstrap()
 				.group(bossGroup, workerGroup)
-				.channel(NioServerSocketChannel.class)
+				.channel(transport.serverChannel())
 				.option(ChannelOption.SO_BACKLOG, 1024)
+				.handler(Connections.counter)
 				.childOption(ChannelOption.TCP_NODELAY, true)
 				.childOption(ChannelOption.SO_KEEPALIVE, true);
+		transport.configure(bootstrap, Play.configuration);
+		return bootstrap;
+	}
+
+	/**
+	 * Counts the connections accepted by the listening sockets, and those still open.
+	 */
+	@ChannelHandler.Sharable
+	public static final class Connections extends ChannelInboundHandlerAdapter {
+
+		private static final Connections counter = new Connections();
+		private static final AtomicInteger open = new AtomicInteger();
+		private static final LongAdder accepted = new LongAdder();
+
+		private Connections() {
+		}
+
+		@Override
+		public void channelRead(ChannelHandlerContext ctx, Object msg) {
+			if (msg instanceof Channel child) {
+				accepted.increment();
+				open.incrementAndGet();
+				child.closeFuture().addListener(future -> open.decrementAndGet());
+			}
+			ctx.fireChannelRead(msg);
+		}
+
+		public static int getOpenCount() {
+			return open.get();
+		}
+
+		public static long getAcceptedCount() {
+			return accepted.sum();
+		}
+	}
+
+	/**
+	 * Bind the listening socket, and with SO_REUSEPORT one more socket per extra acceptor so the kernel spreads the
+	 * incoming connections over the boss threads.
+	 */
+	private Channel bind(ServerBootstrap bootstrap, InetSocketAddress address) {
+		ChannelFuture bind = bootstrap.bind(address).syncUninterruptibly();
+		Channel channel = bind.channel();
+		if (acceptors > 1) {
+			// Reuse the actual port, in case an ephemeral one was asked for
+			InetSocketAddress bound = new InetSocketAddress(address.getAddress(), ((InetSocketAddress) channel.localAddress()).getPort());
+			for (int i = 1; i < acceptors; i++) {
+				reusePortChannels.add(bootstrap.bind(bound).syncUninterruptibly().channel());
+			}
+		}
+		return channel;
 	}
 
 	// Replace this with your real key/cert loading (from Play config). This placeholder just makes it compile.
 	private SslContext buildServerSslContext() throws Exception {
 		// Example self-signed; in your code, load from configured cert + key files
 		SelfSignedCertificate ssc = new SelfSignedCertificate();
-		return SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey()).build();
+		SslContextBuilder builder = SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey());
+		if (Http2Support.enabled) {
+			Http2Support.alpn(builder);
+		}
+		return builder.build();
 	}
 
 	/** Block until the server is requested to stop. Call this from main. */
@@ -180,6 +254,9 @@ public class Server {
 	private void shutdown() {
 		try { if (httpChannel != null) httpChannel.close().syncUninterruptibly(); } catch (Exception ignore) {}
 		try { if (httpsChannel != null) httpsChannel.close().syncUninterruptibly(); } catch (Exception ignore) {}
+		for (Channel channel : reusePortChannels) {
+			try { channel.close().syncUninterruptibly(); } catch (Exception ignore) {}
+		}
 		try { if (bossGroup != null) bossGroup.shutdownGracefully().syncUninterruptibly(); } catch (Exception ignore) {}
 		try { if (workerGroup != null) workerGroup.shutdownGracefully().syncUninterruptibly(); } catch (Exception ignore) {}
 	}
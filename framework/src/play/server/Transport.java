@@ -0,0 +1,151 @@
+package play.server;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollIoHandler;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.channel.uring.IoUring;
+import io.netty.channel.uring.IoUringIoHandler;
+import io.netty.channel.uring.IoUringServerSocketChannel;
+import play.Logger;
+
+import java.util.Properties;
+
+/**
+ * The Netty transports the server can run on, chosen with <code>play.netty.transport</code>. The native ones need the
+ * netty native library for the platform on the classpath; when it is missing the server falls back to NIO.
+ */
+enum Transport {
+
+    IO_URING {
+        @Override
+        boolean isAvailable() {
+            return IoUring.isAvailable();
+        }
+
+        @Override
+        IoHandlerFactory ioHandlerFactory() {
+            return IoUringIoHandler.newFactory();
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannel() {
+            return IoUringServerSocketChannel.class;
+        }
+    },
+
+    EPOLL {
+        @Override
+        boolean isAvailable() {
+            return Epoll.isAvailable();
+        }
+
+        @Override
+        IoHandlerFactory ioHandlerFactory() {
+            return EpollIoHandler.newFactory();
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannel() {
+            return EpollServerSocketChannel.class;
+        }
+    },
+
+    NIO {
+        @Override
+        boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        IoHandlerFactory ioHandlerFactory() {
+            return NioIoHandler.newFactory();
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannel() {
+            return NioServerSocketChannel.class;
+        }
+
+        @Override
+        boolean supportsReusePort() {
+            return false;
+        }
+
+        @Override
+        void configure(ServerBootstrap bootstrap, Properties configuration) {
+            // Socket options below are only available on the native transports
+        }
+    };
+
+    abstract boolean isAvailable();
+
+    abstract IoHandlerFactory ioHandlerFactory();
+
+    abstract Class<? extends ServerChannel> serverChannel();
+
+    boolean supportsReusePort() {
+        return true;
+    }
+
+    /**
+     * Apply the socket options of <code>application.conf</code> that only native transports know about.
+     */
+    void configure(ServerBootstrap bootstrap, Properties configuration) {
+        if (reusePort(configuration)) {
+            bootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+        }
+        int fastOpen = Integer.parseInt(configuration.getProperty("play.netty.tcpFastOpen", "0"));
+        if (fastOpen > 0) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN, fastOpen);
+        }
+    }
+
+    static boolean reusePort(Properties configuration) {
+        return Boolean.parseBoolean(configuration.getProperty("play.netty.reusePort", "false"));
+    }
+
+    /**
+     * @param configuration
+     *            The application configuration
+     * @return the configured transport, or the best available one for <code>auto</code>, NIO if it can't be loaded
+     */
+    static Transport select(Properties configuration) {
+        String name = configuration.getProperty("play.netty.transport", "auto").trim();
+        if (name.equalsIgnoreCase("auto")) {
+            for (Transport transport : values()) {
+                if (transport.tryAvailable()) {
+                    return transport;
+                }
+            }
+            return NIO;
+        }
+        Transport transport;
+        try {
+            transport = valueOf(name.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            Logger.warn("Unknown play.netty.transport %s, using nio", name);
+            return NIO;
+        }
+        if (!transport.tryAvailable()) {
+            Logger.warn("The %s transport is not available on this platform, using nio", name);
+            return NIO;
+        }
+        return transport;
+    }
+
+    private boolean tryAvailable() {
+        try {
+            return isAvailable();
+        } catch (LinkageError e) {
+            // The transport classes are not on the classpath
+            return false;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import play.Logger;
 import play.Play;
+import play.server.Http2Support;
 import play.server.HttpServerInitializer;
 
 import javax.net.ssl.SSLEngine;
@@ -59,9 +60,26 @@ public class HttpsServerInitializer extends HttpServerInitializer {
 			default: /* none */
 		}
 
-		ch.pipeline().addLast("ssl", new SslHandler(engine));
+		// The SslHandler would close the connection of a plain HTTP client, before anything could redirect it
+		ch.pipeline().addLast("plainHttp", new PlainHttpRedirector());
+		SslHandler sslHandler = new SslHandler(engine);
+		ch.pipeline().addLast("ssl", sslHandler);
+		// Here rather than in the last handler, which is only added once ALPN is done with HTTP/2
+		sslHandler.handshakeFuture().addListener(future -> {
+			if (!future.isSuccess()) {
+				Logger.debug(future.cause(), "Invalid certificate");
+			}
+		});
 
 		// 2) Delegate to base to add the rest of the pipeline, enforcing the last handler type
-		addConfiguredHandlers(ch, sslPipelineConfig, play.server.ssl.SslPlayHandler.class);
+		if (Http2Support.enabled) {
+			// Wait for ALPN to tell which protocol the client speaks
+			ch.pipeline().addLast("alpn", Http2Support.negotiation(
+					channel -> Http2Support.configure(channel, true,
+							stream -> addConfiguredHandlers(stream, sslPipelineConfig, play.server.ssl.SslPlayHandler.class, true)),
+					channel -> addConfiguredHandlers(channel, sslPipelineConfig, play.server.ssl.SslPlayHandler.class, false)));
+		} else {
+			addConfiguredHandlers(ch, sslPipelineConfig, play.server.ssl.SslPlayHandler.class);
+		}
 	}
 }
\ No newline at end of file
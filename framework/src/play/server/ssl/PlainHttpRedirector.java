@@ -0,0 +1,67 @@
+package play.server.ssl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslHandler;
+import play.Logger;
+import play.server.Server;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Sits in front of the SslHandler until the first record: redirects to https:// the clients speaking plain HTTP to
+ * the HTTPS port, which the SslHandler would close the connection on, and steps aside for the others.
+ */
+class PlainHttpRedirector extends ByteToMessageDecoder {
+
+    /**
+     * Length of a TLS record header, what {@link SslHandler#isEncrypted(ByteBuf, boolean)} needs to tell
+     */
+    private static final int RECORD_HEADER_LENGTH = 5;
+
+    private boolean redirected;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (redirected) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        if (in.readableBytes() < RECORD_HEADER_LENGTH) {
+            return;
+        }
+        if (SslHandler.isEncrypted(in, false)) {
+            // What was read is passed on to the SslHandler
+            ctx.pipeline().remove(this);
+            return;
+        }
+        Logger.debug("Plain HTTP request on the HTTPS port from %s", ctx.channel().remoteAddress());
+        in.skipBytes(in.readableBytes());
+        redirected = true;
+        redirect(ctx);
+    }
+
+    /**
+     * Redirects to the root of the HTTPS port, as the url is not known at that point, and closes the connection.
+     */
+    private static void redirect(ChannelHandlerContext ctx) {
+        InetSocketAddress inet = (InetSocketAddress) ctx.channel().localAddress();
+        // Written from here, in front of the SslHandler and of the HTTP codecs that may not be in the pipeline yet
+        ctx.pipeline().addBefore(ctx.name(), null, new HttpResponseEncoder());
+        FullHttpResponse nettyResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.TEMPORARY_REDIRECT);
+        nettyResponse.headers().set(HttpHeaderNames.LOCATION, "https://" + inet.getHostName() + ":" + Server.httpsPort + "/");
+        nettyResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        nettyResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        ctx.writeAndFlush(nettyResponse).addListener(ChannelFutureListener.CLOSE);
+    }
+}
@@ -1,6 +1,5 @@
 package play.server.ssl;
 
-import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -9,9 +8,6 @@ import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.ssl.SslHandler;
-import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.GenericFutureListener;
 import play.Logger;
 import play.mvc.Http.Request;
 import play.server.PlayHandler;
@@ -31,24 +27,6 @@ public class SslPlayHandler extends PlayHandler {
         return request;
     }
 
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        // Get the SslHandler in the current pipeline.
-        SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
-
-        // Get notified when the SSL handshake is done.
-	    sslHandler.handshakeFuture().addListener(new SslListener());
-    }
-
-    private static final class SslListener implements GenericFutureListener<Future<? super Channel>> {
-	    @Override
-	    public void operationComplete(Future<? super Channel> future) throws Exception {
-		    if (!future.isSuccess()) {
-			    Logger.debug(future.cause(), "Invalid certificate");
-		    }
-	    }
-    }
-
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         // We have to redirect to https://, as it was targeting http://
@@ -56,7 +34,10 @@ public class SslPlayHandler extends PlayHandler {
         if (cause instanceof SSLException) {
             Logger.debug(cause, "");
             InetSocketAddress inet = ((InetSocketAddress) ctx.channel().localAddress());
-            ctx.pipeline().remove("ssl");
+            // An HTTP/2 stream has no SslHandler of its own
+            if (ctx.pipeline().get("ssl") != null) {
+                ctx.pipeline().remove("ssl");
+            }
             HttpResponse nettyResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.TEMPORARY_REDIRECT);
             nettyResponse.headers().set(LOCATION, "https://" + inet.getHostName() + ":" + Server.httpsPort + "/");
             ChannelFuture writeFuture = ctx.channel().writeAndFlush(nettyResponse);
@@ -11,6 +11,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.codehaus.groovy.runtime.NullObject;
 import play.cache.Cache;
 import play.data.validation.Error;
@@ -163,8 +164,15 @@ public class FastTags {
         return HTML.htmlEscape(val.toString());
     }
 
+    @SuppressWarnings("unchecked")
     public static void _doLayout(Map<?, ?> args, Closure body, PrintWriter out, ExecutableTemplate template, int fromLine) {
-        out.print("____%LAYOUT%____");
+        Object streamedBody = template.getBinding().getVariables().get("_streamedBody");
+        if (streamedBody != null) {
+            // Streaming, see GroovyTemplate.stream()
+            ((Consumer<PrintWriter>) streamedBody).accept(out);
+        } else {
+            out.print("____%LAYOUT%____");
+        }
     }
 
     public static void _get(Map<?, ?> args, Closure body, PrintWriter out, ExecutableTemplate template, int fromLine) {
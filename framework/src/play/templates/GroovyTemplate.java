@@ -3,6 +3,7 @@ package play.templates;
 import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -12,6 +13,9 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
 import org.codehaus.groovy.GroovyBugError;
@@ -29,8 +33,6 @@ import org.codehaus.groovy.runtime.InvokerHelper;
 import org.codehaus.groovy.syntax.SyntaxException;
 import org.codehaus.groovy.tools.GroovyClass;
 
-import com.jamonapi.Monitor;
-import com.jamonapi.MonitorFactory;
 
 import groovy.lang.Binding;
 import groovy.lang.Closure;
@@ -56,6 +58,8 @@ import play.exceptions.UnexpectedException;
 import play.i18n.Lang;
 import play.i18n.Messages;
 import play.libs.Codec;
+import play.metrics.Metrics;
+import play.metrics.Timer;
 import play.mvc.ActionInvoker;
 import play.mvc.Context;
 import play.mvc.Http;
@@ -86,6 +90,8 @@ public class GroovyTemplate extends BaseTemplate {
         new GroovyShell().evaluate("java.lang.String.metaClass.if = { condition -> if(condition) delegate; else '' }");
     }
 
+    private static final Pattern literalExtends = Pattern.compile("#\\{extends\\s+['\"]([^'\"]+)['\"]\\s*/}");
+
     public GroovyTemplate(String name, String source) {
         super(name, source);
     }
@@ -282,15 +288,15 @@ public class GroovyTemplate extends BaseTemplate {
             binding.setProperty("out", new PrintWriter(writer));
             currentTemplate.set(this);
         }
-        if (!args.containsKey("_body") && !args.containsKey("_isLayout") && !args.containsKey("_isInclude")) {
+        if (!args.containsKey("_body") && !args.containsKey("_isLayout") && !args.containsKey("_isInclude") && !args.containsKey("_isStreamed")) {
             layoutData.set(new HashMap<>());
             TagContext.init();
         }
         ExecutableTemplate t = (ExecutableTemplate) InvokerHelper.createScript(compiledTemplate, binding);
         t.init(context, this);
-        Monitor monitor = null;
+        Timer.Stopwatch monitor = null;
         try {
-            monitor = MonitorFactory.start(name);
+            monitor = Metrics.timer(name).start();
             long start = System.nanoTime();
             t.run();
             monitor.stop();
@@ -348,6 +354,115 @@ public class GroovyTemplate extends BaseTemplate {
         return null;
     }
 
+    /**
+     * The layouts of this template, innermost first, as named by literal <code>#{extends}</code> tags.
+     *
+     * @return the layouts, or null when the template can't be streamed: a layout is only known by running the
+     *         template, or a layout reads with <code>#{get}</code>, before its <code>#{doLayout}</code>, what the
+     *         template may <code>#{set}</code>, or sets there what the template would otherwise override
+     */
+    public List<GroovyTemplate> streamingLayouts() {
+        List<GroovyTemplate> layouts = new ArrayList<>();
+        GroovyTemplate template = this;
+        while (true) {
+            String layoutName = template.literalLayout();
+            if (layoutName == null) {
+                return null;
+            }
+            if (layoutName.isEmpty()) {
+                return layouts;
+            }
+            if (layoutName.startsWith("./")) {
+                // Relative to the page, as #{extends} does
+                String ct = name;
+                if (ct.matches("^/lib/[^/]+/app/views/.*")) {
+                    ct = ct.substring(ct.indexOf('/', 5));
+                }
+                layoutName = ct.substring(0, ct.lastIndexOf('/')) + layoutName.substring(1);
+            }
+            Template loaded;
+            try {
+                loaded = TemplateLoader.load(layoutName);
+            } catch (TemplateNotFoundException e) {
+                // Reported by the regular rendering
+                return null;
+            }
+            if (!(loaded instanceof GroovyTemplate layout) || !layout.isStreamableLayout() || layouts.contains(layout)) {
+                return null;
+            }
+            layouts.add(layout);
+            template = layout;
+        }
+    }
+
+    /**
+     * @return the layout this template extends, an empty string for none, null if it is not a literal
+     */
+    private String literalLayout() {
+        if (source == null) {
+            return null;
+        }
+        int first = source.indexOf("#{extends");
+        if (first < 0) {
+            return "";
+        }
+        if (source.indexOf("#{extends", first + 1) >= 0) {
+            return null;
+        }
+        Matcher matcher = literalExtends.matcher(source);
+        return matcher.find(first) && matcher.start() == first ? matcher.group(1) : null;
+    }
+
+    private boolean isStreamableLayout() {
+        if (source == null) {
+            return false;
+        }
+        int doLayout = source.indexOf("#{doLayout");
+        int get = source.indexOf("#{get");
+        int set = source.indexOf("#{set");
+        return doLayout >= 0 && (get < 0 || get > doLayout) && (set < 0 || set > doLayout);
+    }
+
+    /**
+     * Renders the template inside its layouts as it goes: each layout is rendered first and renders what it wraps
+     * at its <code>#{doLayout}</code>, instead of the template being rendered before the layouts around it.
+     *
+     * @param layouts
+     *            The layouts, see {@link #streamingLayouts()}
+     * @param writer
+     *            Where the output goes
+     */
+    public void stream(Context context, Map<String, Object> args, List<GroovyTemplate> layouts, Writer writer) {
+        layout.remove();
+        layoutData.set(new HashMap<>());
+        TagContext.init();
+        currentTemplate.set(this);
+        try {
+            Consumer<PrintWriter> body = out -> internalRender(context, streamArgs(args, out));
+            for (GroovyTemplate layoutTemplate : layouts) {
+                Consumer<PrintWriter> inner = body;
+                body = out -> {
+                    Map<String, Object> layoutArgs = streamArgs(args, out);
+                    layoutArgs.put("_isLayout", true);
+                    layoutArgs.put("_streamedBody", inner);
+                    layoutTemplate.internalRender(context, layoutArgs);
+                };
+            }
+            body.accept(new PrintWriter(writer));
+        } finally {
+            currentTemplate.remove();
+            // Set by the #{extends} of the templates, which have been taken care of
+            layout.remove();
+        }
+    }
+
+    private static Map<String, Object> streamArgs(Map<String, Object> args, PrintWriter out) {
+        Map<String, Object> streamArgs = new HashMap<>(args);
+        streamArgs.put("out", out);
+        streamArgs.put("_isStreamed", true);
+        return streamArgs;
+    }
+
     @Override
     protected Throwable cleanStackTrace(Throwable e) {
         List<StackTraceElement> cleanTrace = new ArrayList<>();
@@ -0,0 +1,125 @@
+package play.templates;
+
+import play.mvc.Http;
+import play.server.PooledOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Template output encoded straight into the response buffer, and sent to the client as a chunk each time enough has
+ * accumulated. A page that fits in a single chunk is left in the buffer and sent as a regular response.
+ *
+ * <p>When asked to, the leading and trailing whitespace of the page is dropped, as a buffered render does for pages
+ * with a layout.</p>
+ */
+public class StreamingWriter extends Writer {
+
+    private final Http.Response response;
+    private final PooledOutputStream buffer;
+    private final Writer encoder;
+    private final int chunkSize;
+    private final boolean trim;
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+    private boolean started;
+    /**
+     * Characters written since the last chunk, the encoder buffers their bytes.
+     */
+    private int unsent;
+    private long sent;
+
+    public StreamingWriter(Http.Response response, PooledOutputStream buffer, Charset encoding, int chunkSize, boolean trim) {
+        this.response = response;
+        this.buffer = buffer;
+        this.encoder = new OutputStreamWriter(buffer, encoding);
+        this.chunkSize = chunkSize;
+        this.trim = trim;
+        this.started = !trim;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        write(CharBuffer.wrap(cbuf), off, off + len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        write((CharSequence) str, off, off + len);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        write(String.valueOf((char) c), 0, 1);
+    }
+
+    /**
+     * Whitespace is held back until something else follows it, so that the end of the page can be trimmed.
+     */
+    private void write(CharSequence chars, int start, int end) throws IOException {
+        if (!started) {
+            while (start < end && chars.charAt(start) <= ' ') {
+                start++;
+            }
+            if (start == end) {
+                return;
+            }
+            started = true;
+        }
+        int last = end;
+        while (trim && last > start && chars.charAt(last - 1) <= ' ') {
+            last--;
+        }
+        if (last > start) {
+            if (!pendingWhitespace.isEmpty()) {
+                encoder.append(pendingWhitespace);
+                unsent += pendingWhitespace.length();
+                pendingWhitespace.setLength(0);
+            }
+            encoder.append(chars, start, last);
+            unsent += last - start;
+        }
+        pendingWhitespace.append(chars, last, end);
+        if (unsent >= chunkSize) {
+            sendChunk();
+        }
+    }
+
+    private void sendChunk() throws IOException {
+        encoder.flush();
+        unsent = 0;
+        if (buffer.size() > 0) {
+            sent += buffer.size();
+            response.writeChunk(buffer.detach());
+        }
+    }
+
+    /**
+     * @return the bytes sent as chunks so far
+     */
+    public long getBytesSent() {
+        return sent;
+    }
+
+    /**
+     * Sends what has been written so far.
+     */
+    @Override
+    public void flush() throws IOException {
+        sendChunk();
+    }
+
+    /**
+     * Ends the page: the rest is sent as a last chunk, or left in the response buffer if nothing was sent yet.
+     */
+    @Override
+    public void close() throws IOException {
+        if (response.chunked) {
+            sendChunk();
+        } else {
+            encoder.flush();
+        }
+    }
+}
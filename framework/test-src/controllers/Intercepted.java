@@ -0,0 +1,145 @@
+package controllers;
+
+import play.mvc.After;
+import play.mvc.Before;
+import play.mvc.Catch;
+import play.mvc.Context;
+import play.mvc.Controller;
+import play.mvc.Finally;
+import play.mvc.With;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A controller with every kind of interceptor, for ActionPlanTest. In the <code>controllers</code> package as action
+ * names are relative to it.
+ */
+public class Intercepted extends Controller {
+
+    public static final List<String> calls = new ArrayList<>();
+
+    /**
+     * What {@link #boom()} throws
+     */
+    public static Throwable toThrow;
+
+    public Intercepted(Context context) {
+        super(context);
+    }
+
+    @Before(priority = 2)
+    void second() {
+        calls.add("before second");
+    }
+
+    @Before(priority = 1)
+    static void first() {
+        calls.add("before first");
+    }
+
+    @Before(only = "index", priority = 3)
+    void onlyIndex() {
+        calls.add("before only index");
+    }
+
+    @Before(unless = { "index", "Other.fail" }, priority = 3)
+    void unlessIndex() {
+        calls.add("before unless index");
+    }
+
+    @Before(only = { "Intercepted.fail", "InterceptedNested.fail" }, priority = 4)
+    void qualified() {
+        calls.add("before qualified");
+    }
+
+    @After(only = "index")
+    void afterIndex() {
+        calls.add("after index");
+    }
+
+    @After(unless = "index", priority = 1)
+    void afterOthers() {
+        calls.add("after others");
+    }
+
+    @Finally
+    void done() {
+        calls.add("finally");
+    }
+
+    @Finally(only = "fail", priority = 1)
+    void failed(Throwable caught) {
+        calls.add("finally " + (caught == null ? null : caught.getClass().getSimpleName()));
+    }
+
+    @Catch(value = IllegalStateException.class, priority = 1)
+    void illegal(Throwable caught) {
+        calls.add("catch illegal " + caught.getMessage());
+    }
+
+    @Catch(priority = 2)
+    void any(Exception caught) {
+        calls.add("catch any " + caught.getMessage());
+    }
+
+    @Catch(IOException.class)
+    void io(IOException caught) {
+        calls.add("catch io");
+    }
+
+    public void index() {
+        calls.add("index");
+    }
+
+    public void fail() {
+        calls.add("fail");
+        throw new IllegalStateException("failed");
+    }
+
+    public void boom() throws Throwable {
+        throw toThrow;
+    }
+
+    @With(Guard.class)
+    public static class Nested extends Intercepted {
+
+        public Nested(Context context) {
+            super(context);
+        }
+
+        // Declared in Intercepted$Nested: @Before strips the $, @After does not
+        @Before(only = "index", priority = 5)
+        void nestedBefore() {
+            calls.add("nested before");
+        }
+
+        @After(only = "index", priority = 5)
+        void nestedAfter() {
+            calls.add("nested after");
+        }
+    }
+
+    public static class Guard extends Controller {
+
+        public Guard(Context context) {
+            super(context);
+        }
+
+        @Before(priority = 6)
+        void guard() {
+            calls.add("guard");
+        }
+
+        @Before(unless = "InterceptedNested.index", priority = 7)
+        static void guardOthers() {
+            calls.add("guard others");
+        }
+
+        @Finally(priority = 6)
+        static void guardDone(Throwable caught) {
+            calls.add("guard finally " + (caught == null ? null : caught.getClass().getSimpleName()));
+        }
+    }
+}
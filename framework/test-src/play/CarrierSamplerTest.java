@@ -0,0 +1,51 @@
+package play;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class CarrierSamplerTest {
+
+    static volatile long sink;
+
+    @Test
+    public void carrierTimeGrowsWithVirtualThreadWork() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean().isThreadCpuTimeSupported());
+        long before = Invoker.VirtualThreads.getCarrierCpuNanos();
+        Invoker.CarrierSampler sampler = new Invoker.CarrierSampler();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                long end = System.nanoTime() + 200_000_000L;
+                long x = 0;
+                while (System.nanoTime() < end) {
+                    x += System.identityHashCode(new Object());
+                }
+                sink = x;
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long after = Invoker.VirtualThreads.getCarrierCpuNanos();
+        assertTrue(after > before, before + " then " + after);
+        double utilisation = sampler.sample();
+        assertTrue(utilisation > 0 && utilisation <= 1, String.valueOf(utilisation));
+    }
+
+    @Test
+    public void idleCarriersAreNotUsed() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean().isThreadCpuTimeSupported());
+        Invoker.CarrierSampler sampler = new Invoker.CarrierSampler();
+        Thread.sleep(50);
+        double utilisation = sampler.sample();
+        assertTrue(utilisation >= 0 && utilisation < 0.5, String.valueOf(utilisation));
+        assertEquals(0, sampler.sample(), 0.5);
+    }
+}
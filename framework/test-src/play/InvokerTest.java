@@ -0,0 +1,224 @@
+package play;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import play.Invoker.Priority;
+import play.mvc.Context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InvokerTest {
+
+    /**
+     * Holds its thread until the test releases it.
+     */
+    class Blocking extends Invoker.Invocation {
+
+        final Priority priority;
+        final boolean drop;
+        volatile boolean ran;
+        volatile boolean timedOut;
+
+        Blocking(Priority priority, boolean drop) {
+            super(null);
+            this.priority = priority;
+            this.drop = drop;
+        }
+
+        Blocking(Priority priority) {
+            this(priority, false);
+        }
+
+        @Override
+        protected void preInit(Context context) {
+        }
+
+        @Override
+        public boolean init() {
+            started.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ran = true;
+            return false;
+        }
+
+        @Override
+        public void execute() {
+        }
+
+        @Override
+        public Invoker.InvocationContext getInvocationContext() {
+            return new Invoker.InvocationContext("test");
+        }
+
+        @Override
+        public void _finally() {
+        }
+
+        @Override
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        protected boolean onQueueTimeout() {
+            timedOut = true;
+            return drop;
+        }
+    }
+
+    private final AtomicInteger started = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Future<?>> futures = Collections.synchronizedList(new ArrayList<>());
+    private int threads;
+
+    @BeforeEach
+    public void saturate() throws Exception {
+        threads = Invoker.executor.getCorePoolSize();
+        for (int i = 0; i < threads; i++) {
+            invoke(new Blocking(Priority.NORMAL));
+        }
+        await(() -> started.get() == threads);
+        assertEquals(0, Invoker.getQueueSize());
+    }
+
+    @AfterEach
+    public void drain() throws Exception {
+        release.countDown();
+        for (Future<?> future : new ArrayList<>(futures)) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        Invoker.maxQueue = 0;
+        Invoker.maxQueueWait = 0;
+        await(() -> Invoker.getActiveCount() == 0);
+        assertEquals(0, Invoker.getQueueSize());
+    }
+
+    @Test
+    public void rejectsAtMaxQueueAndAtHalfOfItForLowPriority() throws Exception {
+        Invoker.maxQueue = 4;
+        long rejected = Invoker.getRejectedCount();
+        List<Blocking> admitted = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            admitted.add(invoke(new Blocking(Priority.LOW)));
+        }
+        assertThrows(RejectedExecutionException.class, () -> invoke(new Blocking(Priority.LOW)));
+        for (int i = 0; i < 2; i++) {
+            admitted.add(invoke(new Blocking(Priority.NORMAL)));
+        }
+        assertThrows(RejectedExecutionException.class, () -> invoke(new Blocking(Priority.NORMAL)));
+        assertEquals(4, Invoker.getQueueSize());
+        assertEquals(rejected + 2, Invoker.getRejectedCount());
+
+        release.countDown();
+        await(() -> Invoker.getQueueSize() == 0);
+        await(() -> admitted.stream().allMatch(invocation -> invocation.ran));
+    }
+
+    @Test
+    public void concurrentInvocationsDoNotOverfillTheQueue() throws Exception {
+        Invoker.maxQueue = 8;
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            callers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    go.await();
+                    invoke(new Blocking(Priority.NORMAL));
+                    admitted.incrementAndGet();
+                } catch (RejectedExecutionException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        go.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        assertEquals(8, admitted.get());
+        assertEquals(56, rejected.get());
+        assertEquals(8, Invoker.getQueueSize());
+    }
+
+    @Test
+    public void criticalInvocationsBypassTheQueueWithinTheReserve() throws Exception {
+        Invoker.maxQueue = 1;
+        int permits = Invoker.reserve.availablePermits();
+        invoke(new Blocking(Priority.NORMAL));
+        assertThrows(RejectedExecutionException.class, () -> invoke(new Blocking(Priority.NORMAL)));
+
+        for (int i = 0; i < permits; i++) {
+            invoke(new Blocking(Priority.CRITICAL));
+        }
+        // Run beside the busy pool, and counted as active
+        await(() -> started.get() == threads + permits);
+        assertEquals(0, Invoker.reserve.availablePermits());
+        assertEquals(threads + permits, Invoker.getActiveCount());
+        assertEquals(1, Invoker.getQueueSize());
+
+        // Once the reserve is busy, they wait in the queue but are never rejected
+        Blocking waiting = invoke(new Blocking(Priority.CRITICAL));
+        assertEquals(2, Invoker.getQueueSize());
+        assertFalse(waiting.ran);
+
+        release.countDown();
+        await(() -> waiting.ran);
+        await(() -> Invoker.reserve.availablePermits() == permits);
+    }
+
+    @Test
+    public void invocationsWaitingTooLongAreShed() throws Exception {
+        Invoker.maxQueueWait = 50;
+        long shed = Invoker.getShedCount();
+        Blocking dropped = invoke(new Blocking(Priority.NORMAL, true));
+        Blocking kept = invoke(new Blocking(Priority.NORMAL, false));
+        Thread.sleep(100);
+
+        release.countDown();
+        await(() -> kept.ran);
+        assertTrue(dropped.timedOut);
+        assertFalse(dropped.ran);
+        // Run anyway, as it asked for
+        assertTrue(kept.timedOut);
+        assertEquals(shed + 1, Invoker.getShedCount());
+
+        // Without waiting
+        Blocking fresh = invoke(new Blocking(Priority.NORMAL, true));
+        await(() -> fresh.ran);
+        assertFalse(fresh.timedOut);
+        assertEquals(shed + 1, Invoker.getShedCount());
+    }
+
+    private <T extends Invoker.Invocation> T invoke(T invocation) {
+        futures.add(Invoker.invoke(invocation));
+        return invocation;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,256 @@
+package play.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryCacheSerializerTest {
+
+    public enum Color {
+        RED, GREEN {
+            @Override
+            public String toString() {
+                return "green";
+            }
+        }
+    }
+
+    public static class Base {
+        protected long id;
+    }
+
+    public static class User extends Base {
+        private String name;
+        private int age;
+        private List<String> roles;
+        private Color color;
+        private User friend;
+        private transient String password;
+        public static String shared = "static";
+
+        public User() {
+        }
+
+        User(long id, String name, int age) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+        }
+    }
+
+    public record Point(int x, int y, String label) {
+    }
+
+    public static class Legacy implements Serializable {
+        String value;
+
+        Legacy(String value) {
+            this.value = value;
+        }
+    }
+
+    public static class Unregistered {
+    }
+
+    @Test
+    public void roundTripsEveryTag() throws Exception {
+        BinaryCacheSerializer serializer = serializer();
+        Object[] values = { null, "", "héllo ✓", 0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0L, Long.MIN_VALUE,
+                Long.MAX_VALUE, 3.25d, Double.NaN, -0.5f, Float.NEGATIVE_INFINITY, true, false, (byte) -128, (byte) 127,
+                (short) -32768, (short) 32767, 'x', '￿', new BigDecimal("-12345.678900"),
+                new BigInteger("-123456789012345678901234567890"), new Date(1_700_000_000_123L), new Date(-1L),
+                new ArrayList<>(List.of(1, "two", 3L)), new HashSet<>(Set.of("a", "b")),
+                new LinkedHashSet<>(List.of("z", "a", "m")), new TreeSet<>(Set.of(3, 1, 2)),
+                new HashMap<>(Map.of("a", 1, "b", List.of())), new LinkedHashMap<>(Map.of("z", 1)),
+                new TreeMap<>(Map.of("b", 2, "a", 1)), Color.RED, Color.GREEN, new Point(1, -2, "p") };
+        for (Object value : values) {
+            Object copy = serializer.deserialize(serializer.serialize(value));
+            assertEquals(value, copy, String.valueOf(value));
+            if (value != null) {
+                assertSame(value.getClass(), copy.getClass(), String.valueOf(value));
+            }
+        }
+        assertArrayEquals(new byte[] { 0, -1, 127 }, (byte[]) serializer.deserialize(serializer.serialize(new byte[] { 0, -1, 127 })));
+        assertEquals(new ArrayList<>(List.of("z", "a", "m")),
+                new ArrayList<>((Set<?>) serializer.deserialize(serializer.serialize(new LinkedHashSet<>(List.of("z", "a", "m"))))));
+        assertEquals(List.of("z", "a"),
+                new ArrayList<>(((Map<?, ?>) serializer.deserialize(serializer.serialize(linked("z", "a")))).keySet()));
+        // Other collections come back as the closest supported one
+        assertEquals(ArrayList.class, serializer.deserialize(serializer.serialize(List.of(1))).getClass());
+    }
+
+    @Test
+    public void roundTripsRegisteredClasses() throws Exception {
+        BinaryCacheSerializer serializer = serializer();
+        User user = new User(7, "bob", 42);
+        user.roles = List.of("admin");
+        user.color = Color.GREEN;
+        user.password = "secret";
+        user.friend = new User(8, "alice", 41);
+
+        User copy = (User) serializer.deserialize(serializer.serialize(user));
+        assertEquals(7, copy.id);
+        assertEquals("bob", copy.name);
+        assertEquals(42, copy.age);
+        assertEquals(List.of("admin"), copy.roles);
+        assertSame(Color.GREEN, copy.color);
+        assertNull(copy.password);
+        assertEquals("alice", copy.friend.name);
+        assertNull(copy.friend.friend);
+
+        CachedResponse response = new CachedResponse(200, "text/html", Map.of("Vary", List.of("Accept")),
+                new byte[] { 1, 2 }, "\"tag\"");
+        CachedResponse responseCopy = (CachedResponse) serializer.deserialize(serializer.serialize(response));
+        assertEquals(200, responseCopy.status());
+        assertEquals(Map.of("Vary", List.of("Accept")), responseCopy.headers());
+        assertArrayEquals(new byte[] { 1, 2 }, responseCopy.body());
+        assertEquals("\"tag\"", responseCopy.etag());
+
+        CacheLoader.Loaded loaded = new CacheLoader.Loaded("value", 12L, 3L);
+        assertEquals(loaded, serializer.deserialize(serializer.serialize(loaded)));
+    }
+
+    @Test
+    public void keepsSharedAndCyclicReferences() throws Exception {
+        BinaryCacheSerializer serializer = serializer();
+        Map<String, Object> shared = new HashMap<>(Map.of("k", "v"));
+        List<Object> list = new ArrayList<>();
+        list.add(shared);
+        list.add(shared);
+        list.add(list);
+        List<?> copy = (List<?>) serializer.deserialize(serializer.serialize(list));
+        assertEquals(shared, copy.get(0));
+        assertSame(copy.get(0), copy.get(1));
+        assertSame(copy, copy.get(2));
+
+        User user = new User(1, "narcissus", 20);
+        user.friend = user;
+        User userCopy = (User) serializer.deserialize(serializer.serialize(user));
+        assertSame(userCopy, userCopy.friend);
+    }
+
+    @Test
+    public void fallsBackToJavaSerializationWhenAllowed() throws Exception {
+        Properties configuration = configuration();
+        configuration.setProperty("cache.serializer.java", "true");
+        BinaryCacheSerializer serializer = new BinaryCacheSerializer(configuration);
+        List<Object> list = new ArrayList<>();
+        Legacy legacy = new Legacy("old");
+        list.add(legacy);
+        list.add(legacy);
+        list.add("after");
+        List<?> copy = (List<?>) serializer.deserialize(serializer.serialize(list));
+        assertEquals("old", ((Legacy) copy.get(0)).value);
+        assertSame(copy.get(0), copy.get(1));
+        assertEquals("after", copy.get(2));
+
+        // Values written before the binary format
+        byte[] old = new JavaCacheSerializer().serialize(new Legacy("older"));
+        assertEquals("older", ((Legacy) serializer.deserialize(old)).value);
+
+        assertThrows(NotSerializableException.class, () -> serializer.serialize(new Unregistered()));
+    }
+
+    @Test
+    public void refusesWhatItWasNotAllowedToWrite() throws Exception {
+        BinaryCacheSerializer serializer = serializer();
+        assertThrows(NotSerializableException.class, () -> serializer.serialize(new Legacy("x")));
+        assertThrows(NotSerializableException.class, () -> serializer.serialize(List.of(new Unregistered())));
+        assertThrows(NotSerializableException.class, () -> serializer.deserialize(new JavaCacheSerializer().serialize("x")));
+
+        Properties configuration = configuration();
+        configuration.setProperty("cache.serializer.java", "true");
+        byte[] java = new BinaryCacheSerializer(configuration).serialize(List.of(new Legacy("x")));
+        assertThrows(NotSerializableException.class, () -> serializer.deserialize(java));
+    }
+
+    @Test
+    public void detectsValuesOfAnotherClass() throws Exception {
+        byte[] point = serializer().serialize(new Point(1, 2, "p"));
+        // The same classes, registered in another order
+        Properties configuration = new Properties();
+        configuration.setProperty("cache.serializer.classes", User.class.getName() + "," + Point.class.getName());
+        assertThrows(StreamCorruptedException.class, () -> new BinaryCacheSerializer(configuration).deserialize(point));
+        // Not registered at all
+        assertThrows(NotSerializableException.class, () -> new BinaryCacheSerializer(new Properties()).deserialize(point));
+    }
+
+    @Test
+    public void deflatesLargeValues() throws Exception {
+        Properties configuration = configuration();
+        configuration.setProperty("cache.serializer.compressThreshold", "1kb");
+        BinaryCacheSerializer serializer = new BinaryCacheSerializer(configuration);
+        String small = "small";
+        char[] chars = new char[100_000];
+        Arrays.fill(chars, 'a');
+        String large = new String(chars);
+
+        assertEquals(small, serializer.deserialize(serializer.serialize(small)));
+        byte[] bytes = serializer.serialize(large);
+        assertTrue(bytes.length < 1024, String.valueOf(bytes.length));
+        assertEquals(large, serializer.deserialize(bytes));
+        // Read whatever the threshold
+        assertEquals(large, serializer().deserialize(bytes));
+
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 2)));
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length - 1] ^= 1;
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(corrupted));
+    }
+
+    @Test
+    public void refusesCorruptedValues() throws Exception {
+        BinaryCacheSerializer serializer = serializer();
+        byte[] bytes = serializer.serialize(List.of("a", "b"));
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(new byte[0]));
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(new byte[] { 9 }));
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(new byte[] { 1, 99 }));
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(new byte[] { 1, 25, 3 }));
+        // A list claiming more elements than there are bytes
+        assertThrows(StreamCorruptedException.class, () -> serializer.deserialize(new byte[] { 1, 15, (byte) 0xFF, 0x0F }));
+    }
+
+    private static BinaryCacheSerializer serializer() {
+        return new BinaryCacheSerializer(configuration());
+    }
+
+    private static Properties configuration() {
+        Properties configuration = new Properties();
+        configuration.setProperty("cache.serializer.classes",
+                Point.class.getName() + ", " + User.class.getName() + "," + Color.class.getName());
+        return configuration;
+    }
+
+    private static Map<String, Integer> linked(String... keys) {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (String key : keys) {
+            map.put(key, map.size());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,178 @@
+package play.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import play.Play;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BulkOperationsTest {
+
+    /**
+     * A cache with nothing but the operations every implementation has, for the default bulk operations.
+     */
+    static class MapCache implements CacheImpl {
+
+        final Map<String, Object> values = new ConcurrentHashMap<>();
+
+        @Override
+        public void add(String key, Object value, int expiration) {
+            values.putIfAbsent(key, value);
+        }
+
+        @Override
+        public boolean safeAdd(String key, Object value, int expiration) {
+            return values.putIfAbsent(key, value) == null;
+        }
+
+        @Override
+        public void set(String key, Object value, int expiration) {
+            values.put(key, value);
+        }
+
+        @Override
+        public boolean safeSet(String key, Object value, int expiration) {
+            // Refused, as a remote cache would when the value is too large
+            if ("refused".equals(value)) {
+                return false;
+            }
+            values.put(key, value);
+            return true;
+        }
+
+        @Override
+        public void replace(String key, Object value, int expiration) {
+            values.replace(key, value);
+        }
+
+        @Override
+        public boolean safeReplace(String key, Object value, int expiration) {
+            return values.replace(key, value) != null;
+        }
+
+        @Override
+        public Object get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public Map<String, Object> get(String[] keys) {
+            Map<String, Object> result = new HashMap<>();
+            for (String key : keys) {
+                result.put(key, values.get(key));
+            }
+            return result;
+        }
+
+        @Override
+        public long incr(String key, int by) {
+            return -1;
+        }
+
+        @Override
+        public long decr(String key, int by) {
+            return -1;
+        }
+
+        @Override
+        public void clear() {
+            values.clear();
+        }
+
+        @Override
+        public void delete(String key) {
+            values.remove(key);
+        }
+
+        @Override
+        public boolean safeDelete(String key) {
+            return values.remove(key) != null;
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    private CacheImpl cache;
+
+    @AfterEach
+    public void stop() {
+        if (cache != null) {
+            cache.stop();
+        }
+        Cache.cacheImpl = null;
+        Play.configuration.remove("cache.regions");
+    }
+
+    @Test
+    public void defaultsGoKeyByKey() throws Exception {
+        cache = new MapCache();
+        assertBulkOperations(cache);
+
+        assertEquals(Map.of("a", true, "b", false), cache.setAll(Map.of("a", "1", "b", "refused"), 60));
+        assertEquals(Map.of("a", "1"), cache.getAll(List.of("a", "b")));
+        assertEquals(Map.of("a", true, "e", false), cache.deleteAll(List.of("a", "e")));
+    }
+
+    @Test
+    public void caffeineBatchesByRegion() throws Exception {
+        Play.configuration.setProperty("cache.regions", "pages");
+        CaffeineImpl caffeine = CaffeineImpl.newInstance();
+        cache = caffeine;
+        assertBulkOperations(cache);
+
+        cache.setAll(Map.of("pages:home", "home", "user", "bob"), 60);
+        assertEquals("home", cache.get("pages:home"));
+        assertEquals(Map.of("pages:home", "home", "user", "bob"), cache.getAll(List.of("pages:home", "user")));
+        assertEquals(1, caffeine.getStats().stream().filter(s -> s.name().equals("pages")).findFirst().orElseThrow().entries());
+        cache.deleteAll(List.of("pages:home", "user"));
+        assertEquals(Map.of(), cache.getAll(List.of("pages:home", "user")));
+    }
+
+    @Test
+    public void ehCacheWritesAllAtOnce() throws Exception {
+        cache = EhCacheImpl.newInstance();
+        assertBulkOperations(cache);
+    }
+
+    @Test
+    public void cacheParsesTheExpiration() throws Exception {
+        cache = CaffeineImpl.newInstance();
+        Cache.cacheImpl = cache;
+        assertEquals(Map.of("a", true), Cache.setAll(Map.of("a", "1"), "1h"));
+        assertEquals(Map.of("b", true), Cache.setAllAsync(Map.of("b", "2"), "1h").toCompletableFuture().get());
+        assertEquals(Map.of("a", "1", "b", "2"), Cache.getAll(List.of("a", "b")));
+        assertEquals(Map.of("a", "1"), Cache.getAllAsync(List.of("a")).toCompletableFuture().get());
+        assertEquals(Map.of("a", true), Cache.deleteAll(List.of("a")));
+        assertEquals(Map.of("b", true), Cache.deleteAllAsync(List.of("b")).toCompletableFuture().get());
+        assertEquals(Map.of(), Cache.getAll(List.of("a", "b")));
+        assertEquals(Map.of("c", true), Cache.setAll(Map.of("c", "3")));
+    }
+
+    private static void assertBulkOperations(CacheImpl cache) throws Exception {
+        cache.set("old", "0", 60);
+        Map<String, Object> values = Map.of("a", "1", "b", 2, "c", List.of("3"));
+        assertEquals(Map.of("a", true, "b", true, "c", true), cache.setAll(values, 60));
+        assertEquals(2, cache.get("b"));
+        // Missing keys are left out
+        assertEquals(Map.of("a", "1", "b", 2, "old", "0"), cache.getAll(List.of("a", "b", "old", "missing")));
+        assertEquals(Map.of(), cache.getAll(List.of()));
+
+        assertEquals(Map.of("a", true, "old", true), cache.deleteAll(List.of("a", "old")));
+        assertNull(cache.get("a"));
+        assertNull(cache.get("old"));
+        assertEquals(2, cache.get("b"));
+
+        assertEquals(Map.of("d", true), cache.setAllAsync(Map.of("d", "4"), 60).toCompletableFuture().get());
+        assertEquals(Map.of("b", 2, "d", "4"), cache.getAllAsync(List.of("b", "d", "a")).toCompletableFuture().get());
+        assertEquals(Map.of("b", true, "d", true), cache.deleteAllAsync(List.of("b", "d")).toCompletableFuture().get());
+        assertEquals(Map.of("c", List.of("3")), cache.getAll(List.of("b", "c", "d")));
+    }
+}
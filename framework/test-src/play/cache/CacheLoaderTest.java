@@ -0,0 +1,178 @@
+package play.cache;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheLoaderTest {
+
+    private static ExecutorService executor;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeAll
+    public static void startCache() {
+        Cache.cacheImpl = CaffeineImpl.newInstance();
+        executor = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterAll
+    public static void stopCache() {
+        executor.shutdownNow();
+        Cache.cacheImpl = null;
+    }
+
+    @BeforeEach
+    public void clear() {
+        Cache.cacheImpl.clear();
+        loads.set(0);
+    }
+
+    @Test
+    public void concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> Cache.getOrLoad("k", "1h", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "value";
+            })));
+        }
+        awaitLoads(1);
+        // Give the others time to find the load in flight
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+
+        assertEquals("value", Cache.getOrLoad("k", "1h", this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void valuesSetDirectlyAreReturnedAsIs() {
+        Cache.cacheImpl.set("k", "set", 60);
+        assertEquals("set", Cache.getOrLoad("k", "1h", this::load));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void staleValueIsServedWhileOneRequestReloads() throws Exception {
+        long now = System.currentTimeMillis();
+        Cache.cacheImpl.set("k", new CacheLoader.Loaded("old", now - 1000, 10), 60);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> reload = executor.submit(() -> Cache.getOrLoad("k", "1h", "30s", 0, () -> {
+            loads.incrementAndGet();
+            release.await();
+            return "new";
+        }));
+        awaitLoads(1);
+        assertEquals("old", Cache.getOrLoad("k", "1h", "30s", 0, this::load));
+        release.countDown();
+        assertEquals("new", reload.get(5, TimeUnit.SECONDS));
+        assertEquals("new", Cache.getOrLoad("k", "1h", "30s", 0, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void valueExpiredBeyondTheStaleWindowIsReloaded() {
+        long now = System.currentTimeMillis();
+        Cache.cacheImpl.set("k", new CacheLoader.Loaded("old", now - 60_000, 10), 60);
+        assertEquals("loaded", Cache.getOrLoad("k", "1h", "30s", 0, this::load));
+        assertEquals(1, loads.get());
+
+        Cache.cacheImpl.set("k", new CacheLoader.Loaded("old", now - 1000, 10), 60);
+        // Without a stale window
+        assertEquals("loaded", Cache.getOrLoad("k", "1h", this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void slowValuesAreReloadedBeforeTheyExpire() {
+        long now = System.currentTimeMillis();
+        Cache.cacheImpl.set("k", new CacheLoader.Loaded("old", now + 60_000, 1_000_000_000L), 60);
+        assertEquals("old", Cache.getOrLoad("k", "1h", null, 0, this::load));
+        assertEquals(0, loads.get());
+        assertEquals("loaded", Cache.getOrLoad("k", "1h", null, 1, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void loaderFailureReachesEveryWaiterAndIsNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> Cache.getOrLoad("k", "1h", () -> {
+                loads.incrementAndGet();
+                release.await();
+                throw new IllegalStateException("down");
+            })));
+        }
+        awaitLoads(1);
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertEquals("down", e.getCause().getMessage());
+        }
+        assertEquals(1, loads.get());
+
+        assertEquals("loaded", Cache.getOrLoad("k", "1h", this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void nullIsNotCached() {
+        assertNull(Cache.getOrLoad("k", "1h", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(Cache.cacheImpl.get("k"));
+        assertEquals("loaded", Cache.getOrLoad("k", "1h", this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void loaderMayAskForItsOwnKey() {
+        Object value = Cache.getOrLoad("k", "1h", () -> "outer " + Cache.getOrLoad("k", "1h", this::load));
+        assertEquals("outer loaded", value);
+        CacheLoader.Loaded loaded = (CacheLoader.Loaded) Cache.cacheImpl.get("k");
+        assertEquals("outer loaded", loaded.value());
+        assertTrue(loaded.expiresAt() > System.currentTimeMillis() + 3_500_000L);
+        assertSame(value, Cache.getOrLoad("k", "1h", this::load));
+        assertEquals(1, loads.get());
+    }
+
+    private String load() {
+        loads.incrementAndGet();
+        return "loaded";
+    }
+
+    private void awaitLoads(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && loads.get() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, loads.get());
+    }
+}
@@ -0,0 +1,72 @@
+package play.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CaffeineImplTest {
+
+    private static final int KEY = 64 + 2 * "k".length();
+
+    @Test
+    public void weighsCommonTypesExactly() {
+        assertEquals(KEY, CaffeineImpl.weigh("k", null));
+        assertEquals(KEY + 40 + 2 * 10, CaffeineImpl.weigh("k", "0123456789"));
+        assertEquals(KEY + 16 + 1000, CaffeineImpl.weigh("k", new byte[1000]));
+        assertEquals(KEY + 16, CaffeineImpl.weigh("k", 42L));
+        assertEquals(KEY + 16, CaffeineImpl.weigh("k", Boolean.TRUE));
+    }
+
+    @Test
+    public void weighsCachedResponsesByTheirBody() {
+        CachedResponse response = new CachedResponse(200, "text/html", Map.of(), new byte[50_000], "\"etag\"");
+        int weight = CaffeineImpl.weigh("k", response);
+        assertTrue(weight > 50_000 && weight < 51_000, String.valueOf(weight));
+    }
+
+    @Test
+    public void weighsCollectionsFromASample() {
+        List<String> small = new ArrayList<>(Collections.nCopies(10, "0123456789"));
+        List<String> large = new ArrayList<>(Collections.nCopies(10_000, "0123456789"));
+        int smallWeight = CaffeineImpl.weigh("k", small) - KEY;
+        int largeWeight = CaffeineImpl.weigh("k", large) - KEY;
+        assertEquals(32 + 10 * (8 + 40 + 20), smallWeight);
+        assertEquals(32 + 10_000 * (8 + 40 + 20), largeWeight);
+
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put("0123456789", i);
+            map.put(String.format("%010d", i), i);
+        }
+        assertEquals(32 + 1001 * (32 + 40 + 20 + 16), CaffeineImpl.weigh("k", map) - KEY);
+
+        assertEquals(16 + 3 * (8 + 16), CaffeineImpl.weigh("k", new Object[] { 1, 2, 3 }) - KEY);
+        assertEquals(16 + 8 * 100, CaffeineImpl.weigh("k", new long[100]) - KEY);
+    }
+
+    @Test
+    public void weighsOtherObjectsWithAFixedCost() {
+        // Neither serialized nor walked
+        Object notSerializable = new Object() {
+            final byte[] payload = new byte[1 << 20];
+        };
+        assertEquals(KEY + 128, CaffeineImpl.weigh("k", notSerializable));
+
+        // Nesting deeper than two levels counts as an object
+        List<List<List<String>>> nested = List.of(List.of(List.of("0123456789")));
+        assertEquals(32 + 8 + 32 + 8 + 128, CaffeineImpl.weigh("k", nested) - KEY);
+    }
+
+    @Test
+    public void weightIsBounded() {
+        List<byte[]> huge = Collections.nCopies(Integer.MAX_VALUE, new byte[1000]);
+        assertEquals(Integer.MAX_VALUE, CaffeineImpl.weigh("k", huge));
+    }
+}
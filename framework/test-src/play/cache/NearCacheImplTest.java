@@ -0,0 +1,185 @@
+package play.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NearCacheImplTest {
+
+    private CaffeineImpl remote;
+    private NearCacheImpl node;
+    private NearCacheImpl other;
+    private int logSize = 1024;
+
+    @BeforeEach
+    public void start() {
+        // Shared by both nodes, as memcached would be
+        remote = CaffeineImpl.newInstance();
+        remote.clear();
+        node = node();
+        other = node();
+    }
+
+    @AfterEach
+    public void stop() {
+        node.stop();
+        other.stop();
+    }
+
+    @Test
+    public void readsAreServedLocallyUntilWritten() {
+        node.set("k", "v1", 0);
+        assertEquals("v1", node.get("k"));
+        assertEquals("v1", node.get("k"));
+        assertEquals(1, node.getStats().hits());
+        assertEquals(1, node.getStats().misses());
+
+        // Written behind the tier's back
+        remote.set("k", "v2", 0);
+        assertEquals("v1", node.get("k"));
+
+        node.set("k", "v3", 0);
+        assertEquals("v3", node.get("k"));
+        node.delete("k");
+        assertNull(node.get("k"));
+        // Missing values are not kept
+        remote.set("k", "v4", 0);
+        assertEquals("v4", node.get("k"));
+    }
+
+    @Test
+    public void writesOfOtherNodesAreDroppedAtTheNextSync() throws Exception {
+        node.sync();
+        node.set("k", "v1", 0);
+        node.set("kept", "v", 0);
+        awaitLogged(2, "kept");
+        node.sync();
+        assertEquals("v1", node.get("k"));
+        assertEquals("v", node.get("kept"));
+
+        other.set("k", "v2", 0);
+        awaitLogged(3, "k");
+        // Until then the old value may be served
+        assertEquals("v1", node.get("k"));
+        node.sync();
+        assertEquals("v2", node.get("k"));
+
+        long hits = node.getStats().hits();
+        assertEquals("v", node.get("kept"));
+        assertEquals(hits + 1, node.getStats().hits());
+    }
+
+    @Test
+    public void nodeThatFellBehindDropsEverything() throws Exception {
+        node.stop();
+        other.stop();
+        logSize = 2;
+        node = node();
+        other = node();
+        node.sync();
+        node.set("a", "1", 0);
+        awaitLogged(1, "a");
+        node.sync();
+        assertEquals("1", node.get("a"));
+
+        remote.set("a", "2", 0);
+        for (int i = 0; i < 3; i++) {
+            other.set("b" + i, i, 0);
+            awaitLogged(2 + i, "b" + i);
+        }
+        node.sync();
+        assertEquals("2", node.get("a"));
+    }
+
+    @Test
+    public void clearedLogDropsEverything() throws Exception {
+        node.sync();
+        node.set("a", "1", 0);
+        awaitLogged(1, "a");
+        node.sync();
+        assertEquals("1", node.get("a"));
+
+        remote.clear();
+        remote.set("a", "2", 0);
+        node.sync();
+        assertEquals("2", node.get("a"));
+    }
+
+    @Test
+    public void localEntriesDoNotOutliveTheirExpiration() throws Exception {
+        node.sync();
+        node.set("short", "v", 1);
+        node.set("long", "v", 3600);
+        assertEquals("v", node.get("short"));
+        assertEquals("v", node.get("long"));
+        // Written behind the tier's back: only its local copy can still be served
+        remote.set("short", "remote", 3600);
+        remote.set("long", "remote", 3600);
+        Thread.sleep(1100);
+        assertEquals("remote", node.get("short"));
+        assertEquals("v", node.get("long"));
+
+        // Learned from the log for the keys other nodes write
+        other.setAll(Map.of("bulk", "v"), 1);
+        awaitLogged(3, "bulk");
+        node.sync();
+        assertEquals("v", node.get("bulk"));
+        remote.set("bulk", "remote", 3600);
+        Thread.sleep(1100);
+        assertEquals("remote", node.get("bulk"));
+
+        // A write without expiration lifts the cap
+        other.set("short", "forever", 0);
+        awaitLogged(4, "short");
+        node.sync();
+        assertEquals("forever", node.get("short"));
+        remote.set("short", "remote", 3600);
+        assertEquals("forever", node.get("short"));
+    }
+
+    @Test
+    public void bulkWritesAreInvalidated() throws Exception {
+        node.setAll(Map.of("a", "1", "b", "2"), 0);
+        assertEquals(Map.of("a", "1", "b", "2"), node.getAll(List.of("a", "b", "c")));
+        assertEquals(Map.of("a", "1"), node.getAllAsync(List.of("a")).toCompletableFuture().get());
+        assertTrue(node.getStats().hits() > 0);
+
+        node.setAllAsync(Map.of("a", "3"), 0).toCompletableFuture().get();
+        assertEquals("3", node.get("a"));
+        node.deleteAll(List.of("a"));
+        assertNull(node.get("a"));
+        node.deleteAllAsync(List.of("b")).toCompletableFuture().get();
+        assertNull(node.get("b"));
+    }
+
+    private NearCacheImpl node() {
+        Properties configuration = new Properties();
+        // Synchronized by the tests only
+        configuration.setProperty("cache.near.syncInterval", "1h");
+        configuration.setProperty("cache.near.ttl", "1h");
+        configuration.setProperty("cache.near.logSize", String.valueOf(logSize));
+        return new NearCacheImpl(remote, configuration);
+    }
+
+    /**
+     * Waits for a write to be logged, which is done in the background.
+     */
+    private void awaitLogged(long seq, String key) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Object entry = remote.get(NearCacheImpl.INVALIDATION_KEY + seq % logSize);
+            if (entry instanceof String written && written.startsWith(seq + ":") && written.endsWith(":" + key)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Not logged: " + seq + ":" + key);
+    }
+}
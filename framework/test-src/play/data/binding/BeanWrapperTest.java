@@ -0,0 +1,146 @@
+package play.data.binding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import play.Play;
+import play.classloading.ApplicationClassloader;
+import play.classloading.ApplicationClassloaderState;
+import play.exceptions.UnexpectedException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class BeanWrapperTest {
+
+    public static class Base {
+        public String inherited;
+    }
+
+    public static class Bean extends Base {
+        public int count;
+        public final String constant = "c";
+        public static String shared;
+        private String name;
+        private String secret;
+
+        public void setName(String name) {
+            this.name = "set " + name;
+        }
+
+        private void setSecret(String secret) {
+            this.secret = secret;
+        }
+    }
+
+    public static class Hidden {
+        private Hidden() {
+        }
+    }
+
+    public abstract static class Abstract {
+    }
+
+    public static class Failing {
+        public Failing() {
+            throw new IllegalStateException("no");
+        }
+
+        public void setValue(String value) {
+            throw new IllegalArgumentException(value);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Play.classloader = null;
+        Binder.beanwrappers.clear();
+    }
+
+    @Test
+    public void setsFieldsAndSetters() throws Exception {
+        BeanWrapper wrapper = new BeanWrapper(Bean.class);
+        Bean bean = (Bean) wrapper.newBeanInstance();
+        wrapper.set("count", bean, 3);
+        wrapper.set("name", bean, "bob");
+        wrapper.set("inherited", bean, "base");
+        assertEquals(3, bean.count);
+        assertEquals("set bob", bean.name);
+        assertEquals("base", bean.inherited);
+
+        Set<String> names = wrapper.getWrappers().stream().map(BeanWrapper.Property::getName).collect(Collectors.toSet());
+        assertEquals(Set.of("count", "name", "secret", "inherited"), names);
+        assertThrows(UnsupportedOperationException.class, () -> wrapper.getWrappers().clear());
+    }
+
+    @Test
+    public void reportsPropertiesItCannotSet() throws Exception {
+        BeanWrapper wrapper = new BeanWrapper(Bean.class);
+        Bean bean = (Bean) wrapper.newBeanInstance();
+        assertThrows(UnexpectedException.class, () -> wrapper.set("missing", bean, "x"));
+        // Private setter, set by reflection which refuses it
+        assertThrows(UnexpectedException.class, () -> wrapper.set("secret", bean, "x"));
+        // Wrong type
+        assertThrows(UnexpectedException.class, () -> wrapper.set("count", bean, "three"));
+
+        BeanWrapper failing = new BeanWrapper(Failing.class);
+        UnexpectedException e = assertThrows(UnexpectedException.class, () -> failing.set("value", null, "x"));
+        assertInstanceOf(NullPointerException.class, e.getCause());
+    }
+
+    @Test
+    public void createsBeans() throws Exception {
+        BeanWrapper hidden = new BeanWrapper(Hidden.class);
+        assertInstanceOf(Hidden.class, hidden.newBeanInstance());
+        assertNotSame(hidden.newBeanInstance(), hidden.newBeanInstance());
+
+        assertThrows(InstantiationException.class, () -> new BeanWrapper(Abstract.class).newBeanInstance());
+        InvocationTargetException e = assertThrows(InvocationTargetException.class, () -> new BeanWrapper(Failing.class).newBeanInstance());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    public void wrappersAreSharedUntilClassesChange() throws Exception {
+        Play.classloader = mock(ApplicationClassloader.class);
+        Play.classloader.currentState = new ApplicationClassloaderState();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<BeanWrapper>> wrappers = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                wrappers.add(executor.submit(() -> {
+                    start.await();
+                    return Binder.getBeanWrapper(Bean.class);
+                }));
+            }
+            start.countDown();
+            Set<BeanWrapper> distinct = ConcurrentHashMap.newKeySet();
+            for (Future<BeanWrapper> wrapper : wrappers) {
+                distinct.add(wrapper.get());
+            }
+            assertEquals(1, distinct.size());
+
+            BeanWrapper wrapper = Binder.getBeanWrapper(Bean.class);
+            assertSame(wrapper, Binder.getBeanWrapper(Bean.class));
+            Play.classloader.currentState = new ApplicationClassloaderState();
+            assertNotSame(wrapper, Binder.getBeanWrapper(Bean.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package play.data.binding;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import play.Play;
+import play.classloading.ApplicationClassloader;
+import play.classloading.ApplicationClassloaderState;
+import play.mvc.Context;
+import play.mvc.Http;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class BindingPlanTest {
+
+    public static class Person {
+        public String name;
+        public int age;
+    }
+
+    public static void save(String name, int age, Person person, List<String> tags) {
+    }
+
+    @BeforeAll
+    public static void setUp() {
+        // Plans are kept for the current application classes
+        Play.classloader = mock(ApplicationClassloader.class);
+        Play.classloader.currentState = new ApplicationClassloaderState();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        Play.classloader = null;
+    }
+
+    @Test
+    public void splitKeyLikeTheRegex() {
+        String[] keys = { "a", "a.b", "a[b].c", "a[b][c]", "a.b[c]", "a[]", "a[0][b]", ".a", "[a]", "a..b", "a.", "",
+                "]", "...", "[]", "a]b", "user.address[0].city" };
+        for (String key : keys) {
+            assertArrayEquals(key.split("[\\.\\[\\]]+"), ParamNode.splitKey(key), key);
+        }
+        Random random = new Random(42);
+        char[] alphabet = { 'a', 'b', '.', '[', ']' };
+        for (int i = 0; i < 10_000; i++) {
+            char[] key = new char[random.nextInt(9)];
+            for (int j = 0; j < key.length; j++) {
+                key[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String s = new String(key);
+            assertArrayEquals(s.split("[\\.\\[\\]]+"), ParamNode.splitKey(s), s);
+        }
+    }
+
+    @Test
+    public void planIsBuiltOncePerClasses() throws Exception {
+        Method method = method();
+        BindingPlan plan = BindingPlan.of(method);
+        assertSame(plan, BindingPlan.of(method));
+
+        Play.classloader.currentState = new ApplicationClassloaderState();
+        assertNotSame(plan, BindingPlan.of(method));
+    }
+
+    @Test
+    public void bindsSimpleAndBeanArguments() throws Exception {
+        Method method = method();
+        String[] names = { method.getParameters()[0].getName(), method.getParameters()[1].getName(),
+                method.getParameters()[2].getName(), method.getParameters()[3].getName() };
+        Context context = context();
+        context.getParams().put(names[0], "bob");
+        context.getParams().put(names[1], "42");
+        context.getParams().put(names[2] + ".name", "alice");
+        context.getParams().put(names[2] + ".age", "7");
+        context.getParams().put(names[3], new String[] { "x", "y" });
+
+        Object[] args = BindingPlan.of(method).bind(context, null);
+        assertEquals("bob", args[0]);
+        assertEquals(42, args[1]);
+        Person person = (Person) args[2];
+        assertEquals("alice", person.name);
+        assertEquals(7, person.age);
+        assertEquals(List.of("x", "y"), args[3]);
+    }
+
+    @Test
+    public void bindsMissingArgumentsToDefaults() throws Exception {
+        Object[] args = BindingPlan.of(method()).bind(context(), null);
+        assertNull(args[0]);
+        assertEquals(0, args[1]);
+    }
+
+    @Test
+    public void parameterTreeIsSharedUntilParamsChange() {
+        Context context = context();
+        context.getParams().put("person.name", "alice");
+        RootParamNode root = context.getParams().getRootParamNode();
+        assertSame(root, context.getParams().getRootParamNode());
+        context.getParams().put("person.age", "7");
+        assertNotSame(root, context.getParams().getRootParamNode());
+        assertEquals("7", context.getParams().getRootParamNode().getChild("person.age").getFirstValue(String.class));
+    }
+
+    private static Method method() throws NoSuchMethodException {
+        return BindingPlanTest.class.getMethod("save", String.class, int.class, Person.class, List.class);
+    }
+
+    private static Context context() {
+        Http.Request request = Http.Request.createRequest("127.0.0.1", "GET", "/", "", null, new ByteArrayInputStream(new byte[0]),
+                "/", "localhost", true, 80, "localhost", false, new HashMap<>(), new HashMap<>());
+        return new Context(request, new Http.Response());
+    }
+}
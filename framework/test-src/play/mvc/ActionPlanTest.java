@@ -0,0 +1,221 @@
+package play.mvc;
+
+import controllers.Intercepted;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import play.Play;
+import play.classloading.ApplicationClasses;
+import play.classloading.ApplicationClassloader;
+import play.classloading.ApplicationClassloaderState;
+import play.exceptions.JavaExecutionException;
+import play.exceptions.PlayException;
+import play.exceptions.UnexpectedException;
+import play.mvc.results.Ok;
+import play.utils.Java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ActionPlanTest {
+
+    @BeforeAll
+    public static void mockClasses() {
+        // Action plans are kept for the current application classes
+        Play.classloader = mock(ApplicationClassloader.class);
+        Play.classloader.currentState = new ApplicationClassloaderState();
+        // Errors point at the controllers, as they would in an application
+        Play.classes = mock(ApplicationClasses.class);
+        when(Play.classes.hasClass(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).startsWith("controllers."));
+    }
+
+    @AfterAll
+    public static void clear() {
+        Play.classloader = null;
+        Play.classes = null;
+    }
+
+    @BeforeEach
+    public void clearCalls() {
+        Intercepted.calls.clear();
+    }
+
+    @Test
+    public void planSelectsTheInterceptorsReflectionDid() throws Exception {
+        for (Class<? extends PlayController> controller : List.of(Intercepted.class, Intercepted.Nested.class)) {
+            for (String name : List.of("index", "fail", "boom")) {
+                Method action = controller.getMethod(name);
+                String fullAction = controller.getName().substring(12).replace("$", "") + "." + name;
+                ActionPlan plan = ActionPlan.of(controller, action);
+                assertEquals(action, plan.action.method);
+                assertEquals(reflective(controller, Before.class, fullAction), methods(plan.befores), fullAction);
+                assertEquals(reflective(controller, After.class, fullAction), methods(plan.afters), fullAction);
+                assertEquals(reflective(controller, Finally.class, fullAction), methods(plan.finallies), fullAction);
+                assertEquals(Java.findAllAnnotatedMethods(controller, Catch.class), methods(plan.catches), fullAction);
+                assertSame(plan, ActionPlan.of(controller, action));
+            }
+        }
+
+        ActionPlan nested = ActionPlan.of(Intercepted.Nested.class, Intercepted.Nested.class.getMethod("index"));
+        // Relative to Intercepted$Nested: stripped for @Before only
+        assertEquals(List.of("first", "second", "unlessIndex", "nestedBefore", "guard"), names(nested.befores));
+        assertEquals(List.of("afterOthers"), names(nested.afters));
+        assertEquals(List.of("done", "guardDone"), names(nested.finallies));
+        assertEquals(List.of("io", "illegal", "any"), names(nested.catches));
+    }
+
+    @Test
+    public void planIsDroppedWithTheApplicationClasses() throws Exception {
+        Method index = Intercepted.class.getMethod("index");
+        ActionPlan plan = ActionPlan.of(Intercepted.class, index);
+        Play.classloader.currentState = new ApplicationClassloaderState();
+        assertNotSame(plan, ActionPlan.of(Intercepted.class, index));
+    }
+
+    @Test
+    public void interceptorsRunAroundTheAction() throws Exception {
+        invoke(Intercepted.class, "index");
+        assertEquals(List.of("before first", "before second", "before only index", "index", "after index", "finally"),
+                Intercepted.calls);
+    }
+
+    @Test
+    public void interceptorsOfSuperclassesAndWithClassesRun() throws Exception {
+        invoke(Intercepted.Nested.class, "index");
+        assertEquals(List.of("before first", "before second", "before unless index", "nested before", "guard", "index",
+                "after others", "finally", "guard finally null"), Intercepted.calls);
+    }
+
+    @Test
+    public void matchingCatchesAndFinalliesSeeTheError() throws Exception {
+        JavaExecutionException e = assertThrows(JavaExecutionException.class, () -> invoke(Intercepted.class, "fail"));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(List.of("before first", "before second", "before unless index", "before qualified", "fail",
+                "catch illegal failed", "catch any failed", "finally", "finally IllegalStateException"), Intercepted.calls);
+
+        Intercepted.calls.clear();
+        assertThrows(JavaExecutionException.class, () -> invoke(Intercepted.Nested.class, "fail"));
+        assertEquals(List.of("before first", "before second", "before unless index", "before qualified", "guard",
+                "guard others", "fail", "catch illegal failed", "catch any failed", "finally",
+                "guard finally IllegalStateException"), Intercepted.calls);
+    }
+
+    @Test
+    public void errorsAreWrappedAsThroughMethodInvoke() throws Exception {
+        Method boom = Intercepted.class.getMethod("boom");
+        ActionPlan.Handler handler = ActionPlan.of(Intercepted.class, boom).action;
+        Intercepted controller = new Intercepted(null);
+        Throwable[] errors = { new IllegalStateException("unchecked"), new IOException("checked"), new StackOverflowError(),
+                new Ok(), new UnexpectedException("play") };
+        for (Throwable error : errors) {
+            Intercepted.toThrow = error;
+            Throwable reflective = assertThrows(Throwable.class, () -> ActionInvoker.invoke(boom, controller));
+            Throwable planned = assertThrows(Throwable.class, () -> handler.invoke(controller, new Object[0]));
+            assertSame(reflective.getClass(), planned.getClass(), error.toString());
+            if (error instanceof PlayException || error instanceof Ok) {
+                // Thrown as they are
+                assertSame(error, reflective);
+                assertSame(error, planned);
+            } else {
+                assertSame(error, reflective.getCause());
+                assertSame(error, planned.getCause());
+                JavaExecutionException expected = (JavaExecutionException) reflective;
+                JavaExecutionException actual = (JavaExecutionException) planned;
+                assertEquals(expected.getLineNumber(), actual.getLineNumber());
+                assertEquals(expected.getMessage(), actual.getMessage());
+            }
+        }
+        Intercepted.toThrow = null;
+
+        // Pointing at the line of the controller that threw
+        Method fail = Intercepted.class.getMethod("fail");
+        JavaExecutionException reflective = assertThrows(JavaExecutionException.class, () -> ActionInvoker.invoke(fail, controller));
+        JavaExecutionException planned = assertThrows(JavaExecutionException.class,
+                () -> ActionPlan.of(Intercepted.class, fail).action.invoke(controller, new Object[0]));
+        assertTrue(planned.getLineNumber() > 0);
+        assertEquals(reflective.getLineNumber(), planned.getLineNumber());
+    }
+
+    /**
+     * The interceptors of a kind that applied to an action when ActionInvoker selected them by reflection on each
+     * request.
+     */
+    private static List<Method> reflective(Class<?> controller, Class<? extends Annotation> type, String action) throws Exception {
+        List<Method> selected = new ArrayList<>();
+        for (Method method : Java.findAllAnnotatedMethods(controller, type)) {
+            Annotation annotation = method.getAnnotation(type);
+            String[] unless = (String[]) type.getMethod("unless").invoke(annotation);
+            String[] only = (String[]) type.getMethod("only").invoke(annotation);
+            String declaring = method.getDeclaringClass().getName().substring(12);
+            if (type == Before.class) {
+                declaring = declaring.replace("$", "");
+            }
+            boolean skip = false;
+            for (String un : only) {
+                if (!un.contains(".")) {
+                    un = declaring + "." + un;
+                }
+                if (un.equals(action)) {
+                    skip = false;
+                    break;
+                } else {
+                    skip = true;
+                }
+            }
+            for (String un : unless) {
+                if (!un.contains(".")) {
+                    un = declaring + "." + un;
+                }
+                if (un.equals(action)) {
+                    skip = true;
+                    break;
+                }
+            }
+            if (!skip) {
+                selected.add(method);
+            }
+        }
+        return selected;
+    }
+
+    private static List<Method> methods(List<ActionPlan.Handler> handlers) {
+        return handlers.stream().map(handler -> handler.method).toList();
+    }
+
+    private static List<String> names(List<ActionPlan.Handler> handlers) {
+        return handlers.stream().map(handler -> handler.method.getName()).toList();
+    }
+
+    private static void invoke(Class<? extends PlayController> controller, String action) throws Exception {
+        Http.Request request = Http.Request.createRequest("127.0.0.1", "GET", "/" + action, "", null, null, "/" + action,
+                "localhost", true, 80, "localhost", false, new HashMap<>(), new HashMap<>());
+        request.controllerClass = controller;
+        request.controller = controller.getName().substring(12).replace("$", "");
+        request.actionMethod = action;
+        request.action = request.controller + "." + action;
+        request.invokedMethod = controller.getMethod(action);
+        request.routeArgs = new HashMap<>();
+        request.resolved = true;
+        Http.Response response = new Http.Response();
+        response.out = new ByteArrayOutputStream();
+        ActionInvoker.invoke(new Context(request, response));
+        assertFalse(Intercepted.calls.isEmpty());
+    }
+}
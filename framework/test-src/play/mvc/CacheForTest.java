@@ -0,0 +1,142 @@
+package play.mvc;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import play.Play;
+import play.cache.Cache;
+import play.cache.CacheFor;
+import play.cache.CaffeineImpl;
+import play.classloading.ApplicationClassloader;
+import play.classloading.ApplicationClassloaderState;
+import play.mvc.results.Result;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class CacheForTest {
+
+    static final AtomicInteger invocations = new AtomicInteger();
+    static final AtomicInteger applications = new AtomicInteger();
+
+    public static class Pages extends Controller {
+
+        public Pages(Context context) {
+            super(context);
+        }
+
+        @CacheFor(id = "page", value = "1h")
+        public void page() {
+            invocations.incrementAndGet();
+            context.getResponse().setHeader("X-Page", "home");
+            context.getResponse().status = 201;
+            renderText("home " + invocations.get());
+        }
+
+        @CacheFor(id = "counted", value = "1h")
+        public void counted() {
+            invocations.incrementAndGet();
+            throw new Result() {
+                @Override
+                public void apply(Context context) {
+                    applications.incrementAndGet();
+                    context.getResponse().setCookie("visitor", "1");
+                    context.getResponse().out.writeBytes("counted".getBytes(StandardCharsets.UTF_8));
+                }
+            };
+        }
+    }
+
+    @BeforeAll
+    public static void startCache() {
+        // Action plans are kept for the current application classes
+        Play.classloader = mock(ApplicationClassloader.class);
+        Play.classloader.currentState = new ApplicationClassloaderState();
+        Cache.cacheImpl = CaffeineImpl.newInstance();
+    }
+
+    @AfterAll
+    public static void stopCache() {
+        Cache.cacheImpl = null;
+        Play.classloader = null;
+    }
+
+    @BeforeEach
+    public void clear() {
+        Cache.cacheImpl.clear();
+        invocations.set(0);
+        applications.set(0);
+    }
+
+    @Test
+    public void cachedResponseKeepsWhatTheActionSet() throws Exception {
+        Http.Response first = invoke("page", null);
+        assertEquals(201, first.status);
+        assertEquals("home", first.getHeader("X-Page"));
+        assertEquals("home 1", first.out.toString(StandardCharsets.UTF_8));
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+
+        Http.Response second = invoke("page", null);
+        assertEquals(1, invocations.get());
+        assertEquals(201, second.status);
+        assertEquals("home", second.getHeader("X-Page"));
+        assertEquals("home 1", second.out.toString(StandardCharsets.UTF_8));
+        assertEquals(etag, second.getHeader("ETag"));
+    }
+
+    @Test
+    public void matchingEntityTagIsNotModified() throws Exception {
+        String etag = invoke("page", null).getHeader("ETag");
+        Http.Response response = invoke("page", etag);
+        assertEquals(Http.StatusCode.NOT_MODIFIED, response.status);
+        assertEquals(0, response.out.size());
+        assertEquals(Http.StatusCode.NOT_MODIFIED, invoke("page", "W/" + etag).status);
+        assertEquals(201, invoke("page", "\"other\"").status);
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    public void uncacheableResultIsAppliedOnce() throws Exception {
+        Http.Response response = invoke("counted", null);
+        assertEquals(1, invocations.get());
+        assertEquals(1, applications.get());
+        assertEquals("counted", response.out.toString(StandardCharsets.UTF_8));
+        assertEquals("1", response.cookies.get("visitor").value);
+        assertNull(response.getHeader("ETag"));
+
+        invoke("counted", null);
+        assertEquals(2, invocations.get());
+        assertEquals(2, applications.get());
+    }
+
+    private static Http.Response invoke(String action, String ifNoneMatch) throws Exception {
+        Http.Request request = Http.Request.createRequest("127.0.0.1", "GET", "/" + action, "", null, null, "/" + action,
+                "localhost", true, 80, "localhost", false, new HashMap<>(), new HashMap<>());
+        if (ifNoneMatch != null) {
+            request.headers.put("if-none-match", new Http.Header("if-none-match", ifNoneMatch));
+        }
+        Method method = Pages.class.getMethod(action);
+        request.controllerClass = Pages.class;
+        request.controller = "Pages";
+        request.actionMethod = action;
+        request.action = "Pages." + action;
+        request.invokedMethod = method;
+        request.routeArgs = new HashMap<>();
+        request.resolved = true;
+        Http.Response response = new Http.Response();
+        response.out = new ByteArrayOutputStream();
+        Context context = new Context(request, response);
+        ActionInvoker.invoke(context);
+        return context.getResponse();
+    }
+}
@@ -0,0 +1,233 @@
+package play.mvc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import play.Invoker;
+import play.Play;
+import play.mvc.results.NotFound;
+import play.mvc.results.RenderStatic;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RouterTest {
+
+    private static final String ROUTES = String.join("\n",
+            "# Hosts",
+            "GET     {client}.example.com/dashboard          Clients.dashboard",
+            "GET     admin.example.com/                      Admin.index",
+            "",
+            "# Static",
+            "GET     /                                       Application.index",
+            "GET     /about                                  Application.about",
+            "GET     /users/                                 Users.index",
+            "GET     /users/new                              Users.blank",
+            "GET     /legacy///index                         Application.legacy",
+            "",
+            "# Hidden before the dynamic route that would take it",
+            "GET     /users/admin                            404",
+            "",
+            "# Dynamic",
+            "GET     /users/(?<id>[^/]+)                     Users.show",
+            "POST    /users/(?<id>[^/]+)                     Users.save",
+            "GET     /users/(?<id>[^/]+)/posts/(?<slug>[^/]+) Posts.show",
+            "GET     /(?<lang>[a-z]{2})/help                 Application.help",
+            "",
+            "# Regex",
+            "GET     /orders/(?<id>[0-9]+)                   Orders.show",
+            "GET     /orders/(?<name>[a-z]+)                 Orders.byName",
+            "GET     /archive/(?<year>[0-9]{4})/(?<month>[0-9]{2}) Archive.month",
+            "GET     /files/(?<path>.*)                      Files.get",
+            "GET     /v(?<version>[0-9]+)/status             Application.status",
+            "",
+            "# Formats",
+            "GET(json)   /api/items                          Api.itemsJson",
+            "GET(xml,html) /api/items                        Api.items",
+            "GET     /api/items\\.(?<format>[a-z]+)           Api.itemsAs",
+            "",
+            "# Static directories and files",
+            "GET     /public/                                staticDir:public",
+            "GET     /favicon.ico                            staticFile:public/favicon.ico",
+            "GET     /robots.txt                             404",
+            "",
+            "# Catch-all",
+            "*       /(?<section>[^/]+)/(?<page>[^/]+)       Application.page",
+            "*       /(?<section>[^/]+)/(?<page>[^/]+)/      Application.page");
+
+    private static final String[][] REQUESTS = {
+            // method, path, format, domain
+            { "GET", "/", null, null },
+            { "GET", "", null, null },
+            { "HEAD", "/about", null, null },
+            { "GET", "/about/", null, null },
+            { "GET", "/users/", null, null },
+            { "GET", "/users", null, null },
+            { "GET", "/users/new", null, null },
+            { "GET", "/users/admin", null, null },
+            { "GET", "/users/42", null, null },
+            { "POST", "/users/42", null, null },
+            { "DELETE", "/users/42", null, null },
+            { "GET", "/users/42/posts/hello-world", null, null },
+            { "GET", "/fr/help", null, null },
+            { "GET", "/orders/12", null, null },
+            { "GET", "/orders/big", null, null },
+            { "GET", "/orders/B1g", null, null },
+            { "GET", "/archive/2024/05", null, null },
+            { "GET", "/archive/24/05", null, null },
+            { "GET", "/files/a/b/c.txt", null, null },
+            { "GET", "/v2/status", null, null },
+            { "GET", "/api/items", "json", null },
+            { "GET", "/api/items", "html", null },
+            { "GET", "/api/items", "csv", null },
+            { "GET", "/api/items", null, null },
+            { "GET", "/api/items.csv", null, null },
+            { "GET", "/dashboard", null, "acme.example.com" },
+            { "GET", "/dashboard", null, "example.org" },
+            { "GET", "/", null, "admin.example.com" },
+            { "GET", "/", null, "www.example.org" },
+            { "GET", "/public/css/main.css", null, null },
+            { "GET", "/public/../conf/application.conf", null, null },
+            { "GET", "/favicon.ico", null, null },
+            { "GET", "/robots.txt", null, null },
+            { "PUT", "/Users/update", null, null },
+            { "PUT", "/Users/update/", null, null },
+            { "GET", "/nowhere", null, null },
+            { "OPTIONS", "/about", null, null },
+            { null, "/users/42", null, null },
+            // Empty segments
+            { "GET", "/legacy//index", null, null },
+            { "GET", "//about", null, null },
+            { "GET", "/users//posts/x", null, null },
+            { "GET", "/files//a//b", null, null },
+            { "GET", "/Users//", null, null },
+            { "GET", "//", null, null },
+    };
+
+    @BeforeEach
+    public void loadRoutes() {
+        Router.routes.clear();
+        Router.parse(ROUTES, "", "routes");
+    }
+
+    @AfterEach
+    public void clearRoutes() {
+        Router.routes.clear();
+    }
+
+    @Test
+    public void prefixTreeMatchesLikeLinearScan() {
+        Router.Route[] all = Router.routes.toArray(new Router.Route[0]);
+        for (String[] request : REQUESTS) {
+            Router.Route expected = firstMatch(all, request);
+            Router.Route actual = firstMatch(Router.candidates(request[0], request[1]), request);
+            assertSame(expected, actual, "Route for " + request[0] + " " + request[1] + " " + request[2] + " " + request[3]);
+        }
+    }
+
+    @Test
+    public void prefixTreeMatchesEveryRoute() {
+        // Every route of the file is found by at least one request, so the comparison above is not vacuous
+        Router.Route[] all = Router.routes.toArray(new Router.Route[0]);
+        for (Router.Route route : all) {
+            boolean found = false;
+            for (String[] request : REQUESTS) {
+                found |= firstMatch(Router.candidates(request[0], request[1]), request) == route;
+            }
+            assertTrue(found, "No request reaches " + route);
+        }
+    }
+
+    @Test
+    public void candidatesKeepTheRoutesFileOrder() {
+        Router.Route[] candidates = Router.candidates("GET", "/users/42");
+        List<Router.Route> routes = Router.routes;
+        for (int i = 1; i < candidates.length; i++) {
+            assertTrue(routes.indexOf(candidates[i - 1]) < routes.indexOf(candidates[i]));
+        }
+    }
+
+    @Test
+    public void routeWithEmptySegments() {
+        // The route path is stored as /legacy//index
+        assertEquals("Application.legacy", Router.route("GET", "/legacy//index").get("action"));
+        assertEquals("a//b", Router.route("GET", "/files/a//b").get("path"));
+        assertEquals("Application.page", Router.route("GET", "/legacy/index").get("action"));
+    }
+
+    @Test
+    public void routeHostsAndFormats() {
+        assertEquals("Clients.dashboard", Router.route("GET", "/dashboard", null, "acme.example.com").get("action"));
+        assertEquals("acme", Router.route("GET", "/dashboard", null, "acme.example.com").get("client"));
+        assertEquals("Api.itemsJson", Router.route("GET", "/api/items", "json").get("action"));
+        assertEquals("Api.items", Router.route("GET", "/api/items", "xml").get("action"));
+        assertEquals("Orders.show", Router.route("GET", "/orders/12").get("action"));
+        assertEquals("Orders.byName", Router.route("GET", "/orders/big").get("action"));
+        assertEquals("Archive.month", Router.route("GET", "/archive/2024/05").get("action"));
+    }
+
+    @Test
+    public void treeIsRebuiltWhenRoutesChange() {
+        assertNull(Router.route("GET", "/late").get("action"));
+        Router.prependRoute("GET", "/late", "Application.late");
+        assertEquals("Application.late", Router.route("GET", "/late").get("action"));
+    }
+
+    @Test
+    public void priorityIsThatOfTheMatchingRoute() {
+        Play.configuration.setProperty("play.pool.priority.critical", "Application.status");
+        Play.configuration.setProperty("play.pool.priority.low", " Api.itemsAs, Files.get");
+        try {
+            Router.routes.clear();
+            Router.parse(ROUTES, "", "routes");
+            assertEquals(Invoker.Priority.CRITICAL, Router.priority(request("GET", "/v2/status")));
+            assertEquals(Invoker.Priority.LOW, Router.priority(request("GET", "/api/items.csv")));
+            assertEquals(Invoker.Priority.LOW, Router.priority(request("GET", "/files/a/b")));
+            assertEquals(Invoker.Priority.NORMAL, Router.priority(request("GET", "/about")));
+            // Unrouted, static or hidden
+            assertEquals(Invoker.Priority.NORMAL, Router.priority(request("GET", "/nowhere/at/all")));
+            assertEquals(Invoker.Priority.NORMAL, Router.priority(request("GET", "/public/css/main.css")));
+            assertEquals(Invoker.Priority.NORMAL, Router.priority(request("GET", "/robots.txt")));
+        } finally {
+            Play.configuration.remove("play.pool.priority.critical");
+            Play.configuration.remove("play.pool.priority.low");
+        }
+    }
+
+    @Test
+    public void literalSegments() {
+        assertArrayEquals(new String[] { "users", "new" }, RouteTrie.literalSegments("/users/new"));
+        assertArrayEquals(new String[] { "users" }, RouteTrie.literalSegments("/users/(?<id>[^/]+)"));
+        assertArrayEquals(new String[] { "users" }, RouteTrie.literalSegments("/users/"));
+        assertArrayEquals(new String[] {}, RouteTrie.literalSegments("/v(?<version>[0-9]+)/status"));
+        assertArrayEquals(new String[] { "legacy", "", "index" }, RouteTrie.literalSegments("/legacy//index"));
+        assertArrayEquals(new String[] { "files", "" }, RouteTrie.literalSegments("/files//(?<path>.*)"));
+        assertArrayEquals(new String[] {}, RouteTrie.literalSegments("/"));
+        assertArrayEquals(new String[] {}, RouteTrie.literalSegments("example.com/"));
+    }
+
+    private static Http.Request request(String method, String path) {
+        return Http.Request.createRequest("127.0.0.1", method, path, "", null, new ByteArrayInputStream(new byte[0]), path,
+                "localhost", true, 80, "localhost", false, new HashMap<>(), new HashMap<>());
+    }
+
+    private static Router.Route firstMatch(Router.Route[] routes, String[] request) {
+        for (Router.Route route : routes) {
+            try {
+                if (route.matches(request[0], request[1], request[2], request[3]) != null) {
+                    return route;
+                }
+            } catch (RenderStatic | NotFound e) {
+                return route;
+            }
+        }
+        return null;
+    }
+}
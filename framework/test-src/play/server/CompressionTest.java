@@ -0,0 +1,161 @@
+package play.server;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import play.Play;
+import play.mvc.Http;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionTest {
+
+    private static final byte[] BODY = "{\"items\":[1,2,3]}".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    File dir;
+
+    @BeforeAll
+    public static void enableCompression() {
+        // Read once, when Compression is first used
+        Play.configuration.setProperty("http.compression", "true");
+        Play.configuration.setProperty("http.compression.minSize", "1024");
+    }
+
+    @Test
+    public void dynamicResponseIsGzippedOverHttp1() throws Exception {
+        try (ResponseServer server = new ResponseServer("application/json", BODY, true)) {
+            ResponseServer.Received response = server.http1(HttpMethod.GET, "gzip");
+            assertEquals("gzip", response.headers().get("content-encoding"));
+            assertTrue("Accept-Encoding".equalsIgnoreCase(response.headers().get("vary")));
+            assertArrayEquals(BODY, gunzip(response.body()));
+        }
+    }
+
+    @Test
+    public void dynamicResponseIsGzippedOverHttp2() throws Exception {
+        try (ResponseServer server = new ResponseServer("application/json", BODY, true)) {
+            ResponseServer.Received response = server.http2(HttpMethod.GET, "gzip");
+            assertEquals("gzip", response.headers().get("content-encoding"));
+            assertArrayEquals(BODY, gunzip(response.body()));
+        }
+    }
+
+    @Test
+    public void smallOrUnacceptedResponsesAreSentAsIs() throws Exception {
+        byte[] small = "{}".getBytes(StandardCharsets.UTF_8);
+        try (ResponseServer server = new ResponseServer("application/json", small, true)) {
+            ResponseServer.Received response = server.http1(HttpMethod.GET, "gzip");
+            assertNull(response.headers().get("content-encoding"));
+            assertArrayEquals(small, response.body());
+        }
+        try (ResponseServer server = new ResponseServer("application/json", BODY, true)) {
+            ResponseServer.Received response = server.http1(HttpMethod.GET, null);
+            assertNull(response.headers().get("content-encoding"));
+            assertArrayEquals(BODY, response.body());
+        }
+    }
+
+    @Test
+    public void encodedResponseHasAWeakEntityTag() {
+        assertEquals("W/\"abc\"", compressedEtag("\"abc\"", "gzip"));
+        assertEquals("W/\"abc\"", compressedEtag("W/\"abc\"", "gzip"));
+        assertEquals("\"abc\"", compressedEtag("\"abc\"", "identity"));
+    }
+
+    @Test
+    public void staticFileEntityTagNamesItsCoding() throws IOException {
+        File file = new File(dir, "app.js");
+        Files.write(file.toPath(), BODY);
+        // HTTP dates have no milliseconds
+        file.setLastModified(1_700_000_000_000L);
+
+        String identity = etag(file, null);
+        String gzip = etag(file, "gzip");
+        assertEquals(identity.substring(0, identity.length() - 1) + "-gzip\"", gzip);
+
+        File brotli = new File(dir, "app.js.br");
+        Files.write(brotli.toPath(), new byte[] { 1 });
+        String br = etag(file, "gzip, br");
+        assertNotEquals(gzip, br);
+        assertEquals(identity.substring(0, identity.length() - 1) + "-br\"", br);
+
+        // A tag of the identity body does not validate the gzipped one
+        HttpRequest request = request("gzip");
+        request.headers().set(HttpHeaderNames.IF_MODIFIED_SINCE, HttpDate.format(file.lastModified()));
+        request.headers().set(HttpHeaderNames.IF_NONE_MATCH, identity);
+        HttpResponse response = PlayHandler.addEtag(request, new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK), file, "gzip");
+        assertEquals(HttpResponseStatus.OK, response.status());
+        request.headers().set(HttpHeaderNames.IF_NONE_MATCH, gzip);
+        response = PlayHandler.addEtag(request, new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK), file, "gzip");
+        assertEquals(HttpResponseStatus.NOT_MODIFIED, response.status());
+    }
+
+    @Test
+    public void rangeRequestsGetTheIdentityCoding() throws IOException {
+        File file = new File(dir, "app.js");
+        Files.write(file.toPath(), BODY);
+        HttpRequest request = request("gzip");
+        request.headers().set(HttpHeaderNames.RANGE, "bytes=0-9");
+        assertNull(FileService.contentCoding(file, request, new Http.Response()));
+    }
+
+    private static String etag(File file, String acceptEncoding) {
+        HttpRequest request = request(acceptEncoding);
+        String coding = FileService.contentCoding(file, request, new Http.Response());
+        HttpResponse response = PlayHandler.addEtag(request, new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK), file, coding);
+        return response.headers().get(HttpHeaderNames.ETAG);
+    }
+
+    private static HttpRequest request(String acceptEncoding) {
+        HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/public/app.js");
+        if (acceptEncoding != null) {
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static String compressedEtag(String etag, String acceptEncoding) {
+        EmbeddedChannel channel = new EmbeddedChannel(new Compression.ResponseCompressor());
+        try {
+            channel.writeInbound(request(acceptEncoding));
+            HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, BODY.length);
+            response.headers().set(HttpHeaderNames.ETAG, etag);
+            channel.writeOutbound(response, new DefaultLastHttpContent(Unpooled.wrappedBuffer(BODY)));
+            HttpResponse written = channel.readOutbound();
+            return written.headers().get(HttpHeaderNames.ETAG);
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
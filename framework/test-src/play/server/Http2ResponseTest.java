@@ -0,0 +1,44 @@
+package play.server;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class Http2ResponseTest {
+
+    private static final byte[] BODY = "{\"hello\":\"world\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void bufferedBodyOverHttp2() throws Exception {
+        try (ResponseServer server = new ResponseServer("application/json", BODY, false)) {
+            ResponseServer.Received response = server.http2(HttpMethod.GET, null);
+            assertEquals(HttpResponseStatus.OK, response.status());
+            assertEquals("application/json", response.headers().get("content-type"));
+            assertEquals(String.valueOf(BODY.length), response.headers().get("content-length"));
+            assertArrayEquals(BODY, response.body());
+        }
+    }
+
+    @Test
+    public void headOverHttp2EndsTheStream() throws Exception {
+        try (ResponseServer server = new ResponseServer("application/json", BODY, false)) {
+            ResponseServer.Received response = server.http2(HttpMethod.HEAD, null);
+            assertEquals(HttpResponseStatus.OK, response.status());
+            assertArrayEquals(new byte[0], response.body());
+        }
+    }
+
+    @Test
+    public void bufferedBodyOverHttp1() throws Exception {
+        try (ResponseServer server = new ResponseServer("application/json", BODY, false)) {
+            ResponseServer.Received response = server.http1(HttpMethod.GET, null);
+            assertEquals(HttpResponseStatus.OK, response.status());
+            assertArrayEquals(BODY, response.body());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package play.server;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+import play.mvc.Http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyRequestMapsTest {
+
+    @Test
+    public void headersAreLookedUpLikeTheEagerCopy() {
+        HttpHeaders source = headers();
+        LazyHeaderMap lazy = new LazyHeaderMap(source);
+        assertEquals("localhost", lazy.get("host").value());
+        assertEquals(List.of("text/html", "application/json"), lazy.get("accept").values);
+        assertEquals("accept", lazy.get("accept").name);
+        // Names were lower cased when all of them were copied
+        assertNull(lazy.get("Host"));
+        assertNull(lazy.get("X-Forwarded-For"));
+        assertEquals("10.0.0.1", lazy.get("x-forwarded-for").value());
+        assertNull(lazy.get("missing"));
+        assertFalse(lazy.containsKey("missing"));
+        assertTrue(lazy.containsKey("host"));
+        assertNull(lazy.get(42));
+
+        assertEquals(values(eager(source)), values(lazy));
+        assertEquals(3, lazy.size());
+    }
+
+    @Test
+    public void headersCanBeChangedBeforeAndAfterTheyAreAllRead() {
+        LazyHeaderMap lazy = new LazyHeaderMap(headers());
+        assertEquals("localhost", lazy.remove("host").value());
+        assertNull(lazy.get("host"));
+        assertNull(lazy.remove("missing"));
+        assertNull(lazy.put("x-request-id", new Http.Header("x-request-id", "1")));
+        assertEquals("10.0.0.1", lazy.put("x-forwarded-for", new Http.Header("x-forwarded-for", "10.0.0.2")).value());
+
+        Map<String, List<String>> expected = new TreeMap<>();
+        expected.put("accept", List.of("text/html", "application/json"));
+        expected.put("x-forwarded-for", List.of("10.0.0.2"));
+        expected.put("x-request-id", List.of("1"));
+        // Removed and missing headers are not entries
+        assertEquals(expected, values(lazy));
+        assertEquals(3, lazy.size());
+
+        assertEquals("1", lazy.remove("x-request-id").value());
+        assertNull(lazy.get("x-request-id"));
+        lazy.put("host", new Http.Header("host", "example.com"));
+        assertEquals("example.com", lazy.get("host").value());
+        assertEquals(3, lazy.size());
+    }
+
+    @Test
+    public void clearedHeadersAreNotReadAgain() {
+        LazyHeaderMap lazy = new LazyHeaderMap(headers());
+        lazy.get("host");
+        lazy.clear();
+        assertTrue(lazy.isEmpty());
+        assertNull(lazy.get("accept"));
+        lazy.put("host", new Http.Header("host", "example.com"));
+        assertEquals(Map.of("host", List.of("example.com")), values(lazy));
+    }
+
+    @Test
+    public void headersAreSerializedAsAPlainMap() throws Exception {
+        LazyHeaderMap lazy = new LazyHeaderMap(headers());
+        lazy.remove("host");
+        Object copy = roundTrip(lazy);
+        assertSame(HashMap.class, copy.getClass());
+        @SuppressWarnings("unchecked")
+        Map<String, Http.Header> headers = (Map<String, Http.Header>) copy;
+        assertEquals(values(lazy), values(headers));
+    }
+
+    @Test
+    public void cookiesAreDecodedWhenFirstAskedFor() throws Exception {
+        LazyCookieMap cookies = new LazyCookieMap("PLAY_SESSION=abc; lang=fr");
+        assertEquals("abc", cookies.get("PLAY_SESSION").value);
+        assertEquals("lang", cookies.get("lang").name);
+        assertEquals(2, cookies.size());
+        assertNull(cookies.get("missing"));
+
+        Http.Cookie cookie = new Http.Cookie();
+        cookie.name = "theme";
+        cookie.value = "dark";
+        assertNull(cookies.put("theme", cookie));
+        assertEquals("fr", cookies.remove("lang").value);
+        assertEquals(2, cookies.size());
+        assertTrue(cookies.containsKey("theme"));
+        assertFalse(cookies.containsKey("lang"));
+
+        Object copy = roundTrip(cookies);
+        assertSame(HashMap.class, copy.getClass());
+        assertEquals(cookies.keySet(), ((Map<?, ?>) copy).keySet());
+
+        cookies.clear();
+        assertTrue(cookies.isEmpty());
+    }
+
+    @Test
+    public void requestWithoutCookiesHasNone() {
+        LazyCookieMap cookies = new LazyCookieMap(null);
+        assertTrue(cookies.isEmpty());
+        assertNull(cookies.get("PLAY_SESSION"));
+        assertTrue(new LazyCookieMap("").isEmpty());
+    }
+
+    private static HttpHeaders headers() {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.add("Host", "localhost");
+        headers.add("Accept", "text/html");
+        headers.add("accept", "application/json");
+        headers.add("X-Forwarded-For", "10.0.0.1");
+        return headers;
+    }
+
+    /**
+     * The headers of a request as they were copied before they were read lazily.
+     */
+    private static Map<String, Http.Header> eager(HttpHeaders source) {
+        Map<String, Http.Header> headers = new HashMap<>();
+        for (String key : source.names()) {
+            headers.put(key.toLowerCase(), new Http.Header(key.toLowerCase(), new ArrayList<>(source.getAll(key))));
+        }
+        return headers;
+    }
+
+    private static Map<String, List<String>> values(Map<String, Http.Header> headers) {
+        Map<String, List<String>> values = new TreeMap<>();
+        headers.forEach((name, header) -> {
+            assertEquals(name, header.name);
+            values.put(name, header.values);
+        });
+        return values;
+    }
+
+    private static Object roundTrip(Object map) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+}
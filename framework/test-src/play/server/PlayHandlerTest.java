@@ -0,0 +1,62 @@
+package play.server;
+
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PlayHandlerTest {
+
+    @Test
+    public void serve503AsksToRetryAndKeepsTheConnectionAlive() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        PlayHandler.serve503(channel.pipeline().firstContext(), request(HttpVersion.HTTP_1_1));
+        FullHttpResponse response = channel.readOutbound();
+        try {
+            assertEquals(HttpResponseStatus.SERVICE_UNAVAILABLE, response.status());
+            assertEquals("1", response.headers().get(HttpHeaderNames.RETRY_AFTER));
+            assertTrue(response.headers().get(HttpHeaderNames.CONTENT_TYPE).startsWith("text/plain"));
+            assertEquals("Service Unavailable", response.content().toString(StandardCharsets.UTF_8));
+            assertEquals(String.valueOf(response.content().readableBytes()), response.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        } finally {
+            response.release();
+        }
+        assertTrue(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void serve503ClosesConnectionsThatAreNotKeptAlive() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        HttpRequest request = request(HttpVersion.HTTP_1_1);
+        request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        PlayHandler.serve503(channel.pipeline().firstContext(), request);
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(HttpResponseStatus.SERVICE_UNAVAILABLE, response.status());
+        response.release();
+        assertFalse(channel.isOpen());
+
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        PlayHandler.serve503(channel.pipeline().firstContext(), request(HttpVersion.HTTP_1_0));
+        response = channel.readOutbound();
+        response.release();
+        assertFalse(channel.isOpen());
+    }
+
+    private static HttpRequest request(HttpVersion version) {
+        return new DefaultFullHttpRequest(version, HttpMethod.GET, "/");
+    }
+}
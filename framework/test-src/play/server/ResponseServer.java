@@ -0,0 +1,172 @@
+package play.server;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import play.mvc.Http;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local server answering every request with a buffered body through {@link PlayHandler#writeResponse}, over HTTP/1.1
+ * or HTTP/2 with prior knowledge, and a client for both.
+ */
+final class ResponseServer implements AutoCloseable {
+
+    /**
+     * A response as the client received it, its body aggregated.
+     */
+    record Received(HttpVersion version, HttpResponseStatus status, Map<String, String> headers, byte[] body) {
+    }
+
+    private final EventLoopGroup group = new MultiThreadIoEventLoopGroup(2, NioIoHandler.newFactory());
+    private final Channel server;
+
+    ResponseServer(String contentType, byte[] body, boolean compress) throws InterruptedException {
+        server = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(Http2Support.priorKnowledge(
+                                http2 -> Http2Support.configure(http2, false, stream -> addHandlers(stream, contentType, body, compress)),
+                                http1 -> {
+                                    http1.pipeline().addLast(new HttpServerCodec());
+                                    addHandlers(http1, contentType, body, compress);
+                                }));
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+    }
+
+    private static void addHandlers(Channel ch, String contentType, byte[] body, boolean compress) {
+        if (compress) {
+            ch.pipeline().addLast(new Compression.ResponseCompressor());
+        }
+        ch.pipeline().addLast(new ChunkedWriteHandler());
+        ch.pipeline().addLast(new SimpleChannelInboundHandler<HttpRequest>() {
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, HttpRequest request) {
+                Http.Response response = new Http.Response();
+                response.out = new PooledOutputStream(ctx.alloc(), true);
+                response.out.writeBytes(body);
+                HttpResponse nettyResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                nettyResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+                PlayHandler.writeResponse(ctx, response, nettyResponse, request);
+            }
+        });
+    }
+
+    int port() {
+        return ((InetSocketAddress) server.localAddress()).getPort();
+    }
+
+    Received http1(HttpMethod method, String acceptEncoding) throws Exception {
+        CompletableFuture<Received> received = new CompletableFuture<>();
+        Channel ch = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec(),
+                                new HttpObjectAggregator(1 << 20), receiver(received));
+                    }
+                })
+                .connect("127.0.0.1", port()).sync().channel();
+        try {
+            ch.writeAndFlush(request(method, acceptEncoding));
+            return received.get(5, TimeUnit.SECONDS);
+        } finally {
+            ch.close();
+        }
+    }
+
+    Received http2(HttpMethod method, String acceptEncoding) throws Exception {
+        CompletableFuture<Received> received = new CompletableFuture<>();
+        Channel ch = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build(),
+                                new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+                    }
+                })
+                .connect("127.0.0.1", port()).sync().channel();
+        try {
+            Http2StreamChannel stream = new Http2StreamChannelBootstrap(ch).handler(new ChannelInitializer<Http2StreamChannel>() {
+                @Override
+                protected void initChannel(Http2StreamChannel stream) {
+                    // The aggregator only hands the response over once the stream has ended
+                    stream.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false),
+                            new HttpObjectAggregator(1 << 20), receiver(received));
+                }
+            }).open().sync().getNow();
+            stream.writeAndFlush(request(method, acceptEncoding));
+            return received.get(5, TimeUnit.SECONDS);
+        } finally {
+            ch.close();
+        }
+    }
+
+    private HttpRequest request(HttpMethod method, String acceptEncoding) {
+        HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, "/");
+        request.headers().set(HttpHeaderNames.HOST, "127.0.0.1:" + port());
+        if (acceptEncoding != null) {
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static SimpleChannelInboundHandler<FullHttpResponse> receiver(CompletableFuture<Received> received) {
+        return new SimpleChannelInboundHandler<FullHttpResponse>() {
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+                Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                response.headers().forEach(header -> headers.put(header.getKey(), header.getValue()));
+                received.complete(new Received(response.protocolVersion(), response.status(), headers,
+                        ByteBufUtil.getBytes(response.content())));
+            }
+
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                received.completeExceptionally(cause);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+}
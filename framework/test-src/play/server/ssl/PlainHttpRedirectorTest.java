@@ -0,0 +1,122 @@
+package play.server.ssl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import play.server.Http2Support;
+import play.server.Server;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PlainHttpRedirectorTest {
+
+    private static SelfSignedCertificate certificate;
+    private static SslContext serverContext;
+
+    @BeforeAll
+    public static void createContext() throws Exception {
+        certificate = new SelfSignedCertificate("localhost");
+        serverContext = SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey()).build();
+        Server.httpsPort = 9443;
+    }
+
+    @AfterAll
+    public static void deleteCertificate() {
+        certificate.delete();
+    }
+
+    @Test
+    public void plainHttpIsRedirectedBeforeProtocolNegotiation() throws Exception {
+        AtomicInteger negotiated = new AtomicInteger();
+        EmbeddedChannel channel = server(Http2Support.negotiation(
+                c -> negotiated.incrementAndGet(), c -> negotiated.incrementAndGet()));
+        assertRedirected(channel);
+        assertEquals(0, negotiated.get());
+    }
+
+    @Test
+    public void plainHttpIsRedirectedBeforeTheHttpCodecs() throws Exception {
+        assertRedirected(server(new HttpRequestDecoder()));
+    }
+
+    @Test
+    public void requestSplitBeforeTheRecordHeaderIsRedirected() throws Exception {
+        EmbeddedChannel channel = server(new HttpRequestDecoder());
+        channel.writeInbound(Unpooled.copiedBuffer("GE", StandardCharsets.US_ASCII));
+        assertNull(channel.readOutbound());
+        assertRedirected(channel);
+    }
+
+    @Test
+    public void tlsClientsAreLeftToTheSslHandler() throws Exception {
+        EmbeddedChannel server = server(new ChannelInboundHandlerAdapter());
+        SslContext clientContext = SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+        EmbeddedChannel client = new EmbeddedChannel(clientContext.newHandler(ByteBufAllocator.DEFAULT));
+        SslHandler clientSsl = client.pipeline().get(SslHandler.class);
+        SslHandler serverSsl = server.pipeline().get(SslHandler.class);
+        for (int i = 0; i < 20 && !(clientSsl.handshakeFuture().isDone() && serverSsl.handshakeFuture().isDone()); i++) {
+            shuttle(client, server);
+            shuttle(server, client);
+        }
+        assertTrue(serverSsl.handshakeFuture().isSuccess());
+        assertTrue(clientSsl.handshakeFuture().isSuccess());
+        assertNull(server.pipeline().get(PlainHttpRedirector.class));
+        assertTrue(server.isOpen());
+        server.finishAndReleaseAll();
+        client.finishAndReleaseAll();
+    }
+
+    private static void assertRedirected(EmbeddedChannel channel) {
+        channel.writeInbound(Unpooled.copiedBuffer("GET /page HTTP/1.1\r\nHost: localhost\r\n\r\n", StandardCharsets.US_ASCII));
+        StringBuilder written = new StringBuilder();
+        for (ByteBuf buffer; (buffer = channel.readOutbound()) != null; ) {
+            written.append(buffer.toString(StandardCharsets.US_ASCII));
+            buffer.release();
+        }
+        assertTrue(written.toString().startsWith("HTTP/1.1 307 Temporary Redirect\r\n"), written.toString());
+        assertTrue(written.toString().contains("location: https://localhost:9443/\r\n"), written.toString());
+        assertFalse(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    private static void shuttle(EmbeddedChannel from, EmbeddedChannel to) {
+        for (Object message; (message = from.readOutbound()) != null; ) {
+            to.writeInbound(message);
+        }
+    }
+
+    private static EmbeddedChannel server(ChannelHandler next) throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(false, false) {
+            @Override
+            protected SocketAddress localAddress0() {
+                return new InetSocketAddress("localhost", 9443);
+            }
+        };
+        // As HttpsServerInitializer does
+        channel.pipeline().addLast("plainHttp", new PlainHttpRedirector());
+        channel.pipeline().addLast("ssl", serverContext.newHandler(channel.alloc()));
+        channel.pipeline().addLast(next);
+        channel.register();
+        return channel;
+    }
+}
@@ -0,0 +1,227 @@
+package play.templates;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import play.Play;
+import play.cache.CacheFor;
+import play.classloading.ApplicationClasses;
+import play.classloading.ApplicationClassloader;
+import play.mvc.Context;
+import play.mvc.Http;
+import play.mvc.results.RenderTemplate;
+import play.server.PooledOutputStream;
+import play.vfs.VirtualFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class StreamingTemplateTest {
+
+    @TempDir
+    static File views;
+
+    @BeforeAll
+    public static void loadViews() throws Exception {
+        write("main.html", "<html>\n<body>\n#{doLayout /}\n</body>\n<footer>#{get 'title' /}</footer>\n</html>\n");
+        write("section.html", "#{extends 'main.html' /}\n<section>\n  #{doLayout /}\n</section>\n#{set title:'Section' /}\n");
+        write("page.html", "#{extends 'main.html' /}\n#{set title:'Page' /}\n  Hello ${name}!  \n\n");
+        write("nested.html", "#{extends 'section.html' /}\n#{set title:'Nested' /}\n<p>${name}</p>\n"
+                + "#{list items:1..3, as:'i'}<i>${i}</i>\n#{/list}\n");
+        write("plain.html", "\n  <p>${name} &amp; é</p>  \n");
+        write("dynamic.html", "#{extends layout /}\n<p>${name}</p>\n");
+        write("getFirst.html", "<title>#{get 'title' /}</title>\n#{doLayout /}\n");
+        write("readsSet.html", "#{extends 'getFirst.html' /}\n#{set title:'Page' /}\n<p>${name}</p>\n");
+        write("setFirst.html", "#{set title:'Layout' /}\n<main>#{doLayout /}</main>\n<footer>#{get 'title' /}</footer>\n");
+        write("overridden.html", "#{extends 'setFirst.html' /}\n#{set title:'Page' /}\n<p>${name}</p>\n");
+        write("cached.html", "#{extends 'main.html' /}\n<p>${name}</p>\n");
+
+        Play.classes = mock(ApplicationClasses.class);
+        Play.classloader = new ApplicationClassloader() {
+            @Override
+            public List<Class<?>> getAllClasses() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public List<Class> getAssignableClasses(Class<?> clazz) {
+                return new ArrayList<>();
+            }
+        };
+        Play.applicationPath = views;
+        Play.templatesPath.add(VirtualFile.open(views));
+        // Read once, when RenderTemplate is first used
+        Play.configuration.setProperty("template.streaming", "true");
+        Play.configuration.setProperty("template.streaming.chunkSize", "16");
+    }
+
+    @AfterAll
+    public static void clear() {
+        Play.templatesPath.clear();
+        Play.applicationPath = null;
+        Play.classloader = null;
+        Play.classes = null;
+    }
+
+    @Test
+    public void pageWithOneLayoutStreamsAsRendered() throws Exception {
+        assertStreamedAsRendered("page.html", List.of("/main.html"));
+    }
+
+    @Test
+    public void pageWithNestedLayoutsStreamsAsRendered() throws Exception {
+        assertStreamedAsRendered("nested.html", List.of("/section.html", "/main.html"));
+    }
+
+    @Test
+    public void pageWithoutLayoutStreamsAsRendered() throws Exception {
+        assertStreamedAsRendered("plain.html", List.of());
+    }
+
+    @Test
+    public void layoutsOnlyKnownByRenderingAreNotStreamed() {
+        assertNull(template("dynamic.html").streamingLayouts());
+    }
+
+    @Test
+    public void layoutReadingBeforeItsBodyIsNotStreamed() {
+        assertNull(template("readsSet.html").streamingLayouts());
+        assertEquals("<title>Page</title>\n<p>bob</p>", render("readsSet.html"));
+    }
+
+    @Test
+    public void layoutSettingBeforeItsBodyIsNotStreamed() {
+        assertNull(template("overridden.html").streamingLayouts());
+        assertEquals("<main><p>bob</p>\n</main>\n<footer>Layout</footer>", render("overridden.html"));
+    }
+
+    @Test
+    public void resultsStreamUnlessCached() throws Exception {
+        String rendered = render("cached.html");
+
+        Http.Response response = response();
+        Context context = new Context(request(null), response);
+        RenderTemplate streamed = new RenderTemplate(context, template("cached.html"), arguments());
+        assertNull(streamed.getContent());
+        Sent sent = collect(response);
+        streamed.apply(context);
+        assertArrayEquals(rendered.getBytes(StandardCharsets.UTF_8), sent.bytes());
+        assertTrue(response.chunked);
+        ((PooledOutputStream) response.out).release();
+
+        // The cache keeps the content of the result
+        response = response();
+        context = new Context(request(StreamingTemplateTest.class.getDeclaredMethod("cachedAction")), response);
+        RenderTemplate buffered = new RenderTemplate(context, template("cached.html"), arguments());
+        assertEquals(rendered, buffered.getContent());
+        ((PooledOutputStream) response.out).release();
+
+        // Only the server's buffer is sent in chunks
+        response = response();
+        response.out = new ByteArrayOutputStream();
+        context = new Context(request(null), response);
+        assertNotNull(new RenderTemplate(context, template("cached.html"), arguments()).getContent());
+    }
+
+    @CacheFor
+    static void cachedAction() {
+    }
+
+    /**
+     * Streams the page in chunks of every size up to past its length, and checks the client gets what a buffered
+     * render gives.
+     */
+    private static void assertStreamedAsRendered(String name, List<String> layouts) throws Exception {
+        GroovyTemplate template = template(name);
+        assertEquals(layouts, template.streamingLayouts().stream().map(layout -> layout.name).toList());
+        byte[] rendered = render(name).getBytes(StandardCharsets.UTF_8);
+        for (int chunkSize = 1; chunkSize <= rendered.length + 1; chunkSize++) {
+            Http.Response response = response();
+            Sent sent = collect(response);
+            StreamingWriter writer = new StreamingWriter(response, (PooledOutputStream) response.out, StandardCharsets.UTF_8,
+                    chunkSize, !layouts.isEmpty());
+            template.stream(new Context(request(null), response), arguments(), template.streamingLayouts(), writer);
+            writer.close();
+            assertArrayEquals(rendered, sent.bytes(), name + " in chunks of " + chunkSize);
+            assertEquals(sent.chunks.size() > 0, response.chunked);
+            ((PooledOutputStream) response.out).release();
+        }
+    }
+
+    private static String render(String name) {
+        return template(name).render(new Context(request(null), new Http.Response()), arguments());
+    }
+
+    private static GroovyTemplate template(String name) {
+        return (GroovyTemplate) TemplateLoader.load(name);
+    }
+
+    private static Map<String, Object> arguments() {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("name", "bob");
+        arguments.put("layout", "main.html");
+        return arguments;
+    }
+
+    private static Http.Request request(Method action) {
+        Http.Request request = Http.Request.createRequest("127.0.0.1", "GET", "/", "", null, new ByteArrayInputStream(new byte[0]),
+                "/", "localhost", true, 80, "localhost", false, new HashMap<>(), new HashMap<>());
+        request.invokedMethod = action;
+        return request;
+    }
+
+    private static Http.Response response() {
+        Http.Response response = new Http.Response();
+        response.out = new PooledOutputStream(UnpooledByteBufAllocator.DEFAULT, false);
+        return response;
+    }
+
+    /**
+     * What the client gets: the chunks sent, then what is left in the buffer.
+     */
+    private static Sent collect(Http.Response response) {
+        Sent sent = new Sent(response, new ArrayList<>());
+        response.onWriteChunk(chunk -> {
+            ByteBuf bytes = (ByteBuf) chunk;
+            byte[] copy = new byte[bytes.readableBytes()];
+            bytes.readBytes(copy);
+            sent.chunks.add(copy);
+            bytes.release();
+        });
+        return sent;
+    }
+
+    private record Sent(Http.Response response, List<byte[]> chunks) {
+
+        byte[] bytes() throws Exception {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (byte[] chunk : chunks) {
+                bytes.write(chunk);
+            }
+            bytes.write(((PooledOutputStream) response.out).toByteArray());
+            return bytes.toByteArray();
+        }
+    }
+
+    private static void write(String name, String source) throws Exception {
+        Files.writeString(new File(views, name).toPath(), source);
+    }
+}
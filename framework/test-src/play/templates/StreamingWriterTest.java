@@ -0,0 +1,127 @@
+package play.templates;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import play.mvc.Http;
+import play.server.PooledOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingWriterTest {
+
+    private final Http.Response response = new Http.Response();
+    private final PooledOutputStream buffer = new PooledOutputStream(UnpooledByteBufAllocator.DEFAULT, false);
+    private final List<String> chunks = new ArrayList<>();
+
+    {
+        response.out = buffer;
+        response.onWriteChunk(chunk -> {
+            ByteBuf bytes = (ByteBuf) chunk;
+            chunks.add(bytes.toString(StandardCharsets.UTF_8));
+            bytes.release();
+        });
+    }
+
+    @AfterEach
+    public void release() {
+        buffer.release();
+    }
+
+    @Test
+    public void pageFittingInAChunkIsLeftInTheBuffer() throws Exception {
+        StreamingWriter writer = new StreamingWriter(response, buffer, StandardCharsets.UTF_8, 16, false);
+        writer.write("0123456789");
+        writer.write("abcde");
+        writer.close();
+        assertFalse(response.chunked);
+        assertTrue(chunks.isEmpty());
+        assertEquals(0, writer.getBytesSent());
+        assertEquals("0123456789abcde", buffer.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void chunkIsSentOnceItsSizeIsReached() throws Exception {
+        StreamingWriter writer = new StreamingWriter(response, buffer, StandardCharsets.UTF_8, 4, false);
+        writer.write("abc");
+        assertTrue(chunks.isEmpty());
+        writer.write("d");
+        assertEquals(List.of("abcd"), chunks);
+        // A write is not split, the chunk takes all of it
+        writer.write("efghij");
+        assertEquals(List.of("abcd", "efghij"), chunks);
+        writer.write('k');
+        writer.close();
+        assertTrue(response.chunked);
+        assertEquals(List.of("abcd", "efghij", "k"), chunks);
+        assertEquals(11, writer.getBytesSent());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void lastChunkIsNotSentEmpty() throws Exception {
+        StreamingWriter writer = new StreamingWriter(response, buffer, StandardCharsets.UTF_8, 2, false);
+        writer.write("ab");
+        writer.flush();
+        writer.close();
+        assertEquals(List.of("ab"), chunks);
+        assertEquals(2, writer.getBytesSent());
+    }
+
+    @Test
+    public void chunkSizeCountsCharactersAndSendsWholeCharacters() throws Exception {
+        StreamingWriter writer = new StreamingWriter(response, buffer, StandardCharsets.UTF_8, 2, false);
+        writer.write("é");
+        assertTrue(chunks.isEmpty());
+        writer.write("€");
+        writer.write("😀".toCharArray(), 0, 2);
+        writer.close();
+        assertEquals(List.of("é€", "😀"), chunks);
+        assertEquals("é€😀".getBytes(StandardCharsets.UTF_8).length, writer.getBytesSent());
+    }
+
+    @Test
+    public void leadingAndTrailingWhitespaceIsTrimmed() throws Exception {
+        StreamingWriter writer = new StreamingWriter(response, buffer, StandardCharsets.UTF_8, 3, true);
+        writer.write("\n  ");
+        writer.write(" \tab ");
+        writer.write("  ");
+        assertEquals(List.of(), chunks);
+        writer.write("\ncd\n");
+        writer.write("e");
+        writer.write("  \n\n");
+        writer.close();
+        assertEquals(List.of("ab   \ncd", "\ne"), chunks);
+        assertEquals(10, writer.getBytesSent());
+    }
+
+    @Test
+    public void whitespaceOnlyPageIsEmptyWhenTrimmed() throws Exception {
+        StreamingWriter writer = new StreamingWriter(response, buffer, StandardCharsets.UTF_8, 1, true);
+        writer.write(" \n\t ");
+        writer.close();
+        assertFalse(response.chunked);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void whitespaceIsKeptWhenNotTrimmed() throws Exception {
+        StreamingWriter writer = new StreamingWriter(response, buffer, StandardCharsets.UTF_8, 3, false);
+        writer.write("\n a");
+        writer.write(" \n");
+        writer.close();
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        for (String chunk : chunks) {
+            sent.write(chunk.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals("\n a \n", sent.toString(StandardCharsets.UTF_8));
+    }
+}